@@ -32,6 +32,11 @@ import com.chinmobi.aio.scheme.AIOTransportScheme;
  */
 public interface AIOAcceptor {
 
+	/**
+	 * The listeners of a sharded acceptor are observed as one: started once the first
+	 * listener is started, accepting once all are accepting, and stopped once all are
+	 * stopped, with the first failure cause.
+	 */
 	public interface Observer {
 		public void onAIOAcceptorStarted(AIOAcceptor acceptor);
 		public void onAIOAcceptorAccepting(AIOAcceptor acceptor);
@@ -0,0 +1,141 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A future callback exposing the act as a {@link CompletionStage}.
+ * <p>
+ * Passes a new completion as the callback of each act, the stage is completed on the
+ * thread completing the act (normally a reactor thread), so the dependent stages run
+ * there without a waiting thread or an executor hop. When an extractor is given,
+ * the value is extracted from the result and the future is released before the
+ * stage is completed; otherwise the stage is completed with the result itself and
+ * the future must be released via {@link #future()} after the result is consumed.
+ * The future is always released if the act was not accomplished.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOCompletion<T, R> implements AIOFutureCallback<T> {
+
+	public interface Extractor<T, R> {
+		public R extract(T result) throws Exception;
+	}
+
+
+	private final Extractor<T, R> extractor;
+
+	private final CompletableFuture<R> stage;
+
+	private volatile AIOFuture<T> future;
+
+
+	public AIOCompletion(final Extractor<T, R> extractor) {
+		this.extractor = extractor;
+		this.stage = new CompletableFuture<R>();
+	}
+
+	/**
+	 *
+	 * @return the completion whose stage is completed with the unreleased result.
+	 */
+	public static <T> AIOCompletion<T, T> retained() {
+		return new AIOCompletion<T, T>(null);
+	}
+
+
+	public final CompletionStage<R> stage() {
+		return this.stage;
+	}
+
+	public final AIOFuture<T> future() {
+		return this.future;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOFutureCallback#initiate(...)
+	 */
+	public void initiate(final AIOFuture<T> future, final Object attachment, final T result) {
+		this.future = future;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOFutureCallback#accomplished(...)
+	 */
+	@SuppressWarnings("unchecked")
+	public final void accomplished(final AIOFuture<T> future, final Object attachment, final T result) {
+		this.future = future;
+
+		final Extractor<T, R> extractor = this.extractor;
+		if (extractor != null) {
+			final R value;
+			try {
+				value = extractor.extract(result);
+			} catch (Throwable ex) {
+				future.release();
+				this.stage.completeExceptionally(ex);
+				return;
+			}
+
+			future.release();
+			this.stage.complete(value);
+		} else {
+			this.stage.complete((R)result);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOFutureCallback#timeout(...)
+	 */
+	public final void timeout(final AIOFuture<T> future, final Object attachment, final T result) {
+		this.future = future;
+		future.release();
+		this.stage.completeExceptionally(new TimeoutException("Act timeout."));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOFutureCallback#failed(...)
+	 */
+	public final void failed(final AIOFuture<T> future, final Object attachment, final T result,
+			final Throwable cause) {
+		this.future = future;
+		future.release();
+		this.stage.completeExceptionally(cause);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOFutureCallback#cancelled(...)
+	 */
+	public final void cancelled(final AIOFuture<T> future, final Object attachment, final T result) {
+		this.future = future;
+		future.release();
+		this.stage.cancel(false);
+	}
+
+}
@@ -24,6 +24,8 @@
  */
 package com.chinmobi.aio;
 
+import java.util.concurrent.Executor;
+
 /**
  * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
  *
@@ -41,6 +43,13 @@ public final class AIOConfiguration {
 
 	private volatile boolean interestOpsQueueing;
 
+	private volatile int ioBytesQuantum;
+	private volatile int ioIterationsQuantum;
+
+	private volatile Executor diskExecutor;
+	private volatile int maximumDiskOperationsInFlight;
+	private volatile int diskBufferSize;
+
 	private volatile String loggerName;
 
 
@@ -56,6 +65,13 @@ public final class AIOConfiguration {
 
 		this.interestOpsQueueing = false;
 
+		this.ioBytesQuantum = -1;
+		this.ioIterationsQuantum = -1;
+
+		this.diskExecutor = null;
+		this.maximumDiskOperationsInFlight = 16;
+		this.diskBufferSize = 64 * 1024;
+
 		this.loggerName = "chinmobi.aio";
 	}
 
@@ -121,6 +137,62 @@ public final class AIOConfiguration {
 	}
 
 
+	/**
+	 * Returns the maximum number of bytes a session may transfer per readiness event
+	 * before it yields to the other selected sessions, non-positive means unlimited.
+	 */
+	public final int getIOBytesQuantum() {
+		return this.ioBytesQuantum;
+	}
+
+	public final void setIOBytesQuantum(final int bytesQuantum) {
+		this.ioBytesQuantum = bytesQuantum;
+	}
+
+	/**
+	 * Returns the maximum number of channel operations a session may perform per readiness event
+	 * before it yields to the other selected sessions, non-positive means unlimited.
+	 */
+	public final int getIOIterationsQuantum() {
+		return this.ioIterationsQuantum;
+	}
+
+	public final void setIOIterationsQuantum(final int iterationsQuantum) {
+		this.ioIterationsQuantum = iterationsQuantum;
+	}
+
+	/**
+	 * Returns the executor which runs the blocking file operations of the file-backed acts,
+	 * null means they run on the reactor threads.
+	 */
+	public final Executor getDiskExecutor() {
+		return this.diskExecutor;
+	}
+
+	public final void setDiskExecutor(final Executor diskExecutor) {
+		this.diskExecutor = diskExecutor;
+	}
+
+	/**
+	 * Returns the maximum number of file operations in flight per reactor on the disk executor.
+	 */
+	public final int getMaximumDiskOperationsInFlight() {
+		return this.maximumDiskOperationsInFlight;
+	}
+
+	public final void setMaximumDiskOperationsInFlight(final int maximumDiskOperationsInFlight) {
+		this.maximumDiskOperationsInFlight = maximumDiskOperationsInFlight;
+	}
+
+	public final int getDiskBufferSize() {
+		return this.diskBufferSize;
+	}
+
+	public final void setDiskBufferSize(final int diskBufferSize) {
+		this.diskBufferSize = diskBufferSize;
+	}
+
+
 	public final String getLoggerName() {
 		return this.loggerName;
 	}
@@ -50,4 +50,17 @@ public interface AIOReactorStatistics {
 
 	public int getThreadPoolSize();
 
+	/*
+	 * For disk operations
+	 */
+
+	public long getDiskOperationCount();
+
+	public int getDiskOperationsInFlight();
+
+	/**
+	 * Returns the total nanoseconds the acts have waited for their disk operations.
+	 */
+	public long getDiskWaitTime();
+
 }
@@ -39,6 +39,12 @@ public interface AIOActDirection {
 
 	public Status status();
 
+	/**
+	 * For CONTINUE, the new count of the act entry if not 0.
+	 * For TERMINATE of an act reading into a byte buffer, a negative count gives back
+	 * that many trailing bytes of the reads, e.g. the bytes beyond a frame boundary
+	 * which have been pushed back as a legacy.
+	 */
 	public long newActEntryCount();
 
 
@@ -0,0 +1,72 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * An entry receiving a batch of datagrams into a ring of slots, each readiness
+ * event of the session drains as many datagrams as there are free slots,
+ * and the act completes with the whole batch.
+ * Its {@link #byteBuffer()} and {@link #fileChannel()} return null.
+ * <p>
+ * The slots are recycled when the next input act starts receiving into the entry,
+ * the datagrams must be consumed before the entry is read into again.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public interface AIODatagramBatchActEntry
+	extends AIODatagramActEntry, AIOWritableActEntry {
+
+	/**
+	 *
+	 * @return the cleared buffer of the next free slot, or null if the batch is full.
+	 */
+	public ByteBuffer nextSlot();
+
+	/**
+	 * Fills the slot returned by the last {@link #nextSlot()} with the received datagram.
+	 */
+	public void slotReceived(SocketAddress remote);
+
+	/**
+	 *
+	 * @return the number of the datagrams received.
+	 */
+	public int size();
+
+	/**
+	 *
+	 * @return the flipped buffer of the datagram at the index.
+	 */
+	public ByteBuffer datagram(int index);
+
+	public SocketAddress remoteAddress(int index);
+
+	public void recycle();
+
+}
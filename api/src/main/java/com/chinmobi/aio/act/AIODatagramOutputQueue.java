@@ -0,0 +1,77 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded queue of datagrams to send on a datagram session, without a future
+ * per datagram. The output actor sends as many of them as the socket accepts
+ * on each writable event, the outcomes are reported per flushed batch.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public interface AIODatagramOutputQueue {
+
+	public interface Observer {
+		/**
+		 * Reports a flushed batch.
+		 *
+		 * @param sent the number of datagrams sent.
+		 * @param dropped the number of datagrams rejected by a full or closed queue since the last report.
+		 * @param failed the number of datagrams failed to send.
+		 * @param cause the last failure, or null.
+		 */
+		public void datagramsFlushed(AIODatagramOutputQueue queue, int sent, int dropped, int failed, Throwable cause);
+	}
+
+
+	/**
+	 *
+	 * @param datagram the remaining bytes are sent, the buffer must not be modified until sent.
+	 * @param destination null to send on a connected channel.
+	 * @return false if the datagram is dropped because the queue is full or closed.
+	 */
+	public boolean enqueue(ByteBuffer datagram, SocketAddress destination);
+
+	public int size();
+
+	public int capacity();
+
+	public boolean isClosed();
+
+	public void setObserver(Observer observer);
+
+	public Observer getObserver();
+
+	public long getSentCount();
+
+	public long getDroppedCount();
+
+	public long getFailedCount();
+
+}
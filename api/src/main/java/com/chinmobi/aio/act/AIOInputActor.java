@@ -52,6 +52,24 @@ public interface AIOInputActor {
 			AIOWritableActEntry target, AIOFutureCallback<AIOInputActResult> callback, long timeout, TimeUnit unit,
 			AIOInputActStrategy strategy, Object attachment) throws AIOClosedSessionException;
 
+	/**
+	 * Reads without holding a buffer while waiting, the target entry is borrowed from the pool
+	 * when the session becomes readable and is given back to it if nothing was read.
+	 *
+	 * @param sessionId
+	 * @param pool
+	 * @param callback
+	 * @param timeout
+	 * @param unit
+	 * @param strategy
+	 * @param attachment
+	 * @return the act future, whose result entry is null if nothing was read.
+	 * @throws AIOClosedSessionException, IllegalArgumentException
+	 */
+	public AIOFuture<AIOInputActResult> read(int sessionId,
+			AIOReadEntryPool pool, AIOFutureCallback<AIOInputActResult> callback, long timeout, TimeUnit unit,
+			AIOInputActStrategy strategy, Object attachment) throws AIOClosedSessionException;
+
 	/**
 	 *
 	 * @return the current input act result, null if there was no act request.
@@ -85,4 +103,23 @@ public interface AIOInputActor {
 	 */
 	public AIOInputLegacy popLegacy(int sessionId) throws AIOClosedSessionException;
 
+	/**
+	 * Views the pushed legacies without popping or copying them.
+	 *
+	 * @param sessionId
+	 * @return the snapshot view, whose length is 0 if has not legacy.
+	 * @throws AIOClosedSessionException
+	 */
+	public AIOInputLegacyView viewLegacy(int sessionId) throws AIOClosedSessionException;
+
+	/**
+	 * Consumes the bytes of the pushed legacies from the top, the drained legacies are popped and released.
+	 *
+	 * @param sessionId
+	 * @param count
+	 * @return the skipped bytes.
+	 * @throws AIOClosedSessionException
+	 */
+	public long skipLegacy(int sessionId, long count) throws AIOClosedSessionException;
+
 }
@@ -0,0 +1,83 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only view over the legacies pushed back to an input actor, from the top legacy
+ * down, without copying their bytes. The view stops at the first legacy not backed by a
+ * byte buffer.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public interface AIOInputLegacyView {
+
+	/**
+	 *
+	 * @return the read-only buffers of the view, each positioned at its remaining bytes.
+	 */
+	public ByteBuffer[] byteBuffers();
+
+	/**
+	 *
+	 * @return the total remaining bytes of the view.
+	 */
+	public long length();
+
+	/**
+	 *
+	 * @param index relative to the current position of the view.
+	 * @return the byte at the index.
+	 * @throws IndexOutOfBoundsException
+	 */
+	public byte get(long index);
+
+	/**
+	 *
+	 * @param value
+	 * @param fromIndex
+	 * @return -1 if not found.
+	 */
+	public long indexOf(byte value, long fromIndex);
+
+	/**
+	 *
+	 * @param delimiter
+	 * @param fromIndex
+	 * @return the index of the first byte of the delimiter, -1 if not found.
+	 */
+	public long indexOf(byte[] delimiter, long fromIndex);
+
+	/**
+	 * Advances the position of the view, the pushed legacies are not consumed.
+	 *
+	 * @param count
+	 * @return the skipped bytes.
+	 */
+	public long skip(long count);
+
+}
@@ -57,4 +57,13 @@ public interface AIOOutputActor {
 	 */
 	public AIOOutputActResult getCurrentResult();
 
+	/**
+	 *
+	 * @param sessionId
+	 * @param capacity the capacity of the queue when it is created by this call.
+	 * @return the datagram output queue of the session.
+	 * @throws AIOClosedSessionException, UnsupportedOperationException if the session is not a datagram one.
+	 */
+	public AIODatagramOutputQueue datagramQueue(int sessionId, int capacity) throws AIOClosedSessionException;
+
 }
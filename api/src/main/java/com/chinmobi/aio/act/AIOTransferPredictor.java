@@ -0,0 +1,161 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act;
+
+/**
+ * Predicts the length of the next transfer from the lengths of the last ones,
+ * growing quickly after a full transfer and shrinking slowly after short ones.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class AIOTransferPredictor {
+
+	public static final int DEFAULT_MINIMUM = 64;
+	public static final int DEFAULT_INITIAL = 1024;
+	public static final int DEFAULT_MAXIMUM = 65536;
+
+	private static final int INDEX_INCREMENT = 4;
+	private static final int INDEX_DECREMENT = 1;
+
+	private static final int[] SIZE_TABLE;
+
+	static {
+		int count = 0;
+		for (int i = 16; i < 512; i += 16) {
+			++count;
+		}
+		for (int i = 512; i > 0; i <<= 1) {
+			++count;
+		}
+
+		SIZE_TABLE = new int[count];
+
+		int index = 0;
+		for (int i = 16; i < 512; i += 16) {
+			SIZE_TABLE[index++] = i;
+		}
+		for (int i = 512; i > 0; i <<= 1) {
+			SIZE_TABLE[index++] = i;
+		}
+	}
+
+	private final int minIndex;
+	private final int maxIndex;
+	private final int initialIndex;
+
+	private int index;
+	private int nextLength;
+	private boolean decreaseNow;
+
+
+	public AIOTransferPredictor() {
+		this(DEFAULT_MINIMUM, DEFAULT_INITIAL, DEFAULT_MAXIMUM);
+	}
+
+	public AIOTransferPredictor(final int minimum, final int initial, final int maximum) {
+		if (minimum <= 0) {
+			throw new IllegalArgumentException("minimum: " + minimum);
+		}
+		if (initial < minimum) {
+			throw new IllegalArgumentException("initial: " + initial);
+		}
+		if (maximum < initial) {
+			throw new IllegalArgumentException("maximum: " + maximum);
+		}
+
+		int minIndex = sizeTableIndex(minimum);
+		if (SIZE_TABLE[minIndex] < minimum) {
+			++minIndex;
+		}
+
+		int maxIndex = sizeTableIndex(maximum);
+		if (SIZE_TABLE[maxIndex] > maximum) {
+			--maxIndex;
+		}
+
+		this.minIndex = minIndex;
+		this.maxIndex = maxIndex;
+		this.initialIndex = sizeTableIndex(initial);
+
+		reset();
+	}
+
+
+	public final void reset() {
+		this.index = this.initialIndex;
+		this.nextLength = SIZE_TABLE[this.initialIndex];
+		this.decreaseNow = false;
+	}
+
+	public final int nextLength() {
+		return this.nextLength;
+	}
+
+	public final void record(final long actualLength) {
+		if (actualLength <= SIZE_TABLE[Math.max(0, this.index - INDEX_DECREMENT)]) {
+			if (this.decreaseNow) {
+				this.index = Math.max(this.index - INDEX_DECREMENT, this.minIndex);
+				this.nextLength = SIZE_TABLE[this.index];
+				this.decreaseNow = false;
+			} else {
+				this.decreaseNow = true;
+			}
+		} else if (actualLength >= this.nextLength) {
+			this.index = Math.min(this.index + INDEX_INCREMENT, this.maxIndex);
+			this.nextLength = SIZE_TABLE[this.index];
+			this.decreaseNow = false;
+		}
+	}
+
+	private static int sizeTableIndex(final int size) {
+		int low = 0;
+		int high = SIZE_TABLE.length - 1;
+
+		for (;;) {
+			if (high < low) {
+				return low;
+			}
+			if (high == low) {
+				return high;
+			}
+
+			final int mid = (low + high) >>> 1;
+			final int a = SIZE_TABLE[mid];
+			final int b = SIZE_TABLE[mid + 1];
+
+			if (size > b) {
+				low = mid + 1;
+			} else if (size < a) {
+				high = mid - 1;
+			} else if (size == a) {
+				return mid;
+			} else {
+				return mid + 1;
+			}
+		}
+	}
+
+}
@@ -46,6 +46,17 @@ public class AIODatagramScheme extends AIOTransportScheme {
 		return true;
 	}
 
+	/**
+	 * Whether each reactor of a reactor group binds its own datagram socket
+	 * (with SO_REUSEPORT) on the endpoint, the kernel spreads the peers over them.
+	 * The endpoint must be bound to an explicit port.
+	 *
+	 * @return false by default.
+	 */
+	public boolean isShardedAcceptor() {
+		return false;
+	}
+
 	public void prepareBind(final DatagramSocket socket) throws SocketException {
 		//socket.setReuseAddress(true);
 	}
@@ -0,0 +1,215 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.scheme;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool running the delegated tasks of the SSL handshakes
+ * (key exchange, certificate validation) outside of the reactor threads.
+ * When the pool is saturated the tasks are run inline by the reactor.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOHandshakeExecutor {
+
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicInteger queueDepth;
+	private final AtomicInteger runningCount;
+
+	private final AtomicLong executedCount;
+	private final AtomicLong rejectedCount;
+
+	private final AtomicLong totalWaitNanos;
+	private final AtomicLong totalRunNanos;
+	private final AtomicLong maxRunNanos;
+
+
+	public AIOHandshakeExecutor(final int threads, final int queueCapacity) {
+		if (threads <= 0 || queueCapacity <= 0) {
+			throw new IllegalArgumentException("threads: " + threads + ", queueCapacity: " + queueCapacity);
+		}
+
+		this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), new Factory());
+		this.executor.allowCoreThreadTimeOut(true);
+
+		this.queueDepth = new AtomicInteger();
+		this.runningCount = new AtomicInteger();
+
+		this.executedCount = new AtomicLong();
+		this.rejectedCount = new AtomicLong();
+
+		this.totalWaitNanos = new AtomicLong();
+		this.totalRunNanos = new AtomicLong();
+		this.maxRunNanos = new AtomicLong();
+	}
+
+
+	/**
+	 * Executes the delegated tasks of a handshake.
+	 *
+	 * @return false if the pool is saturated or shut down, the caller should run the tasks itself.
+	 */
+	public final boolean execute(final Runnable tasks) {
+		this.queueDepth.incrementAndGet();
+		try {
+			this.executor.execute(new Task(tasks));
+			return true;
+		} catch (RejectedExecutionException ex) {
+			this.queueDepth.decrementAndGet();
+			this.rejectedCount.incrementAndGet();
+			return false;
+		}
+	}
+
+	public void shutdown() {
+		this.executor.shutdown();
+	}
+
+	public final boolean isShutdown() {
+		return this.executor.isShutdown();
+	}
+
+	/**
+	 * Gets the number of handshakes waiting for a pool thread.
+	 */
+	public final int getQueueDepth() {
+		return this.queueDepth.get();
+	}
+
+	public final int getRunningCount() {
+		return this.runningCount.get();
+	}
+
+	public final long getExecutedCount() {
+		return this.executedCount.get();
+	}
+
+	public final long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	public final long getTotalWaitTime(final TimeUnit unit) {
+		return unit.convert(this.totalWaitNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public final long getTotalRunTime(final TimeUnit unit) {
+		return unit.convert(this.totalRunNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public final long getMaxRunTime(final TimeUnit unit) {
+		return unit.convert(this.maxRunNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	private final void executed(final long waitNanos, final long runNanos) {
+		this.executedCount.incrementAndGet();
+
+		this.totalWaitNanos.addAndGet(waitNanos);
+		this.totalRunNanos.addAndGet(runNanos);
+
+		long max = this.maxRunNanos.get();
+		while (runNanos > max) {
+			if (this.maxRunNanos.compareAndSet(max, runNanos)) {
+				break;
+			}
+			max = this.maxRunNanos.get();
+		}
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("HandshakeExecutor[queued: ").append(getQueueDepth());
+		builder.append(", running: ").append(getRunningCount());
+		builder.append(", executed: ").append(getExecutedCount());
+		builder.append(", rejected: ").append(getRejectedCount());
+		builder.append(", maxRunMillis: ").append(getMaxRunTime(TimeUnit.MILLISECONDS));
+		builder.append(']');
+
+		return builder.toString();
+	}
+
+
+	private final class Task implements Runnable {
+
+		private final Runnable tasks;
+		private final long queuedTime;
+
+
+		Task(final Runnable tasks) {
+			this.tasks = tasks;
+			this.queuedTime = System.nanoTime();
+		}
+
+
+		public final void run() {
+			final long startTime = System.nanoTime();
+
+			queueDepth.decrementAndGet();
+			runningCount.incrementAndGet();
+			try {
+				this.tasks.run();
+			} finally {
+				runningCount.decrementAndGet();
+
+				executed(startTime - this.queuedTime, System.nanoTime() - startTime);
+			}
+		}
+
+	}
+
+	private static final class Factory implements ThreadFactory {
+
+		private static final AtomicInteger poolNumber = new AtomicInteger();
+
+		private final String namePrefix;
+		private final AtomicInteger threadNumber;
+
+
+		Factory() {
+			this.namePrefix = "AIOHandshake-" + poolNumber.incrementAndGet() + "-";
+			this.threadNumber = new AtomicInteger();
+		}
+
+
+		public final Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, this.namePrefix + this.threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
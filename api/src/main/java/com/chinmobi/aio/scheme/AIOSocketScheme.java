@@ -51,6 +51,16 @@ public class AIOSocketScheme extends AIOTransportScheme {
 		return null;
 	}
 
+	/**
+	 * Gets the executor running the delegated tasks of the SSL handshakes,
+	 * the tasks are run by the reactor threads if there is none.
+	 *
+	 * @return null by default.
+	 */
+	public AIOHandshakeExecutor getHandshakeExecutor() {
+		return null;
+	}
+
 	public void prepareBind(final ServerSocket serverSocket) throws SocketException {
 	}
 
@@ -58,6 +68,28 @@ public class AIOSocketScheme extends AIOTransportScheme {
 		return 0;
 	}
 
+	/**
+	 * Gets the maximum number of connections accepted per accept readiness event,
+	 * the accepting stops earlier when no more connection is pending.
+	 *
+	 * @return the accept batch size, 1 by default.
+	 */
+	public int getAcceptBatchSize() {
+		return 1;
+	}
+
+	/**
+	 * Whether each reactor of a reactor group binds its own listening socket
+	 * (with SO_REUSEPORT) and accepts the connections on its own selector,
+	 * instead of one listener dispatching the accepted sessions to the group.
+	 * The endpoint must be bound to an explicit port.
+	 *
+	 * @return false by default.
+	 */
+	public boolean isShardedAcceptor() {
+		return false;
+	}
+
 	public void socketReady(final ServerSocket serverSocket) throws SocketException {
 	}
 
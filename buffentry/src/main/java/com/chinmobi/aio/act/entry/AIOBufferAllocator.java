@@ -34,4 +34,11 @@ public interface AIOBufferAllocator {
 
 	public ByteBuffer aioAllocate(ByteBuffer oldBuffer, int size);
 
+
+	public interface Releasable extends AIOBufferAllocator {
+
+		public void aioRelease(ByteBuffer buffer);
+
+	}
+
 }
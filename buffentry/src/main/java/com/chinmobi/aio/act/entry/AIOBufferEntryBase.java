@@ -29,9 +29,12 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.chinmobi.aio.act.AIOInputLegacy;
 import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOReleasableActEntry;
+import com.chinmobi.aio.act.AIOTransferPredictor;
 import com.chinmobi.aio.act.AIOWritableActEntry;
 
 /**
@@ -45,6 +48,8 @@ public class AIOBufferEntryBase {
 
 	protected transient AIOBufferAllocator allocator;
 
+	protected transient AIOTransferPredictor predictor;
+
 	protected ByteBuffer buffer;
 
 	protected int mode;
@@ -52,9 +57,17 @@ public class AIOBufferEntryBase {
 	protected Input input;
 	protected Output output;
 
+	private final AtomicInteger referenceCount;
+	private AIOBufferLeakDetector.Tracker leakTracker;
+
+	private RetainedInput retainedInput;
+	private RetainedInputLegacy retainedInputLegacy;
+	private RetainedOutput retainedOutput;
+
 
 	protected AIOBufferEntryBase() {
 		super();
+		this.referenceCount = new AtomicInteger(1);
 	}
 
 	public AIOBufferEntryBase(final int size) {
@@ -74,6 +87,9 @@ public class AIOBufferEntryBase {
 
 		this.input = new Input(this);
 		this.output = new Output(this);
+
+		this.referenceCount = new AtomicInteger(1);
+		trackLeak();
 	}
 
 	public AIOBufferEntryBase(final ByteBuffer buffer, final boolean asInput) {
@@ -89,11 +105,18 @@ public class AIOBufferEntryBase {
 
 		this.input = new Input(this);
 		this.output = new Output(this);
+
+		this.referenceCount = new AtomicInteger(1);
 	}
 
 
 	public final void setAllocator(final AIOBufferAllocator allocator) {
 		this.allocator = allocator;
+		trackLeak();
+	}
+
+	public final void setTransferPredictor(final AIOTransferPredictor predictor) {
+		this.predictor = predictor;
 	}
 
 	public AIOBufferEntryBase wrap(final ByteBuffer buffer, final boolean asInput) {
@@ -119,6 +142,124 @@ public class AIOBufferEntryBase {
 		return this;
 	}
 
+	/*
+	 * Reference counting methods
+	 */
+
+	public final int referenceCount() {
+		return this.referenceCount.get();
+	}
+
+	public final AIOBufferEntryBase retain() {
+		for (;;) {
+			final int count = this.referenceCount.get();
+			if (count <= 0) {
+				throw new IllegalStateException("referenceCount: " + count);
+			}
+			if (this.referenceCount.compareAndSet(count, count + 1)) {
+				return this;
+			}
+		}
+	}
+
+	/**
+	 * Drops one reference, the buffer is deallocated when the last one is dropped
+	 * and the entry must not be used afterwards unless a new buffer is wrapped or allocated.
+	 *
+	 * @return true if the entry was deallocated.
+	 */
+	public final boolean release() {
+		for (;;) {
+			final int count = this.referenceCount.get();
+			if (count <= 0) {
+				throw new IllegalStateException("referenceCount: " + count);
+			}
+			if (this.referenceCount.compareAndSet(count, count - 1)) {
+				if (count == 1) {
+					final AIOBufferLeakDetector.Tracker tracker = this.leakTracker;
+					if (tracker != null) {
+						this.leakTracker = null;
+						tracker.close();
+					}
+
+					deallocate();
+					return true;
+				}
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Retains this entry for an input act, the reference is released when the future
+	 * of the act is released, however the act ends.
+	 */
+	public AIOReadableActEntry toRetainedInput() {
+		retain();
+		setInputMode();
+
+		RetainedInput input = this.retainedInput;
+		if (input == null) {
+			input = new RetainedInput(this);
+			this.retainedInput = input;
+		}
+		return input;
+	}
+
+	/**
+	 * Retains this entry for a pushed legacy, the reference is released by {@link AIOInputLegacy#release()}.
+	 */
+	public AIOInputLegacy toRetainedInputLegacy() {
+		retain();
+		setInputMode();
+
+		RetainedInputLegacy legacy = this.retainedInputLegacy;
+		if (legacy == null) {
+			legacy = new RetainedInputLegacy(this);
+			this.retainedInputLegacy = legacy;
+		}
+		return legacy;
+	}
+
+	/**
+	 * Retains this entry for an output act, the reference is released when the future
+	 * of the act is released, however the act ends.
+	 */
+	public AIOWritableActEntry toRetainedOutput() {
+		retain();
+		setOutputMode();
+
+		RetainedOutput output = this.retainedOutput;
+		if (output == null) {
+			output = new RetainedOutput(this);
+			this.retainedOutput = output;
+		}
+		return output;
+	}
+
+	protected void deallocate() {
+		final ByteBuffer buffer = this.buffer;
+		if (buffer != null) {
+			this.buffer = null;
+
+			final AIOBufferAllocator allocator = this.allocator;
+			if (allocator instanceof AIOBufferAllocator.Releasable) {
+				((AIOBufferAllocator.Releasable)allocator).aioRelease(buffer);
+			}
+		}
+	}
+
+	protected final void resetReference() {
+		this.referenceCount.set(1);
+		trackLeak();
+	}
+
+	private final void trackLeak() {
+		if (this.leakTracker == null && this.allocator instanceof AIOBufferAllocator.Releasable) {
+			this.leakTracker = AIOBufferLeakDetector.getInstance().track(this);
+		}
+	}
+
 	public AIOBufferEntryBase ensureCapacity(final int requiredCapacity) {
 		final ByteBuffer buffer = this.buffer;
 
@@ -246,11 +387,27 @@ public class AIOBufferEntryBase {
 			break;
 		}
 
+		if (total > 0) {
+			recordTransfer(total);
+		}
+
 		return total;
 	}
 
 	protected int lengthPerTransfer() {
-		return 1024;
+		AIOTransferPredictor predictor = this.predictor;
+		if (predictor == null) {
+			predictor = new AIOTransferPredictor();
+			this.predictor = predictor;
+		}
+		return predictor.nextLength();
+	}
+
+	protected void recordTransfer(final int length) {
+		final AIOTransferPredictor predictor = this.predictor;
+		if (predictor != null) {
+			predictor.record(length);
+		}
 	}
 
 	public final int writeTo(final WritableByteChannel target, int length)
@@ -480,4 +637,56 @@ public class AIOBufferEntryBase {
 
 	}
 
+	private static final class RetainedInput extends IOBase
+		implements AIOReadableActEntry, AIOReleasableActEntry {
+
+
+		private RetainedInput(final AIOBufferEntryBase entry) {
+			super(entry);
+		}
+
+
+		public final void completed(final long position, final long count) {
+			this.entry.onCompleted(true, position, count);
+		}
+
+		public final void released() {
+			this.entry.release();
+		}
+
+	}
+
+	private static final class RetainedInputLegacy extends IOBase implements AIOInputLegacy {
+
+
+		private RetainedInputLegacy(final AIOBufferEntryBase entry) {
+			super(entry);
+		}
+
+
+		public final void release() {
+			this.entry.release();
+		}
+
+	}
+
+	private static final class RetainedOutput extends IOBase
+		implements AIOWritableActEntry, AIOReleasableActEntry {
+
+
+		private RetainedOutput(final AIOBufferEntryBase entry) {
+			super(entry);
+		}
+
+
+		public final void completed(final long position, final long count) {
+			this.entry.onCompleted(false, position, count);
+		}
+
+		public final void released() {
+			this.entry.release();
+		}
+
+	}
+
 }
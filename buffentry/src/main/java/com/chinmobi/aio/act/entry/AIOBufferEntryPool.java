@@ -0,0 +1,128 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.chinmobi.aio.act.AIOReadEntryPool;
+import com.chinmobi.aio.act.AIOWritableActEntry;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOBufferEntryPool implements AIOReadEntryPool {
+
+	private final AIOBufferAllocator allocator;
+
+	private final int entrySize;
+	private final int maxCachedCount;
+
+	private final ConcurrentLinkedQueue<PooledEntry> freeEntries;
+	private final AtomicInteger freeCount;
+
+
+	public AIOBufferEntryPool(final int entrySize, final int maxCachedCount) {
+		this(null, entrySize, maxCachedCount);
+	}
+
+	public AIOBufferEntryPool(final AIOBufferAllocator allocator,
+			final int entrySize, final int maxCachedCount) {
+		if (entrySize <= 0) {
+			throw new IllegalArgumentException("entrySize: " + entrySize);
+		}
+
+		this.allocator = allocator;
+
+		this.entrySize = entrySize;
+		this.maxCachedCount = maxCachedCount;
+
+		this.freeEntries = new ConcurrentLinkedQueue<PooledEntry>();
+		this.freeCount = new AtomicInteger(0);
+	}
+
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOReadEntryPool#borrowEntry()
+	 */
+	public AIOWritableActEntry borrowEntry() {
+		PooledEntry entry = this.freeEntries.poll();
+		if (entry != null) {
+			this.freeCount.decrementAndGet();
+			entry.resetReference();
+		} else {
+			entry = new PooledEntry(this, this.allocator, this.entrySize);
+		}
+
+		return entry.clear().toOutput();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOReadEntryPool#reclaimEntry(AIOWritableActEntry entry)
+	 */
+	public void reclaimEntry(final AIOWritableActEntry entry) {
+		if (entry instanceof AIOBufferEntryBase.Output) {
+			((AIOBufferEntryBase.Output)entry).entry().release();
+		}
+	}
+
+	public final int freeCount() {
+		return this.freeCount.get();
+	}
+
+	private final boolean recycle(final PooledEntry entry) {
+		if (this.freeCount.incrementAndGet() <= this.maxCachedCount) {
+			entry.clear();
+			this.freeEntries.add(entry);
+			return true;
+		} else {
+			this.freeCount.decrementAndGet();
+			return false;
+		}
+	}
+
+
+	private static final class PooledEntry extends AIOBufferEntryBase {
+
+		private final AIOBufferEntryPool pool;
+
+
+		PooledEntry(final AIOBufferEntryPool pool, final AIOBufferAllocator allocator, final int size) {
+			super(allocator, size);
+			this.pool = pool;
+		}
+
+
+		@Override
+		protected final void deallocate() {
+			if (!this.pool.recycle(this)) {
+				super.deallocate();
+			}
+		}
+
+	}
+
+}
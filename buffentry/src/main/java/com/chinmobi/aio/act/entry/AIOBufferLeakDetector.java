@@ -0,0 +1,204 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.chinmobi.logging.LogManager;
+import com.chinmobi.logging.Logger;
+
+/**
+ * Samples reference-counted buffer entries and reports the allocation site of those
+ * which were garbage collected without being released.
+ * <p>
+ * Without a {@link Reporter} set, a leak is logged as an error by the default logger of the reactors.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class AIOBufferLeakDetector {
+
+	public static final String SAMPLING_INTERVAL_PROPERTY = "chinmobi.aio.leakDetection.samplingInterval";
+
+	public static final int DEFAULT_SAMPLING_INTERVAL = 128;
+
+	private static final String DEFAULT_LOGGER_NAME = "chinmobi.aio";
+
+
+	public interface Reporter {
+		public void reportLeak(String entryDescription, Throwable allocationSite);
+	}
+
+
+	private static final AIOBufferLeakDetector INSTANCE = new AIOBufferLeakDetector();
+
+	private final ReferenceQueue<AIOBufferEntryBase> referenceQueue;
+	private final Map<Tracker, Boolean> trackers;
+
+	private final AtomicInteger sampleCounter;
+	private final AtomicLong leakCount;
+
+	private final Reporter defaultReporter;
+
+	private volatile int samplingInterval;
+	private volatile Reporter reporter;
+
+
+	private AIOBufferLeakDetector() {
+		this.referenceQueue = new ReferenceQueue<AIOBufferEntryBase>();
+		this.trackers = new ConcurrentHashMap<Tracker, Boolean>();
+
+		this.sampleCounter = new AtomicInteger(0);
+		this.leakCount = new AtomicLong(0);
+
+		int interval = DEFAULT_SAMPLING_INTERVAL;
+		try {
+			interval = Integer.parseInt(System.getProperty(SAMPLING_INTERVAL_PROPERTY,
+					Integer.toString(DEFAULT_SAMPLING_INTERVAL)));
+		} catch (RuntimeException ignore) { // NumberFormatException, SecurityException
+		}
+		this.samplingInterval = interval;
+
+		this.defaultReporter = new LoggerReporter(LogManager.getLogger(DEFAULT_LOGGER_NAME));
+		this.reporter = this.defaultReporter;
+	}
+
+
+	public static final AIOBufferLeakDetector getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 *
+	 * @param interval tracks one of every interval entries, 1 tracks all, non-positive disables.
+	 */
+	public final void setSamplingInterval(final int interval) {
+		this.samplingInterval = interval;
+	}
+
+	public final int getSamplingInterval() {
+		return this.samplingInterval;
+	}
+
+	/**
+	 *
+	 * @param reporter null to log the leaks by the default logger.
+	 */
+	public final void setReporter(final Reporter reporter) {
+		this.reporter = (reporter != null) ? reporter : this.defaultReporter;
+	}
+
+	public final long getLeakCount() {
+		return this.leakCount.get();
+	}
+
+	public final int getTrackedCount() {
+		return this.trackers.size();
+	}
+
+	final Tracker track(final AIOBufferEntryBase entry) {
+		reportLeaks();
+
+		final int interval = this.samplingInterval;
+		if (interval <= 0) {
+			return null;
+		}
+		if (interval > 1 && (this.sampleCounter.incrementAndGet() % interval) != 0) {
+			return null;
+		}
+
+		final Tracker tracker = new Tracker(this, entry);
+		this.trackers.put(tracker, Boolean.TRUE);
+		return tracker;
+	}
+
+	public final void reportLeaks() {
+		Tracker tracker;
+		while ((tracker = (Tracker)this.referenceQueue.poll()) != null) {
+			if (this.trackers.remove(tracker) != null) {
+				this.leakCount.incrementAndGet();
+
+				try {
+					this.reporter.reportLeak(tracker.description, tracker.allocationSite);
+				} catch (RuntimeException ignore) {
+				}
+			}
+		}
+	}
+
+
+	private static final class LoggerReporter implements Reporter {
+
+		private final Logger logger;
+
+
+		LoggerReporter(final Logger logger) {
+			this.logger = logger;
+		}
+
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.act.entry.AIOBufferLeakDetector.Reporter#reportLeak(String entryDescription, Throwable allocationSite)
+		 */
+		public final void reportLeak(final String entryDescription, final Throwable allocationSite) {
+			this.logger.error().writeln().write("LEAK: ").write(entryDescription).
+				write(" was garbage collected without being released.").writeln().
+				write(allocationSite).flush();
+		}
+
+	}
+
+
+	static final class Tracker extends WeakReference<AIOBufferEntryBase> {
+
+		private final AIOBufferLeakDetector detector;
+
+		private final String description;
+		private final Throwable allocationSite;
+
+
+		private Tracker(final AIOBufferLeakDetector detector, final AIOBufferEntryBase entry) {
+			super(entry, detector.referenceQueue);
+
+			this.detector = detector;
+
+			this.description = entry.getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(entry));
+			this.allocationSite = new Throwable("Allocation site of " + this.description);
+		}
+
+
+		final void close() {
+			this.detector.trackers.remove(this);
+			clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,218 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.chinmobi.aio.act.AIODatagramBatchActEntry;
+
+/**
+ * A ring of preallocated datagram slots, sliced from one buffer, direct unless
+ * an allocator is given.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIODatagramBatchEntry implements AIODatagramBatchActEntry {
+
+	protected transient AIOBufferAllocator allocator;
+
+	private ByteBuffer buffer;
+
+	private final ByteBuffer[] slots;
+	private final SocketAddress[] remotes;
+
+	private final int slotSize;
+
+	private int size;
+
+
+	public AIODatagramBatchEntry(final int slotCount, final int slotSize) {
+		this(null, slotCount, slotSize);
+	}
+
+	public AIODatagramBatchEntry(final AIOBufferAllocator allocator, final int slotCount, final int slotSize) {
+		super();
+
+		if (slotCount <= 0) {
+			throw new IllegalArgumentException("slotCount: " + slotCount);
+		}
+		if (slotSize <= 0) {
+			throw new IllegalArgumentException("slotSize: " + slotSize);
+		}
+
+		this.allocator = allocator;
+
+		final int capacity = slotCount * slotSize;
+		this.buffer = (allocator != null) ? allocator.aioAllocate(null, capacity) :
+			ByteBuffer.allocateDirect(capacity);
+
+		this.slots = new ByteBuffer[slotCount];
+		this.remotes = new SocketAddress[slotCount];
+
+		this.slotSize = slotSize;
+
+		for (int i = 0; i < slotCount; ++i) {
+			this.buffer.limit((i + 1) * slotSize).position(i * slotSize);
+			this.slots[i] = this.buffer.slice();
+		}
+		this.buffer.clear();
+
+		this.size = 0;
+	}
+
+
+	public final int slotCount() {
+		return this.slots.length;
+	}
+
+	public final int slotSize() {
+		return this.slotSize;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramBatchActEntry#nextSlot()
+	 */
+	public final ByteBuffer nextSlot() {
+		if (this.size < this.slots.length) {
+			final ByteBuffer slot = this.slots[this.size];
+			slot.clear();
+			return slot;
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramBatchActEntry#slotReceived(SocketAddress remote)
+	 */
+	public final void slotReceived(final SocketAddress remote) {
+		this.slots[this.size].flip();
+		this.remotes[this.size] = remote;
+		++this.size;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramBatchActEntry#size()
+	 */
+	public final int size() {
+		return this.size;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramBatchActEntry#datagram(int index)
+	 */
+	public final ByteBuffer datagram(final int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + this.size);
+		}
+		return this.slots[index];
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramBatchActEntry#remoteAddress(int index)
+	 */
+	public final SocketAddress remoteAddress(final int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + this.size);
+		}
+		return this.remotes[index];
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramBatchActEntry#recycle()
+	 */
+	public final void recycle() {
+		for (int i = 0; i < this.size; ++i) {
+			this.remotes[i] = null;
+		}
+		this.size = 0;
+	}
+
+	/**
+	 * Gives the buffer of the ring back to a releasable allocator,
+	 * the entry must not be used any more.
+	 */
+	public final void release() {
+		recycle();
+
+		final ByteBuffer buffer = this.buffer;
+		if (buffer != null) {
+			this.buffer = null;
+			if (this.allocator instanceof AIOBufferAllocator.Releasable) {
+				((AIOBufferAllocator.Releasable)this.allocator).aioRelease(buffer);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOActEntry#byteBuffer()
+	 */
+	public final ByteBuffer byteBuffer() {
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOActEntry#fileChannel()
+	 */
+	public final FileChannel fileChannel() {
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOActEntry#position()
+	 */
+	public final long position() {
+		return 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOActEntry#count()
+	 */
+	public final long count() {
+		return (long)(this.slots.length - this.size) * this.slotSize;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOActEntry#completed(long position, long count)
+	 */
+	public void completed(final long position, final long count) {
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("DatagramBatchEntry [");
+		builder.append("slots: ").append(this.slots.length);
+		builder.append(", slotSize: ").append(this.slotSize);
+		builder.append(", size: ").append(this.size);
+		builder.append("]");
+
+		return builder.toString();
+	}
+
+}
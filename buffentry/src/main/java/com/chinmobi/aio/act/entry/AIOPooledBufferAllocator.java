@@ -0,0 +1,435 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A direct buffer allocator pooling power-of-two size classes,
+ * which are carved from large chunks of a few arenas and cached per thread.
+ * <p>
+ * The old buffer passed to {@link #aioAllocate(ByteBuffer, int)} is returned to the cache
+ * of the calling thread, so it stays readable until the next allocation of that thread.
+ * <p>
+ * Only the buffers carved by this allocator are taken back, a foreign buffer is ignored
+ * and releasing a buffer twice throws {@link IllegalStateException}.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOPooledBufferAllocator implements AIOBufferAllocator.Releasable {
+
+	public static final int DEFAULT_MIN_SIZE = 64;
+	public static final int DEFAULT_MAX_SIZE = 65536;
+	public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+	public static final int DEFAULT_THREAD_CACHE_SIZE = 32;
+
+	private final int minShift;
+	private final int maxSize;
+	private final int chunkSize;
+	private final int threadCacheSize;
+
+	private final Arena[] arenas;
+	private final AtomicInteger nextArena;
+
+	private final ConcurrentHashMap<BufferKey, CarvedBuffer> carvedBuffers;
+
+	private final ThreadLocal<ThreadCache> threadCache;
+
+	private final AtomicLong allocatedCount;
+	private final AtomicLong releasedCount;
+	private final AtomicLong unpooledCount;
+	private final AtomicLong rejectedCount;
+
+
+	public AIOPooledBufferAllocator() {
+		this(Runtime.getRuntime().availableProcessors(),
+				DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_CHUNK_SIZE, DEFAULT_THREAD_CACHE_SIZE);
+	}
+
+	public AIOPooledBufferAllocator(final int arenaCount,
+			final int minSize, final int maxSize, final int chunkSize, final int threadCacheSize) {
+		if (arenaCount <= 0) {
+			throw new IllegalArgumentException("arenaCount: " + arenaCount);
+		}
+		if (minSize <= 0 || Integer.bitCount(minSize) != 1) {
+			throw new IllegalArgumentException("minSize: " + minSize);
+		}
+		if (maxSize < minSize || Integer.bitCount(maxSize) != 1) {
+			throw new IllegalArgumentException("maxSize: " + maxSize);
+		}
+		if (chunkSize < maxSize) {
+			throw new IllegalArgumentException("chunkSize: " + chunkSize);
+		}
+
+		this.minShift = Integer.numberOfTrailingZeros(minSize);
+		this.maxSize = maxSize;
+		this.chunkSize = chunkSize;
+		this.threadCacheSize = (threadCacheSize > 0) ? threadCacheSize : 0;
+
+		final int classCount = Integer.numberOfTrailingZeros(maxSize) - this.minShift + 1;
+
+		this.arenas = new Arena[arenaCount];
+		for (int i = 0; i < arenaCount; ++i) {
+			this.arenas[i] = new Arena(this, classCount);
+		}
+		this.nextArena = new AtomicInteger(0);
+
+		this.carvedBuffers = new ConcurrentHashMap<BufferKey, CarvedBuffer>();
+
+		this.threadCache = new ThreadLocal<ThreadCache>() {
+			@Override
+			protected final ThreadCache initialValue() {
+				return new ThreadCache(AIOPooledBufferAllocator.this, classCount);
+			}
+		};
+
+		this.allocatedCount = new AtomicLong(0);
+		this.releasedCount = new AtomicLong(0);
+		this.unpooledCount = new AtomicLong(0);
+		this.rejectedCount = new AtomicLong(0);
+	}
+
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.entry.AIOBufferAllocator#aioAllocate(ByteBuffer oldBuffer, int size)
+	 */
+	public ByteBuffer aioAllocate(final ByteBuffer oldBuffer, final int size) {
+		final ByteBuffer buffer = allocate(size);
+
+		if (oldBuffer != null) {
+			try {
+				aioRelease(oldBuffer);
+			} catch (IllegalStateException ex) {
+				aioRelease(buffer);
+				throw ex;
+			}
+		}
+
+		return buffer;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.entry.AIOBufferAllocator.Releasable#aioRelease(ByteBuffer buffer)
+	 */
+	public void aioRelease(final ByteBuffer buffer) {
+		final CarvedBuffer carved = this.carvedBuffers.get(new BufferKey(buffer));
+		if (carved == null) {
+			this.rejectedCount.incrementAndGet();
+			return;
+		}
+
+		if (!carved.lent.compareAndSet(true, false)) {
+			throw new IllegalStateException("Buffer released twice.");
+		}
+		this.releasedCount.incrementAndGet();
+
+		this.threadCache.get().push(sizeClassOf(buffer), carved);
+	}
+
+	public final ByteBuffer allocate(final int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("size: " + size);
+		}
+
+		if (size > this.maxSize) {
+			this.unpooledCount.incrementAndGet();
+			return ByteBuffer.allocateDirect(size);
+		}
+
+		this.allocatedCount.incrementAndGet();
+
+		final int sizeClass = sizeClassFor(size);
+
+		final ThreadCache cache = this.threadCache.get();
+
+		CarvedBuffer carved = cache.pop(sizeClass);
+		if (carved == null) {
+			carved = cache.arena.allocate(sizeClass);
+		}
+		carved.lent.set(true);
+
+		final ByteBuffer buffer = carved.buffer;
+		buffer.clear();
+
+		return buffer;
+	}
+
+	/*
+	 * Statistics methods
+	 */
+
+	public final int getArenaCount() {
+		return this.arenas.length;
+	}
+
+	public final int getChunkCount() {
+		int count = 0;
+		for (int i = 0; i < this.arenas.length; ++i) {
+			count += this.arenas[i].chunkCount.get();
+		}
+		return count;
+	}
+
+	public final long getArenaCapacity() {
+		return (long)getChunkCount() * this.chunkSize;
+	}
+
+	public final long getCarvedBytes() {
+		long bytes = 0;
+		for (int i = 0; i < this.arenas.length; ++i) {
+			bytes += this.arenas[i].carvedBytes.get();
+		}
+		return bytes;
+	}
+
+	public final long getSharedFreeBytes() {
+		long bytes = 0;
+		for (int i = 0; i < this.arenas.length; ++i) {
+			bytes += this.arenas[i].freeBytes.get();
+		}
+		return bytes;
+	}
+
+	public final long getAllocatedCount() {
+		return this.allocatedCount.get();
+	}
+
+	public final long getReleasedCount() {
+		return this.releasedCount.get();
+	}
+
+	public final long getUnpooledCount() {
+		return this.unpooledCount.get();
+	}
+
+	public final long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("PooledBufferAllocator [");
+		builder.append("arenas: ").append(getArenaCount());
+		builder.append(", chunks: ").append(getChunkCount());
+		builder.append(", carved: ").append(getCarvedBytes());
+		builder.append(", sharedFree: ").append(getSharedFreeBytes());
+		builder.append(", allocated: ").append(getAllocatedCount());
+		builder.append(", released: ").append(getReleasedCount());
+		builder.append(", unpooled: ").append(getUnpooledCount());
+		builder.append(", rejected: ").append(getRejectedCount());
+		builder.append("]");
+
+		return builder.toString();
+	}
+
+
+	private final int sizeClassFor(final int size) {
+		if (size <= (1 << this.minShift)) {
+			return 0;
+		}
+		return (32 - Integer.numberOfLeadingZeros(size - 1)) - this.minShift;
+	}
+
+	private final int sizeClassOf(final ByteBuffer buffer) {
+		return Integer.numberOfTrailingZeros(buffer.capacity()) - this.minShift;
+	}
+
+	private final Arena nextArena() {
+		final int index = this.nextArena.getAndIncrement() & Integer.MAX_VALUE;
+		return this.arenas[index % this.arenas.length];
+	}
+
+
+	private static final class Arena {
+
+		private final AIOPooledBufferAllocator allocator;
+
+		private final FreeList[] freeBuffers;
+
+		private ByteBuffer chunk;
+
+		private final AtomicInteger chunkCount;
+		private final AtomicLong carvedBytes;
+		private final AtomicLong freeBytes;
+
+
+		Arena(final AIOPooledBufferAllocator allocator, final int classCount) {
+			this.allocator = allocator;
+
+			this.freeBuffers = new FreeList[classCount];
+			for (int i = 0; i < classCount; ++i) {
+				this.freeBuffers[i] = new FreeList();
+			}
+
+			this.chunkCount = new AtomicInteger(0);
+			this.carvedBytes = new AtomicLong(0);
+			this.freeBytes = new AtomicLong(0);
+		}
+
+
+		final CarvedBuffer allocate(final int sizeClass) {
+			final CarvedBuffer carved = this.freeBuffers[sizeClass].poll();
+			if (carved != null) {
+				this.freeBytes.addAndGet(-carved.buffer.capacity());
+				return carved;
+			}
+			return carve(1 << (sizeClass + this.allocator.minShift));
+		}
+
+		final void release(final int sizeClass, final CarvedBuffer carved) {
+			this.freeBytes.addAndGet(carved.buffer.capacity());
+			this.freeBuffers[sizeClass].add(carved);
+		}
+
+		private final synchronized CarvedBuffer carve(final int size) {
+			ByteBuffer chunk = this.chunk;
+			if (chunk == null || chunk.remaining() < size) {
+				chunk = ByteBuffer.allocateDirect(this.allocator.chunkSize);
+				this.chunk = chunk;
+				this.chunkCount.incrementAndGet();
+			}
+
+			final int position = chunk.position();
+			chunk.limit(position + size);
+
+			final ByteBuffer buffer = chunk.slice();
+
+			chunk.limit(chunk.capacity());
+			chunk.position(position + size);
+
+			this.carvedBytes.addAndGet(size);
+
+			final CarvedBuffer carved = new CarvedBuffer(buffer);
+			this.allocator.carvedBuffers.put(carved, carved);
+
+			return carved;
+		}
+
+	}
+
+	private static final class FreeList extends ConcurrentLinkedQueue<CarvedBuffer> {
+
+		private static final long serialVersionUID = -2817398015561453027L;
+
+	}
+
+	/**
+	 * Looks up a buffer by its identity, the equality of ByteBuffer is by its content.
+	 */
+	private static class BufferKey {
+
+		final ByteBuffer buffer;
+
+
+		BufferKey(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+
+		@Override
+		public final int hashCode() {
+			return System.identityHashCode(this.buffer);
+		}
+
+		@Override
+		public final boolean equals(final Object obj) {
+			return (obj instanceof BufferKey) && ((BufferKey)obj).buffer == this.buffer;
+		}
+
+	}
+
+	/**
+	 * A buffer carved by the allocator, registered once when carved, whether it is
+	 * lent out travels with it through the caches and the free lists.
+	 */
+	private static final class CarvedBuffer extends BufferKey {
+
+		final AtomicBoolean lent;
+
+
+		CarvedBuffer(final ByteBuffer buffer) {
+			super(buffer);
+			this.lent = new AtomicBoolean(false);
+		}
+
+	}
+
+	private static final class ThreadCache {
+
+		private final Arena arena;
+
+		private final CarvedBuffer[][] stacks;
+		private final int[] sizes;
+
+
+		ThreadCache(final AIOPooledBufferAllocator allocator, final int classCount) {
+			this.arena = allocator.nextArena();
+
+			this.stacks = new CarvedBuffer[classCount][allocator.threadCacheSize];
+			this.sizes = new int[classCount];
+		}
+
+
+		final CarvedBuffer pop(final int sizeClass) {
+			final int size = this.sizes[sizeClass];
+			if (size > 0) {
+				final CarvedBuffer[] stack = this.stacks[sizeClass];
+
+				final CarvedBuffer carved = stack[size - 1];
+				stack[size - 1] = null;
+				this.sizes[sizeClass] = size - 1;
+
+				return carved;
+			}
+			return null;
+		}
+
+		final void push(final int sizeClass, final CarvedBuffer carved) {
+			final CarvedBuffer[] stack = this.stacks[sizeClass];
+			final int size = this.sizes[sizeClass];
+
+			if (size < stack.length) {
+				stack[size] = carved;
+				this.sizes[sizeClass] = size + 1;
+			} else if (size > 0) {
+				// Keeps the last released buffer on this thread, spills the one below it.
+				this.arena.release(sizeClass, stack[size - 1]);
+				stack[size - 1] = carved;
+			} else {
+				this.arena.release(sizeClass, carved);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,515 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOSegmentedActEntry;
+import com.chinmobi.aio.act.AIOWritableActEntry;
+
+/**
+ * A chain of fixed-size buffer segments, which grows by appending segments
+ * instead of copying the contents into a bigger buffer.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOSegmentedBufferEntry {
+
+	public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024;
+
+	protected transient AIOBufferAllocator allocator;
+
+	private final int segmentSize;
+
+	private ByteBuffer[] segments;
+	private int[] ends;
+	private boolean[] owned;
+	private int segmentCount;
+
+	private int readSegment;
+	private int readOffset;
+
+	private long readableBytes;
+
+	private int windowOffset;
+	private int windowLength;
+
+	private final Input input;
+	private final Output output;
+
+
+	public AIOSegmentedBufferEntry() {
+		this(null, DEFAULT_SEGMENT_SIZE);
+	}
+
+	public AIOSegmentedBufferEntry(final int segmentSize) {
+		this(null, segmentSize);
+	}
+
+	public AIOSegmentedBufferEntry(final AIOBufferAllocator allocator, final int segmentSize) {
+		super();
+
+		if (segmentSize <= 0) {
+			throw new IllegalArgumentException("segmentSize: " + segmentSize);
+		}
+
+		this.allocator = allocator;
+		this.segmentSize = segmentSize;
+
+		this.segments = new ByteBuffer[4];
+		this.ends = new int[4];
+		this.owned = new boolean[4];
+
+		this.input = new Input(this);
+		this.output = new Output(this);
+	}
+
+
+	public final void setAllocator(final AIOBufferAllocator allocator) {
+		this.allocator = allocator;
+	}
+
+	public final int segmentSize() {
+		return this.segmentSize;
+	}
+
+	public final int segmentCount() {
+		return this.segmentCount - this.readSegment;
+	}
+
+	public final long readableBytes() {
+		return this.readableBytes;
+	}
+
+	public final int writableBytes() {
+		if (this.segmentCount > 0) {
+			final int last = this.segmentCount - 1;
+			if (this.owned[last]) {
+				return this.segments[last].capacity() - this.ends[last];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Appends the remaining contents of the buffer as a new segment, without copy.
+	 * The buffer is never written nor released by this entry.
+	 */
+	public AIOSegmentedBufferEntry append(final ByteBuffer buffer) {
+		if (buffer.hasRemaining()) {
+			final ByteBuffer segment = buffer.slice();
+			addSegment(segment, segment.capacity(), false);
+			this.readableBytes += segment.capacity();
+		}
+		return this;
+	}
+
+	/**
+	 * Copies the remaining contents of the source into the segments,
+	 * new segments are appended when the last one is full.
+	 */
+	public AIOSegmentedBufferEntry put(final ByteBuffer src) {
+		while (src.hasRemaining()) {
+			final int last = ensureWritableSegment();
+
+			final ByteBuffer segment = this.segments[last];
+			segment.limit(segment.capacity()).position(this.ends[last]);
+
+			final int length = Math.min(segment.remaining(), src.remaining());
+
+			final int limit = src.limit();
+			src.limit(src.position() + length);
+			try {
+				segment.put(src);
+			} finally {
+				src.limit(limit);
+			}
+
+			this.ends[last] += length;
+			this.readableBytes += length;
+		}
+		return this;
+	}
+
+	/**
+	 * Consumes bytes from the front, the drained segments are released.
+	 *
+	 * @return the number of bytes skipped.
+	 */
+	public long skip(long length) {
+		if (length > this.readableBytes) {
+			length = this.readableBytes;
+		}
+
+		long remaining = length;
+		while (remaining > 0) {
+			final int available = this.ends[this.readSegment] - this.readOffset;
+			if (remaining < available) {
+				this.readOffset += (int)remaining;
+				break;
+			}
+
+			remaining -= available;
+			this.readOffset += available;
+			if (this.readSegment < this.segmentCount - 1) {
+				++this.readSegment;
+				this.readOffset = 0;
+			}
+		}
+
+		this.readableBytes -= length;
+		discardReadSegments();
+
+		return length;
+	}
+
+	/**
+	 * Slices the readable contents without copy, the returned buffers share the contents
+	 * of the segments and are independent of their positions and limits.
+	 *
+	 * @param offset relative to the first readable byte.
+	 */
+	public ByteBuffer[] slice(long offset, long length) {
+		if (offset < 0 || length < 0 || offset + length > this.readableBytes) {
+			throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length +
+					", readableBytes: " + this.readableBytes);
+		}
+
+		ByteBuffer[] slices = new ByteBuffer[segmentCount()];
+		int n = 0;
+
+		int start = this.readOffset;
+		for (int i = this.readSegment; i < this.segmentCount && length > 0; ++i) {
+			final int available = this.ends[i] - start;
+
+			if (offset >= available) {
+				offset -= available;
+			} else {
+				final int from = start + (int)offset;
+				final int count = (int)Math.min(length, available - offset);
+
+				final ByteBuffer slice = this.segments[i].duplicate();
+				slice.limit(from + count).position(from);
+				slices[n++] = slice.slice();
+
+				offset = 0;
+				length -= count;
+			}
+
+			start = 0;
+		}
+
+		if (n < slices.length) {
+			final ByteBuffer[] result = new ByteBuffer[n];
+			System.arraycopy(slices, 0, result, 0, n);
+			slices = result;
+		}
+		return slices;
+	}
+
+	public AIOWritableActEntry toOutput() {
+		ensureWritableSegment();
+		prepareOutput(writableBytes());
+		return this.output;
+	}
+
+	/**
+	 * Ensures the count of writable bytes by appending segments.
+	 */
+	public AIOWritableActEntry toOutput(final int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("count: " + count);
+		}
+
+		int writable = writableBytes();
+		while (writable < count) {
+			addSegment(allocateSegment(), 0, true);
+			writable += this.segments[this.segmentCount - 1].capacity();
+		}
+
+		prepareOutput(count);
+		return this.output;
+	}
+
+	public AIOReadableActEntry toInput() {
+		int start = this.readOffset;
+		for (int i = this.readSegment; i < this.segmentCount; ++i) {
+			final ByteBuffer segment = this.segments[i];
+			segment.limit(this.ends[i]).position(start);
+			start = 0;
+		}
+
+		this.windowOffset = this.readSegment;
+		this.windowLength = this.segmentCount - this.readSegment;
+
+		return this.input;
+	}
+
+	public AIOSegmentedBufferEntry clear() {
+		releaseSegments(0, this.segmentCount);
+
+		this.segmentCount = 0;
+		this.readSegment = 0;
+		this.readOffset = 0;
+		this.readableBytes = 0;
+		this.windowOffset = 0;
+		this.windowLength = 0;
+
+		return this;
+	}
+
+	public void release() {
+		clear();
+	}
+
+
+	protected void onCompleted(final boolean asInput, final long position, final long count) {
+	}
+
+
+	private final void prepareOutput(int count) {
+		if (this.segmentCount == 0) {
+			this.windowOffset = 0;
+			this.windowLength = 0;
+			return;
+		}
+
+		int first = this.segmentCount - 1;
+		while (first > 0 && this.owned[first - 1] &&
+				this.ends[first - 1] < this.segments[first - 1].capacity() &&
+				first - 1 >= this.readSegment) {
+			--first;
+		}
+		if (!this.owned[first] || this.ends[first] >= this.segments[first].capacity()) {
+			++first;
+		}
+
+		for (int i = first; i < this.segmentCount; ++i) {
+			final ByteBuffer segment = this.segments[i];
+			final int capacity = segment.capacity();
+
+			segment.limit(capacity).position(this.ends[i]);
+
+			final int room = capacity - this.ends[i];
+			if (count < room) {
+				segment.limit(this.ends[i] + count);
+				count = 0;
+			} else {
+				count -= room;
+			}
+		}
+
+		this.windowOffset = first;
+		this.windowLength = this.segmentCount - first;
+	}
+
+	private final void outputCompleted(long count) {
+		this.readableBytes += count;
+
+		final int end = this.windowOffset + this.windowLength;
+		for (int i = this.windowOffset; i < end && count > 0; ++i) {
+			final int room = this.segments[i].capacity() - this.ends[i];
+			final int n = (int)Math.min(count, room);
+
+			this.ends[i] += n;
+			count -= n;
+		}
+	}
+
+	private final void inputCompleted(final long count) {
+		skip(count);
+	}
+
+	private final int ensureWritableSegment() {
+		if (writableBytes() <= 0) {
+			addSegment(allocateSegment(), 0, true);
+		}
+		return this.segmentCount - 1;
+	}
+
+	private final ByteBuffer allocateSegment() {
+		final ByteBuffer segment = AIOBufferEntryBase.allocate(this.allocator, null, this.segmentSize);
+		segment.clear();
+		return segment;
+	}
+
+	private final void addSegment(final ByteBuffer segment, final int end, final boolean owned) {
+		if (this.segmentCount >= this.segments.length) {
+			discardReadSegments();
+		}
+
+		if (this.segmentCount >= this.segments.length) {
+			final int length = this.segments.length << 1;
+
+			final ByteBuffer[] segments = new ByteBuffer[length];
+			System.arraycopy(this.segments, 0, segments, 0, this.segmentCount);
+			this.segments = segments;
+
+			final int[] ends = new int[length];
+			System.arraycopy(this.ends, 0, ends, 0, this.segmentCount);
+			this.ends = ends;
+
+			final boolean[] owns = new boolean[length];
+			System.arraycopy(this.owned, 0, owns, 0, this.segmentCount);
+			this.owned = owns;
+		}
+
+		this.segments[this.segmentCount] = segment;
+		this.ends[this.segmentCount] = end;
+		this.owned[this.segmentCount] = owned;
+		++this.segmentCount;
+	}
+
+	private final void discardReadSegments() {
+		int drained = this.readSegment;
+		if (drained < this.segmentCount && this.readOffset >= this.ends[drained]) {
+			if (drained < this.segmentCount - 1 || !this.owned[drained]) {
+				++drained;
+			} else {
+				// Reuses the drained tail for the next writes.
+				this.ends[drained] = 0;
+			}
+			this.readOffset = 0;
+		}
+
+		if (drained > 0) {
+			releaseSegments(0, drained);
+
+			final int remaining = this.segmentCount - drained;
+			System.arraycopy(this.segments, drained, this.segments, 0, remaining);
+			System.arraycopy(this.ends, drained, this.ends, 0, remaining);
+			System.arraycopy(this.owned, drained, this.owned, 0, remaining);
+
+			for (int i = remaining; i < this.segmentCount; ++i) {
+				this.segments[i] = null;
+			}
+
+			this.segmentCount = remaining;
+			this.readSegment = 0;
+
+			this.windowOffset = 0;
+			this.windowLength = 0;
+		}
+	}
+
+	private final void releaseSegments(final int from, final int to) {
+		final AIOBufferAllocator allocator = this.allocator;
+
+		for (int i = from; i < to; ++i) {
+			final ByteBuffer segment = this.segments[i];
+			this.segments[i] = null;
+
+			if (this.owned[i] && allocator instanceof AIOBufferAllocator.Releasable) {
+				((AIOBufferAllocator.Releasable)allocator).aioRelease(segment);
+			}
+		}
+	}
+
+
+	private static abstract class IOBase implements AIOSegmentedActEntry {
+
+		protected final AIOSegmentedBufferEntry entry;
+
+
+		protected IOBase(final AIOSegmentedBufferEntry entry) {
+			this.entry = entry;
+		}
+
+
+		public final ByteBuffer byteBuffer() {
+			return null;
+		}
+
+		public final FileChannel fileChannel() {
+			return null;
+		}
+
+		public final ByteBuffer[] byteBuffers() {
+			return this.entry.segments;
+		}
+
+		public final int segmentOffset() {
+			return this.entry.windowOffset;
+		}
+
+		public final int segmentLength() {
+			return this.entry.windowLength;
+		}
+
+		public final long position() {
+			return 0;
+		}
+
+		public final long count() {
+			final ByteBuffer[] segments = this.entry.segments;
+			final int end = this.entry.windowOffset + this.entry.windowLength;
+
+			long count = 0;
+			for (int i = this.entry.windowOffset; i < end; ++i) {
+				count += segments[i].remaining();
+			}
+			return count;
+		}
+
+		public AIOSegmentedBufferEntry entry() {
+			return this.entry;
+		}
+
+	}
+
+	public static class Input extends IOBase implements AIOReadableActEntry {
+
+
+		protected Input(final AIOSegmentedBufferEntry entry) {
+			super(entry);
+		}
+
+
+		public final void completed(final long position, final long count) {
+			this.entry.inputCompleted(count);
+			this.entry.onCompleted(true, position, count);
+		}
+
+	}
+
+	public static class Output extends IOBase implements AIOWritableActEntry {
+
+
+		protected Output(final AIOSegmentedBufferEntry entry) {
+			super(entry);
+		}
+
+
+		public final void completed(final long position, final long count) {
+			this.entry.outputCompleted(count);
+			this.entry.onCompleted(false, position, count);
+		}
+
+	}
+
+}
@@ -0,0 +1,309 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.codec;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.chinmobi.aio.AIONotActiveException;
+import com.chinmobi.aio.util.AIOScheduledFuture;
+import com.chinmobi.aio.util.AIOTimer;
+import com.chinmobi.aio.util.AIOTimerCallable;
+
+/**
+ * A virtual session of one remote peer of a {@link AIODatagramPeers}.
+ * <p>
+ * All the callbacks of the handler are called on the timer of the peer, that is
+ * the thread of one reactor, in the order of the datagrams received.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class AIODatagramPeer implements AIOTimerCallable {
+
+	public interface Handler {
+		public void peerOpened(AIODatagramPeer peer);
+		/**
+		 * The datagram buffer is reused once this returns, it must be copied to be kept.
+		 */
+		public void datagramReceived(AIODatagramPeer peer, ByteBuffer datagram);
+		public void peerTimeout(AIODatagramPeer peer);
+		public void peerClosed(AIODatagramPeer peer);
+	}
+
+	public interface HandlerFactory {
+		public Handler createPeerHandler(AIODatagramPeer peer);
+	}
+
+
+	private static final Object DRAIN = new Object();
+	private static final Object IDLE = new Object();
+	private static final Object CLOSE = new Object();
+
+	private final AIODatagramPeers peers;
+
+	private final SocketAddress remote;
+
+	private final AIOTimer timer;
+
+	private Handler handler;
+
+	private final ConcurrentLinkedQueue<ByteBuffer> datagrams;
+	private final AtomicInteger backlog;
+	private final AtomicBoolean draining;
+
+	private final AtomicBoolean open;
+	private boolean opened;
+
+	private volatile long lastActiveTime;
+	private volatile AIOScheduledFuture idleFuture;
+
+	private volatile Object attachment;
+
+
+	AIODatagramPeer(final AIODatagramPeers peers, final SocketAddress remote, final AIOTimer timer) {
+		this.peers = peers;
+		this.remote = remote;
+		this.timer = timer;
+
+		this.datagrams = new ConcurrentLinkedQueue<ByteBuffer>();
+		this.backlog = new AtomicInteger(0);
+		this.draining = new AtomicBoolean(false);
+
+		this.open = new AtomicBoolean(true);
+
+		this.lastActiveTime = System.currentTimeMillis();
+	}
+
+
+	final void setHandler(final Handler handler) {
+		this.handler = handler;
+	}
+
+	public final SocketAddress remoteAddress() {
+		return this.remote;
+	}
+
+	public final AIODatagramPeers peers() {
+		return this.peers;
+	}
+
+	public final boolean isOpen() {
+		return this.open.get();
+	}
+
+	public final Object attachment() {
+		return this.attachment;
+	}
+
+	public final void attach(final Object attachment) {
+		this.attachment = attachment;
+	}
+
+	/**
+	 * Sends a datagram to this peer through the shared channel, it is queued
+	 * until the channel is writable when it can not be sent at once.
+	 *
+	 * @return true if the datagram is sent at once.
+	 * @throws IOException
+	 */
+	public final boolean send(final ByteBuffer datagram) throws IOException {
+		if (!isOpen()) {
+			throw new IOException("The peer is closed.");
+		}
+
+		this.lastActiveTime = System.currentTimeMillis();
+
+		return this.peers.send(this.remote, datagram);
+	}
+
+	public final void close() {
+		if (!this.open.compareAndSet(true, false)) {
+			return;
+		}
+
+		this.peers.removePeer(this);
+
+		final AIOScheduledFuture future = this.idleFuture;
+		if (future != null) {
+			this.idleFuture = null;
+			future.cancel();
+		}
+
+		try {
+			this.timer.schedule(this, 0, TimeUnit.MILLISECONDS, CLOSE);
+		} catch (AIONotActiveException ex) {
+			closed();
+		}
+	}
+
+
+	/**
+	 *
+	 * @return false if the backlog is full, the datagram is not taken.
+	 */
+	final boolean received(final ByteBuffer datagram) {
+		this.lastActiveTime = System.currentTimeMillis();
+
+		if (this.backlog.incrementAndGet() > this.peers.maxBacklog()) {
+			this.backlog.decrementAndGet();
+			return false;
+		}
+
+		this.datagrams.offer(datagram);
+
+		if (this.draining.compareAndSet(false, true)) {
+			try {
+				this.timer.schedule(this, 0, TimeUnit.MILLISECONDS, DRAIN);
+			} catch (AIONotActiveException ex) {
+				this.draining.set(false);
+				close();
+			}
+		}
+
+		return true;
+	}
+
+	final void scheduleIdle(final long delay) {
+		if (delay > 0 && isOpen()) {
+			try {
+				this.idleFuture = this.timer.schedule(this, delay, TimeUnit.MILLISECONDS, IDLE);
+			} catch (AIONotActiveException ex) {
+				close();
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.util.AIOTimerCallable#aioTimerCall(AIOTimer timer, Object attachment, boolean isCancelled)
+	 */
+	public final void aioTimerCall(final AIOTimer timer, final Object attachment, final boolean isCancelled) {
+		if (attachment == DRAIN) {
+			if (isCancelled) {
+				this.draining.set(false);
+				close();
+				return;
+			}
+			drain();
+		} else
+		if (attachment == IDLE) {
+			if (!isCancelled) {
+				checkIdle();
+			}
+		} else
+		if (attachment == CLOSE) {
+			closed();
+		}
+	}
+
+	private final void drain() {
+		for (;;) {
+			ByteBuffer datagram;
+			while ((datagram = this.datagrams.poll()) != null) {
+				if (isOpen()) {
+					deliver(datagram);
+				}
+				this.backlog.decrementAndGet();
+				this.peers.releaseBuffer(datagram);
+			}
+
+			this.draining.set(false);
+
+			if (this.datagrams.isEmpty() || !this.draining.compareAndSet(false, true)) {
+				break;
+			}
+		}
+	}
+
+	private final void deliver(final ByteBuffer datagram) {
+		final Handler handler = this.handler;
+		try {
+			if (!this.opened) {
+				this.opened = true;
+				handler.peerOpened(this);
+			}
+
+			handler.datagramReceived(this, datagram);
+		} catch (RuntimeException ex) {
+			close();
+		}
+	}
+
+	private final void checkIdle() {
+		this.idleFuture = null;
+
+		if (!isOpen()) {
+			return;
+		}
+
+		final long timeout = this.peers.idleTimeout();
+		final long elapsed = System.currentTimeMillis() - this.lastActiveTime;
+
+		if (elapsed < timeout) {
+			scheduleIdle(timeout - elapsed);
+		} else {
+			try {
+				this.handler.peerTimeout(this);
+			} catch (RuntimeException ignore) {
+			}
+			close();
+		}
+	}
+
+	private final void closed() {
+		ByteBuffer datagram;
+		while ((datagram = this.datagrams.poll()) != null) {
+			this.backlog.decrementAndGet();
+			this.peers.releaseBuffer(datagram);
+		}
+
+		final Handler handler = this.handler;
+		if (handler != null) {
+			this.handler = null;
+			try {
+				handler.peerClosed(this);
+			} catch (RuntimeException ignore) {
+			}
+		}
+	}
+
+	@Override
+	public final String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("DatagramPeer [");
+		builder.append("remote: ").append(this.remote);
+		builder.append(", open: ").append(isOpen());
+		builder.append("]");
+
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,362 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.codec;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.chinmobi.aio.AIOClosedSessionException;
+import com.chinmobi.aio.AIONotActiveException;
+import com.chinmobi.aio.AIOReactor;
+import com.chinmobi.aio.AIOServiceHandler;
+import com.chinmobi.aio.AIOSession;
+import com.chinmobi.aio.util.AIOTimer;
+
+/**
+ * Demultiplexes the datagrams of a datagram acceptor session by their remote address
+ * to per peer virtual sessions, each with its own handler and idle timeout.
+ * <p>
+ * Used as the service handler factory of the datagram acceptor. Each peer takes
+ * the timer of the given reactor when it is created, a reactor group spreads the
+ * peers over its reactors. The datagrams sent by the peers share the channel of
+ * the acceptor session.
+ * <p>
+ * The datagrams not yet handled by a peer are bounded by the backlog, the datagrams
+ * received beyond it are dropped and counted. The receiving buffers are direct up to
+ * the size of the free list, the heap buffers are used beyond it.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIODatagramPeers implements AIOServiceHandler, AIOServiceHandler.Factory {
+
+	private static final int MAX_RECEIVES_PER_EVENT = 64;
+
+	private static final int MAX_FREE_BUFFERS = 64;
+
+	public static final int DEFAULT_MAX_BACKLOG = 256;
+
+	private final AIOReactor reactor;
+
+	private final AIODatagramPeer.HandlerFactory handlerFactory;
+
+	private final int maxDatagramSize;
+
+	private final long idleTimeout;
+
+	private final int maxBacklog;
+
+	private final ConcurrentHashMap<SocketAddress, AIODatagramPeer> peers;
+
+	private final ConcurrentLinkedQueue<Outgoing> outgoings;
+
+	private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers;
+	private final AtomicInteger freeCount;
+	private final AtomicInteger directCount;
+
+	private final AtomicLong droppedCount;
+
+	private volatile AIOSession session;
+
+
+	public AIODatagramPeers(final AIOReactor reactor, final AIODatagramPeer.HandlerFactory handlerFactory,
+			final int maxDatagramSize, final long idleTimeout, final TimeUnit unit) {
+		this(reactor, handlerFactory, maxDatagramSize, idleTimeout, unit, DEFAULT_MAX_BACKLOG);
+	}
+
+	public AIODatagramPeers(final AIOReactor reactor, final AIODatagramPeer.HandlerFactory handlerFactory,
+			final int maxDatagramSize, final long idleTimeout, final TimeUnit unit, final int maxBacklog) {
+		if (reactor == null) {
+			throw new IllegalArgumentException("Null reactor.");
+		}
+		if (handlerFactory == null) {
+			throw new IllegalArgumentException("Null handler factory.");
+		}
+		if (maxDatagramSize <= 0) {
+			throw new IllegalArgumentException("Illegal datagram size: " + maxDatagramSize);
+		}
+		if (maxBacklog <= 0) {
+			throw new IllegalArgumentException("Illegal backlog: " + maxBacklog);
+		}
+
+		this.reactor = reactor;
+		this.handlerFactory = handlerFactory;
+
+		this.maxDatagramSize = maxDatagramSize;
+
+		this.idleTimeout = (unit != null && idleTimeout > 0) ? unit.toMillis(idleTimeout) : 0;
+
+		this.maxBacklog = maxBacklog;
+
+		this.peers = new ConcurrentHashMap<SocketAddress, AIODatagramPeer>();
+
+		this.outgoings = new ConcurrentLinkedQueue<Outgoing>();
+
+		this.freeBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+		this.freeCount = new AtomicInteger(0);
+		this.directCount = new AtomicInteger(0);
+
+		this.droppedCount = new AtomicLong(0);
+	}
+
+
+	final long idleTimeout() {
+		return this.idleTimeout;
+	}
+
+	final int maxBacklog() {
+		return this.maxBacklog;
+	}
+
+	/**
+	 *
+	 * @return the count of the datagrams dropped as the backlog of their peer is full.
+	 */
+	public final long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	public final AIOSession session() {
+		return this.session;
+	}
+
+	public final AIODatagramPeer getPeer(final SocketAddress remote) {
+		return this.peers.get(remote);
+	}
+
+	public final int peerCount() {
+		return this.peers.size();
+	}
+
+	public final Iterator<AIODatagramPeer> peers() {
+		return this.peers.values().iterator();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOServiceHandler.Factory#createAIOServiceHandler(AIOSession session)
+	 */
+	public final AIOServiceHandler createAIOServiceHandler(final AIOSession session) {
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOServiceHandler#handleAIOSessionOpened(AIOSession session)
+	 */
+	public void handleAIOSessionOpened(final AIOSession session) throws AIOClosedSessionException {
+		this.session = session;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOServiceHandler#handleAIOSessionInputReady(AIOSession session)
+	 */
+	public final boolean handleAIOSessionInputReady(final AIOSession session)
+			throws IOException, AIOClosedSessionException {
+		final DatagramChannel channel = session.datagramChannel();
+		if (channel == null) {
+			return false;
+		}
+
+		for (int i = 0; i < MAX_RECEIVES_PER_EVENT; ++i) {
+			// Received into a pooled buffer, which is handed to the peer as is.
+			final ByteBuffer datagram = allocateBuffer();
+
+			final SocketAddress remote;
+			try {
+				remote = channel.receive(datagram);
+			} catch (IOException ex) {
+				releaseBuffer(datagram);
+				throw ex;
+			}
+
+			if (remote == null) {
+				releaseBuffer(datagram);
+				break;
+			}
+
+			datagram.flip();
+
+			route(remote, datagram);
+		}
+
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOServiceHandler#handleAIOSessionOutputReady(AIOSession session)
+	 */
+	public final boolean handleAIOSessionOutputReady(final AIOSession session)
+			throws IOException, AIOClosedSessionException {
+		final DatagramChannel channel = session.datagramChannel();
+		if (channel == null) {
+			return false;
+		}
+
+		Outgoing outgoing;
+		while ((outgoing = this.outgoings.peek()) != null) {
+			if (channel.send(outgoing.datagram, outgoing.remote) <= 0) {
+				return true;
+			}
+			this.outgoings.poll();
+		}
+
+		session.clearOutputEvent();
+
+		if (!this.outgoings.isEmpty()) {
+			session.setOutputEvent();
+		}
+
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOServiceHandler#handleAIOSessionTimeout(AIOSession session)
+	 */
+	public void handleAIOSessionTimeout(final AIOSession session) throws AIOClosedSessionException {
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOServiceHandler#handleAIOSessionClosed(AIOSession session, Throwable cause)
+	 */
+	public void handleAIOSessionClosed(final AIOSession session, final Throwable cause) {
+		this.session = null;
+
+		this.outgoings.clear();
+
+		final Iterator<AIODatagramPeer> iter = this.peers.values().iterator();
+		while (iter.hasNext()) {
+			iter.next().close();
+		}
+	}
+
+
+	final boolean send(final SocketAddress remote, final ByteBuffer datagram) throws IOException {
+		final AIOSession session = this.session;
+		final DatagramChannel channel = (session != null) ? session.datagramChannel() : null;
+		if (channel == null) {
+			throw new IOException("The session is closed.");
+		}
+
+		if (this.outgoings.isEmpty() && channel.send(datagram, remote) > 0) {
+			return true;
+		}
+
+		// The datagram may be a received buffer, which is released once handled.
+		final ByteBuffer copy = ByteBuffer.allocate(datagram.remaining());
+		copy.put(datagram);
+		copy.flip();
+
+		this.outgoings.offer(new Outgoing(remote, copy));
+		session.setOutputEvent();
+
+		return false;
+	}
+
+	final void removePeer(final AIODatagramPeer peer) {
+		this.peers.remove(peer.remoteAddress(), peer);
+	}
+
+	final ByteBuffer allocateBuffer() {
+		final ByteBuffer buffer = this.freeBuffers.poll();
+		if (buffer != null) {
+			this.freeCount.decrementAndGet();
+			buffer.clear();
+			return buffer;
+		}
+		// The direct buffers are no more than the free list holds, the others are left to the GC.
+		if (this.directCount.incrementAndGet() <= MAX_FREE_BUFFERS) {
+			return ByteBuffer.allocateDirect(this.maxDatagramSize);
+		}
+		this.directCount.decrementAndGet();
+		return ByteBuffer.allocate(this.maxDatagramSize);
+	}
+
+	final void releaseBuffer(final ByteBuffer buffer) {
+		if (!buffer.isDirect()) {
+			return;
+		}
+		if (this.freeCount.incrementAndGet() <= MAX_FREE_BUFFERS) {
+			this.freeBuffers.offer(buffer);
+		} else {
+			this.freeCount.decrementAndGet();
+			this.directCount.decrementAndGet();
+		}
+	}
+
+	private final void route(final SocketAddress remote, final ByteBuffer datagram) {
+		AIODatagramPeer peer = this.peers.get(remote);
+		if (peer == null) {
+			final AIOTimer timer;
+			try {
+				timer = this.reactor.getTimer();
+			} catch (AIONotActiveException ex) {
+				// The reactor is shutting down, the datagram is dropped.
+				releaseBuffer(datagram);
+				return;
+			}
+
+			peer = new AIODatagramPeer(this, remote, timer);
+
+			final AIODatagramPeer.Handler handler = this.handlerFactory.createPeerHandler(peer);
+			if (handler == null) {
+				releaseBuffer(datagram);
+				return;
+			}
+			peer.setHandler(handler);
+
+			// Only the reactor thread of the acceptor session creates the peers.
+			this.peers.put(remote, peer);
+
+			peer.scheduleIdle(this.idleTimeout);
+		}
+
+		if (!peer.received(datagram)) {
+			this.droppedCount.incrementAndGet();
+			releaseBuffer(datagram);
+		}
+	}
+
+
+	private static final class Outgoing {
+
+		final SocketAddress remote;
+		final ByteBuffer datagram;
+
+
+		Outgoing(final SocketAddress remote, final ByteBuffer datagram) {
+			this.remote = remote;
+			this.datagram = datagram;
+		}
+
+	}
+
+}
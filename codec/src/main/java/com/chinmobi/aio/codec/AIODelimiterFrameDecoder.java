@@ -0,0 +1,104 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the frames ended with a delimiter, the delimiter is kept in the frame.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIODelimiterFrameDecoder extends AIOFrameDecoder {
+
+	private final byte[] delimiter;
+
+	private final int maxFrameLength;
+
+
+	public AIODelimiterFrameDecoder(final byte[] delimiter, final int maxFrameLength) {
+		super();
+
+		if (delimiter == null || delimiter.length == 0) {
+			throw new IllegalArgumentException("Empty delimiter.");
+		}
+
+		if (maxFrameLength < delimiter.length) {
+			throw new IllegalArgumentException("maxFrameLength: " + maxFrameLength);
+		}
+
+		this.delimiter = delimiter.clone();
+		this.maxFrameLength = maxFrameLength;
+	}
+
+
+	public final int delimiterLength() {
+		return this.delimiter.length;
+	}
+
+	@Override
+	protected final int decode(final ByteBuffer buffer, final int start, final int length, final int reads) {
+		final byte[] delimiter = this.delimiter;
+		final byte first = delimiter[0];
+
+		// Rescans the tail of the previous reads for a delimiter split across the reads.
+		int from = length - reads - (delimiter.length - 1);
+		if (from < 0) {
+			from = 0;
+		}
+
+		final int last = length - delimiter.length;
+
+		for (int i = from; i <= last; ++i) {
+			if (buffer.get(start + i) == first && matches(buffer, start + i)) {
+				final int frameLength = i + delimiter.length;
+				if (frameLength > this.maxFrameLength) {
+					break;
+				}
+				return frameLength;
+			}
+		}
+
+		if (length >= this.maxFrameLength) {
+			throw new AIOFrameCorruptedException("Frame length exceeds: " + this.maxFrameLength);
+		}
+
+		return 0;
+	}
+
+	private final boolean matches(final ByteBuffer buffer, final int index) {
+		final byte[] delimiter = this.delimiter;
+
+		for (int i = 1; i < delimiter.length; ++i) {
+			if (buffer.get(index + i) != delimiter[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+}
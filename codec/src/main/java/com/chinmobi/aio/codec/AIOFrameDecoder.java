@@ -0,0 +1,316 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.chinmobi.aio.AIOClosedSessionException;
+import com.chinmobi.aio.act.AIOActDirection;
+import com.chinmobi.aio.act.AIOActEntry;
+import com.chinmobi.aio.act.AIOInputActStrategy;
+import com.chinmobi.aio.act.AIOInputActor;
+import com.chinmobi.aio.act.AIOInputLegacy;
+
+/**
+ * The base of the strategies which read one frame per input act into a byte buffer entry.
+ * <p>
+ * The reads are limited to stop at the frame boundary once it is known, the bytes read
+ * beyond the boundary are pushed back to the input actor as a legacy and given back
+ * from the act, so the act result covers exactly one frame starting at the original
+ * position of the entry.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public abstract class AIOFrameDecoder implements AIOInputActStrategy {
+
+	private final Direction direction;
+
+	private AIOInputActor inputActor;
+	private int sessionId;
+
+	private long frameLength;
+
+	private Leftover freeLeftovers;
+
+
+	protected AIOFrameDecoder() {
+		this.direction = new Direction();
+		this.frameLength = -1;
+	}
+
+
+	/**
+	 * Prepares for a new input act on the session.
+	 *
+	 * @param inputActor
+	 * @param sessionId
+	 * @return this decoder.
+	 */
+	public final AIOFrameDecoder reset(final AIOInputActor inputActor, final int sessionId) {
+		this.inputActor = inputActor;
+		this.sessionId = sessionId;
+		this.frameLength = -1;
+
+		resetDecoding();
+
+		return this;
+	}
+
+	/**
+	 *
+	 * @return true if the last act read a whole frame.
+	 */
+	public final boolean isFrameCompleted() {
+		return (this.frameLength >= 0);
+	}
+
+	/**
+	 *
+	 * @return the length of the frame read by the last act, -1 if not completed.
+	 */
+	public final long frameLength() {
+		return this.frameLength;
+	}
+
+	/**
+	 *
+	 * @return the count to read before the frame is known, -1 for the whole entry.
+	 */
+	public int initialCount() {
+		return -1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOInputActStrategy#determineInputActReads(...)
+	 */
+	public final AIOActDirection determineInputActReads(final AIOActEntry entry,
+			final long origPosition, final long totalReadCount, final long readCount) {
+
+		final ByteBuffer buffer = entry.byteBuffer();
+		if (buffer == null) {
+			throw new IllegalArgumentException("Not a byte buffer entry.");
+		}
+
+		final int length = (int)totalReadCount;
+		final int start = buffer.position() - length;
+
+		final int decoded = decode(buffer, start, length, (int)readCount);
+
+		if (decoded > 0) {
+			this.frameLength = decoded;
+
+			final int leftover = length - decoded;
+			if (leftover > 0) {
+				pushLeftover(buffer, start + decoded, leftover);
+			}
+
+			return this.direction.set(AIOActDirection.Status.TERMINATE, -leftover);
+		} else
+		if (decoded < 0) {
+			if (buffer.position() - decoded > buffer.capacity()) {
+				throw new AIOFrameCorruptedException("Frame exceeds the buffer capacity: " +
+						(length - decoded));
+			}
+
+			return this.direction.set(AIOActDirection.Status.CONTINUE, -decoded);
+		}
+
+		return null;
+	}
+
+
+	protected void resetDecoding() {
+	}
+
+	/**
+	 *
+	 * @param buffer
+	 * @param start the frame start index in the buffer.
+	 * @param length the bytes read from the frame start.
+	 * @param reads the bytes of the last read.
+	 * @return the frame length if a whole frame was read;
+	 *		0 if the frame length is unknown yet;
+	 *		otherwise the negative count of bytes still needed.
+	 */
+	protected abstract int decode(ByteBuffer buffer, int start, int length, int reads);
+
+
+	private final void pushLeftover(final ByteBuffer buffer, final int start, final int length) {
+		final AIOInputActor inputActor = this.inputActor;
+		if (inputActor == null) {
+			throw new IllegalStateException("Not reset with the input actor.");
+		}
+
+		final Leftover leftover = allocateLeftover(length);
+
+		final ByteBuffer dst = leftover.buffer;
+		dst.clear();
+		if (buffer.hasArray()) {
+			dst.put(buffer.array(), buffer.arrayOffset() + start, length);
+		} else {
+			for (int i = 0; i < length; ++i) {
+				dst.put(buffer.get(start + i));
+			}
+		}
+		dst.flip();
+
+		try {
+			inputActor.pushLegacy(this.sessionId, leftover, false);
+		} catch (AIOClosedSessionException ex) {
+			leftover.release();
+		}
+	}
+
+	private final Leftover allocateLeftover(final int length) {
+		synchronized (this.direction) {
+			Leftover prev = null;
+			Leftover leftover = this.freeLeftovers;
+
+			while (leftover != null) {
+				if (leftover.buffer.capacity() >= length) {
+					if (prev != null) {
+						prev.next = leftover.next;
+					} else {
+						this.freeLeftovers = leftover.next;
+					}
+					leftover.next = null;
+					return leftover;
+				}
+				prev = leftover;
+				leftover = leftover.next;
+			}
+		}
+
+		int capacity = 256;
+		while (capacity < length) {
+			capacity <<= 1;
+		}
+
+		return new Leftover(this, ByteBuffer.allocate(capacity));
+	}
+
+	private final void freeLeftover(final Leftover leftover) {
+		synchronized (this.direction) {
+			leftover.next = this.freeLeftovers;
+			this.freeLeftovers = leftover;
+		}
+	}
+
+
+	private static final class Direction implements AIOActDirection {
+
+		private Status status;
+		private long newActEntryCount;
+
+
+		Direction() {
+			this.status = Status.CONTINUE;
+		}
+
+
+		final Direction set(final Status status, final long newActEntryCount) {
+			this.status = status;
+			this.newActEntryCount = newActEntryCount;
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.chinmobi.aio.act.AIOActDirection#status()
+		 */
+		public final Status status() {
+			return this.status;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.chinmobi.aio.act.AIOActDirection#newActEntryCount()
+		 */
+		public final long newActEntryCount() {
+			return this.newActEntryCount;
+		}
+
+	}
+
+	private static final class Leftover implements AIOInputLegacy {
+
+		Leftover next;
+
+		private final AIOFrameDecoder decoder;
+		final ByteBuffer buffer;
+
+
+		Leftover(final AIOFrameDecoder decoder, final ByteBuffer buffer) {
+			this.decoder = decoder;
+			this.buffer = buffer;
+		}
+
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.chinmobi.aio.act.AIOInputLegacy#release()
+		 */
+		public final void release() {
+			this.decoder.freeLeftover(this);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.chinmobi.aio.act.AIOInputLegacy#byteBuffer()
+		 */
+		public final ByteBuffer byteBuffer() {
+			return this.buffer;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.chinmobi.aio.act.AIOInputLegacy#fileChannel()
+		 */
+		public final FileChannel fileChannel() {
+			return null;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.chinmobi.aio.act.AIOInputLegacy#position()
+		 */
+		public final long position() {
+			return 0;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.chinmobi.aio.act.AIOInputLegacy#count()
+		 */
+		public final long count() {
+			return this.buffer.limit();
+		}
+
+	}
+
+}
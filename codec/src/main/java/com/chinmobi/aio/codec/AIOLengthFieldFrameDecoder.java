@@ -0,0 +1,139 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes the frames whose length is given by a field of the header.
+ * <p>
+ * The frame length is <code>lengthFieldOffset + lengthFieldSize + value + lengthAdjustment</code>,
+ * the header is kept in the frame.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOLengthFieldFrameDecoder extends AIOFrameDecoder {
+
+	private final int lengthFieldOffset;
+	private final int lengthFieldSize;
+	private final int lengthAdjustment;
+	private final boolean bigEndian;
+
+	private final int maxFrameLength;
+
+	private int decodingLength;
+
+
+	public AIOLengthFieldFrameDecoder(final int lengthFieldSize, final int maxFrameLength) {
+		this(0, lengthFieldSize, 0, ByteOrder.BIG_ENDIAN, maxFrameLength);
+	}
+
+	public AIOLengthFieldFrameDecoder(final int lengthFieldOffset, final int lengthFieldSize,
+			final int lengthAdjustment, final ByteOrder byteOrder, final int maxFrameLength) {
+		super();
+
+		if (lengthFieldOffset < 0) {
+			throw new IllegalArgumentException("lengthFieldOffset: " + lengthFieldOffset);
+		}
+
+		switch (lengthFieldSize) {
+		case 1: case 2: case 3: case 4: case 8:
+			break;
+		default:
+			throw new IllegalArgumentException("lengthFieldSize: " + lengthFieldSize);
+		}
+
+		if (maxFrameLength <= 0) {
+			throw new IllegalArgumentException("maxFrameLength: " + maxFrameLength);
+		}
+
+		this.lengthFieldOffset = lengthFieldOffset;
+		this.lengthFieldSize = lengthFieldSize;
+		this.lengthAdjustment = lengthAdjustment;
+		this.bigEndian = (byteOrder == ByteOrder.BIG_ENDIAN);
+
+		this.maxFrameLength = maxFrameLength;
+
+		this.decodingLength = -1;
+	}
+
+
+	@Override
+	public final int initialCount() {
+		return this.lengthFieldOffset + this.lengthFieldSize;
+	}
+
+	@Override
+	protected final void resetDecoding() {
+		this.decodingLength = -1;
+	}
+
+	@Override
+	protected final int decode(final ByteBuffer buffer, final int start, final int length, final int reads) {
+		if (this.decodingLength < 0) {
+			final int headerLength = this.lengthFieldOffset + this.lengthFieldSize;
+			if (length < headerLength) {
+				return length - headerLength;
+			}
+
+			final long value = lengthFieldValue(buffer, start + this.lengthFieldOffset);
+			final long frameLength = headerLength + value + this.lengthAdjustment;
+
+			if (value < 0 || frameLength < headerLength || frameLength > this.maxFrameLength) {
+				throw new AIOFrameCorruptedException("Frame length: " + frameLength +
+						", max: " + this.maxFrameLength);
+			}
+
+			this.decodingLength = (int)frameLength;
+		}
+
+		if (length >= this.decodingLength) {
+			final int frameLength = this.decodingLength;
+			this.decodingLength = -1;
+			return frameLength;
+		}
+		return length - this.decodingLength;
+	}
+
+
+	private final long lengthFieldValue(final ByteBuffer buffer, final int index) {
+		long value = 0;
+
+		if (this.bigEndian) {
+			for (int i = 0; i < this.lengthFieldSize; ++i) {
+				value = (value << 8) | (buffer.get(index + i) & 0xFF);
+			}
+		} else {
+			for (int i = this.lengthFieldSize - 1; i >= 0; --i) {
+				value = (value << 8) | (buffer.get(index + i) & 0xFF);
+			}
+		}
+
+		return value;
+	}
+
+}
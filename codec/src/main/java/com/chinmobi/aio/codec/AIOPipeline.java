@@ -0,0 +1,456 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.codec;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.chinmobi.aio.AIOClosedSessionException;
+import com.chinmobi.aio.AIOFuture;
+import com.chinmobi.aio.act.AIOInputActResult;
+import com.chinmobi.aio.act.AIOInputActStrategy;
+import com.chinmobi.aio.act.AIOOutputActResult;
+import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOWritableActEntry;
+import com.chinmobi.aio.service.AIOService;
+
+/**
+ * An ordered chain of stages over a service.
+ * <p>
+ * The reads of the service enter the head as an {@link Input} and flow to the tail,
+ * the messages written flow from the tail to the head, where they must be
+ * {@link AIOReadableActEntry}s and are written to the service. The entries and
+ * messages are passed by reference, no stage copies them unless it transforms them.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOPipeline implements AIOService.ReadCallback, AIOService.WriteCallback {
+
+	private final AIOService service;
+
+	private final long timeout;
+	private final TimeUnit unit;
+
+	private final Context head;
+	private final Context tail;
+
+	private final Input input;
+
+	private final ArrayList<Runnable> deferredTasks;
+	private int dispatchDepth;
+
+	private AIOFuture<AIOOutputActResult> writeFuture;
+
+
+	public AIOPipeline(final AIOService service, final long timeout, final TimeUnit unit) {
+		if (service == null) {
+			throw new IllegalArgumentException("Null service.");
+		}
+
+		this.service = service;
+
+		this.timeout = timeout;
+		this.unit = unit;
+
+		this.head = new Context(this, new HeadStage());
+		this.tail = new Context(this, new TailStage());
+
+		this.head.next = this.tail;
+		this.tail.prev = this.head;
+
+		this.input = new Input();
+
+		this.deferredTasks = new ArrayList<Runnable>(4);
+	}
+
+
+	public final AIOService service() {
+		return this.service;
+	}
+
+	public final synchronized AIOPipeline addFirst(final AIOPipelineStage stage) {
+		insertAfter(this.head, stage);
+		return this;
+	}
+
+	public final synchronized AIOPipeline addLast(final AIOPipelineStage stage) {
+		insertAfter(this.tail.prev, stage);
+		return this;
+	}
+
+	public final synchronized boolean remove(final AIOPipelineStage stage) {
+		for (Context context = this.head.next; context != this.tail; context = context.next) {
+			if (context.stage == stage) {
+				context.prev.next = context.next;
+				context.next.prev = context.prev;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the service into the target, the result enters the head of this pipeline.
+	 *
+	 * @param target
+	 * @param strategy
+	 * @return the read future.
+	 * @throws AIOClosedSessionException
+	 */
+	public final AIOFuture<AIOInputActResult> read(final AIOWritableActEntry target,
+			final AIOInputActStrategy strategy) throws AIOClosedSessionException {
+		return this.service.read(target, this, strategy, this.timeout, this.unit);
+	}
+
+	/**
+	 * Passes the message from the tail to the head.
+	 *
+	 * @param message
+	 * @return the write future if the message reached the head in this call, otherwise null.
+	 */
+	public final synchronized AIOFuture<AIOOutputActResult> write(final Object message) {
+		this.writeFuture = null;
+
+		enter();
+		try {
+			invokeOutbound(this.tail.prev, message);
+		} finally {
+			leave();
+		}
+
+		final AIOFuture<AIOOutputActResult> future = this.writeFuture;
+		this.writeFuture = null;
+		return future;
+	}
+
+	/**
+	 * Passes the message from the head to the tail.
+	 *
+	 * @param message
+	 */
+	public final synchronized void fireInbound(final Object message) {
+		enter();
+		try {
+			invokeInbound(this.head.next, message);
+		} finally {
+			leave();
+		}
+	}
+
+	public final synchronized void fireException(final Throwable cause) {
+		enter();
+		try {
+			invokeException(this.head.next, cause);
+		} finally {
+			leave();
+		}
+	}
+
+
+	/*
+	 * ReadCallback methods
+	 */
+
+	public void aioReadInitiate(final AIOService service, final AIOWritableActEntry target) {
+	}
+
+	public final void aioReadAccomplished(final AIOService service, final AIOWritableActEntry target,
+			final long position, final long completedCount, final boolean endOfInput) {
+		synchronized (this) {
+			this.input.set(target, position, completedCount, endOfInput);
+			try {
+				fireInbound(this.input);
+			} finally {
+				this.input.set(null, 0, 0, false);
+			}
+		}
+	}
+
+	public final void aioReadTimeout(final AIOService service, final AIOWritableActEntry target,
+			final long position, final long completedCount) {
+		fireException(new TimeoutException("Read timeout."));
+	}
+
+	public final void aioReadFailed(final AIOService service, final AIOWritableActEntry target,
+			final long position, final long completedCount, final Throwable cause) {
+		fireException(cause);
+	}
+
+	public final void aioReadCancelled(final AIOService service, final AIOWritableActEntry target,
+			final long position, final long completedCount) {
+		fireException(new CancellationException("Read cancelled."));
+	}
+
+	/*
+	 * WriteCallback methods
+	 */
+
+	public void aioWriteInitiate(final AIOService service, final AIOReadableActEntry source) {
+	}
+
+	public void aioWriteAccomplished(final AIOService service, final AIOReadableActEntry source,
+			final long position, final long completedCount) {
+	}
+
+	public final void aioWriteTimeout(final AIOService service, final AIOReadableActEntry source,
+			final long position, final long completedCount) {
+		fireException(new TimeoutException("Write timeout."));
+	}
+
+	public final void aioWriteFailed(final AIOService service, final AIOReadableActEntry source,
+			final long position, final long completedCount, final Throwable cause) {
+		fireException(cause);
+	}
+
+	public final void aioWriteCancelled(final AIOService service, final AIOReadableActEntry source,
+			final long position, final long completedCount) {
+		fireException(new CancellationException("Write cancelled."));
+	}
+
+
+	private final void insertAfter(final Context prev, final AIOPipelineStage stage) {
+		if (stage == null) {
+			throw new IllegalArgumentException("Null stage.");
+		}
+
+		final Context context = new Context(this, stage);
+
+		context.prev = prev;
+		context.next = prev.next;
+
+		prev.next.prev = context;
+		prev.next = context;
+	}
+
+	private final void enter() {
+		++this.dispatchDepth;
+	}
+
+	private final void leave() {
+		if (this.dispatchDepth == 1) {
+			final ArrayList<Runnable> tasks = this.deferredTasks;
+			try {
+				// The tasks deferred by the deferred tasks are run in this turn too.
+				for (int i = 0; i < tasks.size(); ++i) {
+					final Runnable task = tasks.get(i);
+					tasks.set(i, null);
+
+					try {
+						task.run();
+					} catch (RuntimeException ex) {
+						invokeException(this.head.next, ex);
+					}
+				}
+			} finally {
+				tasks.clear();
+			}
+		}
+		--this.dispatchDepth;
+	}
+
+	final void defer(final Runnable task) {
+		synchronized (this) {
+			if (this.dispatchDepth > 0) {
+				this.deferredTasks.add(task);
+				return;
+			}
+
+			enter();
+			try {
+				task.run();
+			} finally {
+				leave();
+			}
+		}
+	}
+
+	final void invokeInbound(final Context context, final Object message) {
+		try {
+			context.stage.inbound(context, message);
+		} catch (Exception ex) {
+			invokeException(context, ex);
+		}
+	}
+
+	final void invokeOutbound(final Context context, final Object message) {
+		try {
+			context.stage.outbound(context, message);
+		} catch (Exception ex) {
+			invokeException(context, ex);
+		}
+	}
+
+	final void invokeException(final Context context, final Throwable cause) {
+		try {
+			context.stage.exceptionCaught(context, cause);
+		} catch (RuntimeException ex) {
+			this.service.close();
+		}
+	}
+
+
+	/**
+	 * The result of a read entering the head, valid only while it passes through the pipeline.
+	 */
+	public static final class Input {
+
+		private AIOWritableActEntry entry;
+		private long position;
+		private long completedCount;
+		private boolean endOfInput;
+
+
+		Input() {
+		}
+
+
+		final void set(final AIOWritableActEntry entry, final long position,
+				final long completedCount, final boolean endOfInput) {
+			this.entry = entry;
+			this.position = position;
+			this.completedCount = completedCount;
+			this.endOfInput = endOfInput;
+		}
+
+		public final AIOWritableActEntry entry() {
+			return this.entry;
+		}
+
+		public final long position() {
+			return this.position;
+		}
+
+		public final long completedCount() {
+			return this.completedCount;
+		}
+
+		public final boolean endOfInput() {
+			return this.endOfInput;
+		}
+
+	}
+
+	private static final class Context implements AIOPipelineContext {
+
+		Context prev;
+		Context next;
+
+		private final AIOPipeline pipeline;
+		final AIOPipelineStage stage;
+
+
+		Context(final AIOPipeline pipeline, final AIOPipelineStage stage) {
+			this.pipeline = pipeline;
+			this.stage = stage;
+		}
+
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.codec.AIOPipelineContext#pipeline()
+		 */
+		public final AIOPipeline pipeline() {
+			return this.pipeline;
+		}
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.codec.AIOPipelineContext#service()
+		 */
+		public final AIOService service() {
+			return this.pipeline.service;
+		}
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.codec.AIOPipelineContext#stage()
+		 */
+		public final AIOPipelineStage stage() {
+			return this.stage;
+		}
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.codec.AIOPipelineContext#fireInbound(java.lang.Object)
+		 */
+		public final void fireInbound(final Object message) {
+			this.pipeline.invokeInbound(this.next, message);
+		}
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.codec.AIOPipelineContext#fireOutbound(java.lang.Object)
+		 */
+		public final void fireOutbound(final Object message) {
+			this.pipeline.invokeOutbound(this.prev, message);
+		}
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.codec.AIOPipelineContext#fireException(java.lang.Throwable)
+		 */
+		public final void fireException(final Throwable cause) {
+			this.pipeline.invokeException(this.next, cause);
+		}
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.codec.AIOPipelineContext#defer(java.lang.Runnable)
+		 */
+		public final void defer(final Runnable task) {
+			this.pipeline.defer(task);
+		}
+
+	}
+
+	private static final class HeadStage extends AIOPipelineStageAdapter {
+
+		@Override
+		public final void outbound(final AIOPipelineContext context, final Object message) throws Exception {
+			if (!(message instanceof AIOReadableActEntry)) {
+				throw new IllegalArgumentException("Not a readable act entry: " + message);
+			}
+
+			final AIOPipeline pipeline = context.pipeline();
+
+			pipeline.writeFuture = pipeline.service.write((AIOReadableActEntry)message,
+					pipeline, pipeline.timeout, pipeline.unit);
+		}
+
+	}
+
+	private static final class TailStage implements AIOPipelineStage {
+
+		public final void inbound(final AIOPipelineContext context, final Object message) {
+			// Discarded.
+		}
+
+		public final void outbound(final AIOPipelineContext context, final Object message) throws Exception {
+			context.fireOutbound(message);
+		}
+
+		public final void exceptionCaught(final AIOPipelineContext context, final Throwable cause) {
+			context.service().close();
+		}
+
+	}
+
+}
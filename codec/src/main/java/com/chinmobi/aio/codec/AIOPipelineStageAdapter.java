@@ -0,0 +1,61 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.codec;
+
+/**
+ * Passes all the messages through.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOPipelineStageAdapter implements AIOPipelineStage {
+
+	public AIOPipelineStageAdapter() {
+		super();
+	}
+
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.codec.AIOPipelineStage#inbound(...)
+	 */
+	public void inbound(final AIOPipelineContext context, final Object message) throws Exception {
+		context.fireInbound(message);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.codec.AIOPipelineStage#outbound(...)
+	 */
+	public void outbound(final AIOPipelineContext context, final Object message) throws Exception {
+		context.fireOutbound(message);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.codec.AIOPipelineStage#exceptionCaught(...)
+	 */
+	public void exceptionCaught(final AIOPipelineContext context, final Throwable cause) {
+		context.fireException(cause);
+	}
+
+}
@@ -33,6 +33,7 @@ import java.nio.channels.FileChannel;
 
 import com.chinmobi.aio.act.AIOInputLegacy;
 import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOTransferPredictor;
 import com.chinmobi.aio.act.AIOWritableActEntry;
 
 /**
@@ -45,17 +46,38 @@ public class AIOFileEntryBase {
 
 	private final Region region;
 
+	private AIOTransferPredictor predictor;
 
-	public AIOFileEntryBase(final File file) throws FileNotFoundException, IOException {
-		this.raFile = new RandomAccessFile(file, "rwd");
+	private final AIOGroupCommitter groupCommitter;
 
-		this.region = new Region(this, this.raFile.getChannel());
+
+	public AIOFileEntryBase(final File file) throws FileNotFoundException, IOException {
+		this(file, null);
 	}
 
 	public AIOFileEntryBase(final String fileName) throws FileNotFoundException, IOException {
 		this(new File(fileName));
 	}
 
+	/**
+	 * Opens the file in durability mode if the committer is not null, the writes
+	 * are not synchronous, instead the acts reading into this entry are accomplished
+	 * after the file is forced by the committer.
+	 */
+	public AIOFileEntryBase(final File file, final AIOGroupCommitter committer)
+			throws FileNotFoundException, IOException {
+		this.raFile = new RandomAccessFile(file, (committer != null) ? "rw" : "rwd");
+
+		this.groupCommitter = committer;
+
+		this.region = new Region(this, this.raFile.getChannel());
+	}
+
+	public AIOFileEntryBase(final String fileName, final AIOGroupCommitter committer)
+			throws FileNotFoundException, IOException {
+		this(new File(fileName), committer);
+	}
+
 
 	public final void close() {
 		try {
@@ -139,8 +161,24 @@ public class AIOFileEntryBase {
 		return this.region;
 	}
 
+	public final void setTransferPredictor(final AIOTransferPredictor predictor) {
+		this.predictor = predictor;
+	}
+
 	protected long lengthPerTransfer() {
-		return 1024;
+		AIOTransferPredictor predictor = this.predictor;
+		if (predictor == null) {
+			predictor = new AIOTransferPredictor();
+			this.predictor = predictor;
+		}
+		return predictor.nextLength();
+	}
+
+	protected void recordTransfer(final long length) {
+		final AIOTransferPredictor predictor = this.predictor;
+		if (predictor != null) {
+			predictor.record(length);
+		}
 	}
 
 	protected void onCompleted(final AIOFileRegion region, final boolean asInput, final long position, final long count) {
@@ -170,10 +208,22 @@ public class AIOFileEntryBase {
 		}
 
 
+		@Override
+		protected final AIOGroupCommitter groupCommitter() {
+			final AIOGroupCommitter committer = super.groupCommitter();
+			return (committer != null) ? committer : this.entryBase.groupCommitter;
+		}
+
+		@Override
 		protected final long lengthPerTransfer() {
 			return this.entryBase.lengthPerTransfer();
 		}
 
+		@Override
+		protected final void recordTransfer(final long length) {
+			this.entryBase.recordTransfer(length);
+		}
+
 		@Override
 		protected final void onCompleted(final boolean asInput, final long position, final long count) {
 			this.entryBase.onCompleted(this, asInput, position, count);
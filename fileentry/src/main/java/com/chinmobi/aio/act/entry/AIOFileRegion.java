@@ -30,8 +30,10 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 
+import com.chinmobi.aio.act.AIOForceableActEntry;
 import com.chinmobi.aio.act.AIOInputLegacy;
 import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOTransferPredictor;
 import com.chinmobi.aio.act.AIOWritableActEntry;
 
 /**
@@ -53,6 +55,10 @@ public class AIOFileRegion {
 
 	private int mode;
 
+	private AIOTransferPredictor predictor;
+
+	private AIOGroupCommitter groupCommitter;
+
 	private final Input input;
 	private final Output output;
 
@@ -137,6 +143,7 @@ public class AIOFileRegion {
 				final long reads = readFrom(src, lengthPerTransfer());
 
 				if (reads > 0) {
+					recordTransfer(reads);
 					total += reads;
 				} else {
 					break;
@@ -179,8 +186,38 @@ public class AIOFileRegion {
 		return this.fileChannel;
 	}
 
+	public final void setTransferPredictor(final AIOTransferPredictor predictor) {
+		this.predictor = predictor;
+	}
+
+	/**
+	 * Sets the durability mode, the acts reading into this region are accomplished
+	 * after the file is forced by the committer.
+	 *
+	 * @param committer null to disable.
+	 */
+	public final void setGroupCommitter(final AIOGroupCommitter committer) {
+		this.groupCommitter = committer;
+	}
+
+	protected AIOGroupCommitter groupCommitter() {
+		return this.groupCommitter;
+	}
+
 	protected long lengthPerTransfer() {
-		return 1024;
+		AIOTransferPredictor predictor = this.predictor;
+		if (predictor == null) {
+			predictor = new AIOTransferPredictor();
+			this.predictor = predictor;
+		}
+		return predictor.nextLength();
+	}
+
+	protected void recordTransfer(final long length) {
+		final AIOTransferPredictor predictor = this.predictor;
+		if (predictor != null) {
+			predictor.record(length);
+		}
 	}
 
 	protected void onCompleted(final boolean asInput, final long position, final long count) {
@@ -297,7 +334,7 @@ public class AIOFileRegion {
 
 	}
 
-	private static class Output extends IOBase implements AIOWritableActEntry {
+	private static class Output extends IOBase implements AIOForceableActEntry {
 
 
 		protected Output(final AIOFileRegion region) {
@@ -310,6 +347,15 @@ public class AIOFileRegion {
 			this.region.onCompleted(false, position, count);
 		}
 
+		public final boolean force(final Callback callback) {
+			final AIOGroupCommitter committer = this.region.groupCommitter();
+			if (committer != null) {
+				committer.commit(this.region.fileChannel, callback);
+				return true;
+			}
+			return false;
+		}
+
 	}
 
 }
@@ -0,0 +1,256 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.chinmobi.aio.act.AIOForceableActEntry;
+
+/**
+ * Forces files on a shared flusher thread, the commits requested on the same file
+ * within the window are served by one {@link FileChannel#force(boolean)}.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOGroupCommitter implements Runnable {
+
+	private final long windowNanos;
+	private final boolean metaData;
+
+	private final Object lock;
+
+	private Map<FileChannel, List<Waiter>> pendings;
+
+	private Thread thread;
+	private boolean closed;
+
+	private final AtomicLong requestCount;
+	private final AtomicLong committedCount;
+	private final AtomicLong forceCount;
+	private final AtomicLong totalLatency;
+	private final AtomicLong maximumLatency;
+
+
+	public AIOGroupCommitter(final long window, final TimeUnit unit) {
+		this(window, unit, false);
+	}
+
+	public AIOGroupCommitter(final long window, final TimeUnit unit, final boolean metaData) {
+		super();
+
+		this.windowNanos = unit.toNanos(window);
+		this.metaData = metaData;
+
+		this.lock = new Object();
+
+		this.pendings = new IdentityHashMap<FileChannel, List<Waiter>>();
+
+		this.requestCount = new AtomicLong(0);
+		this.committedCount = new AtomicLong(0);
+		this.forceCount = new AtomicLong(0);
+		this.totalLatency = new AtomicLong(0);
+		this.maximumLatency = new AtomicLong(0);
+	}
+
+
+	public final void commit(final FileChannel fileChannel, final AIOForceableActEntry.Callback callback) {
+		final Waiter waiter = new Waiter(callback, System.nanoTime());
+
+		synchronized (this.lock) {
+			if (this.closed) {
+				throw new IllegalStateException("Closed.");
+			}
+
+			List<Waiter> waiters = this.pendings.get(fileChannel);
+			if (waiters == null) {
+				waiters = new ArrayList<Waiter>(4);
+				this.pendings.put(fileChannel, waiters);
+			}
+			waiters.add(waiter);
+
+			this.requestCount.incrementAndGet();
+
+			if (this.thread == null) {
+				final Thread thread = new Thread(this, "AIOGroupCommitter");
+				thread.setDaemon(true);
+				this.thread = thread;
+				thread.start();
+			} else {
+				this.lock.notify();
+			}
+		}
+	}
+
+	/**
+	 * Stops the flusher thread after the pending commits are forced.
+	 */
+	public final void close() {
+		synchronized (this.lock) {
+			this.closed = true;
+			this.lock.notifyAll();
+		}
+	}
+
+	public final long getRequestCount() {
+		return this.requestCount.get();
+	}
+
+	public final long getForceCount() {
+		return this.forceCount.get();
+	}
+
+	/**
+	 * Returns the number of forces saved by grouping the commits.
+	 */
+	public final long getForcesSaved() {
+		return this.committedCount.get() - this.forceCount.get();
+	}
+
+	/**
+	 * Returns the total nanoseconds the commits have waited for their forces.
+	 */
+	public final long getTotalLatency() {
+		return this.totalLatency.get();
+	}
+
+	public final long getMaximumLatency() {
+		return this.maximumLatency.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Runnable#run()
+	 */
+	public final void run() {
+		for (;;) {
+			boolean toWait;
+
+			synchronized (this.lock) {
+				while (this.pendings.isEmpty() && !this.closed) {
+					try {
+						this.lock.wait();
+					} catch (InterruptedException ignore) {
+					}
+				}
+
+				if (this.pendings.isEmpty()) {
+					this.thread = null;
+					return;
+				}
+
+				toWait = !this.closed;
+			}
+
+			if (toWait && this.windowNanos > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(this.windowNanos);
+				} catch (InterruptedException ignore) {
+				}
+			}
+
+			final Map<FileChannel, List<Waiter>> batch;
+			synchronized (this.lock) {
+				batch = this.pendings;
+				this.pendings = new IdentityHashMap<FileChannel, List<Waiter>>();
+			}
+
+			for (Map.Entry<FileChannel, List<Waiter>> entry : batch.entrySet()) {
+				force(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private final void force(final FileChannel fileChannel, final List<Waiter> waiters) {
+		Throwable cause = null;
+		try {
+			fileChannel.force(this.metaData);
+		} catch (IOException ex) {
+			cause = ex;
+		} catch (RuntimeException ex) {
+			cause = ex;
+		}
+
+		this.forceCount.incrementAndGet();
+
+		final long now = System.nanoTime();
+
+		for (Waiter waiter : waiters) {
+			final long latency = now - waiter.time;
+
+			this.totalLatency.addAndGet(latency);
+			for (;;) {
+				final long maximum = this.maximumLatency.get();
+				if (latency <= maximum || this.maximumLatency.compareAndSet(maximum, latency)) {
+					break;
+				}
+			}
+
+			this.committedCount.incrementAndGet();
+
+			try {
+				waiter.callback.forced(cause);
+			} catch (Throwable ignore) {
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("AIOGroupCommitter {");
+		builder.append("requests: ").append(getRequestCount());
+		builder.append(", forces: ").append(getForceCount());
+		builder.append(", forcesSaved: ").append(getForcesSaved());
+		builder.append(", totalLatency: ").append(getTotalLatency());
+		builder.append(", maximumLatency: ").append(getMaximumLatency());
+		builder.append('}');
+
+		return builder.toString();
+	}
+
+
+	private static final class Waiter {
+
+		final AIOForceableActEntry.Callback callback;
+		final long time;
+
+
+		Waiter(final AIOForceableActEntry.Callback callback, final long time) {
+			this.callback = callback;
+			this.time = time;
+		}
+
+	}
+
+}
@@ -0,0 +1,370 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded LRU cache of read-only file mappings, keyed by (file, window).
+ * The evicted mappings are unmapped explicitly once they are no longer acquired
+ * and every view of them is given back, otherwise they are left to the garbage collector.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOMappedFileCache {
+
+	public static final int DEFAULT_WINDOW_SIZE = 4 * 1024 * 1024;
+	public static final int DEFAULT_MAXIMUM_MAPPINGS = 64;
+
+	private final int windowSize;
+	private final int maximumMappings;
+
+	private final LinkedHashMap<Key, Mapping> mappings;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+
+	public AIOMappedFileCache() {
+		this(DEFAULT_WINDOW_SIZE, DEFAULT_MAXIMUM_MAPPINGS);
+	}
+
+	public AIOMappedFileCache(final int windowSize, final int maximumMappings) {
+		super();
+
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("windowSize: " + windowSize);
+		}
+		if (maximumMappings <= 0) {
+			throw new IllegalArgumentException("maximumMappings: " + maximumMappings);
+		}
+
+		this.windowSize = windowSize;
+		this.maximumMappings = maximumMappings;
+
+		this.mappings = new LinkedHashMap<Key, Mapping>(16, 0.75f, true);
+	}
+
+
+	public final int windowSize() {
+		return this.windowSize;
+	}
+
+	public final int maximumMappings() {
+		return this.maximumMappings;
+	}
+
+	/**
+	 * Acquires the mapping of the window containing the position, the mapping
+	 * must be released by {@link Mapping#release()}.
+	 *
+	 * @param end the end of the file range to serve, the mapping covers it up to the window end.
+	 */
+	public Mapping acquire(final File file, final long position, final long end) throws IOException {
+		if (position < 0 || position >= end) {
+			throw new IllegalArgumentException("position: " + position + " end: " + end);
+		}
+
+		final long window = position / this.windowSize;
+		final long windowStart = window * this.windowSize;
+		final long requiredEnd = Math.min(end, windowStart + this.windowSize);
+
+		final Key key = new Key(file.getAbsolutePath(), window);
+
+		synchronized (this) {
+			final Mapping mapping = this.mappings.get(key);
+			if (mapping != null) {
+				if (mapping.start + mapping.length >= requiredEnd) {
+					++this.hits;
+					++mapping.references;
+					return mapping;
+				}
+
+				// The file has grown since the window was mapped.
+				this.mappings.remove(key);
+				mapping.releaseReference();
+			}
+			++this.misses;
+		}
+
+		final Mapping mapping = map(key, file, windowStart);
+		if (mapping.start + mapping.length < requiredEnd) {
+			mapping.releaseReference();
+			throw new IOException("File: " + file + " is shorter than: " + requiredEnd);
+		}
+
+		synchronized (this) {
+			++mapping.references;
+
+			final Mapping old = this.mappings.put(key, mapping);
+			if (old != null) {
+				old.releaseReference();
+			}
+
+			evict();
+		}
+
+		return mapping;
+	}
+
+	public synchronized void clear() {
+		for (Mapping mapping : this.mappings.values()) {
+			mapping.releaseReference();
+		}
+		this.mappings.clear();
+	}
+
+	public synchronized int size() {
+		return this.mappings.size();
+	}
+
+	public synchronized long hits() {
+		return this.hits;
+	}
+
+	public synchronized long misses() {
+		return this.misses;
+	}
+
+	public synchronized long evictions() {
+		return this.evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("AIOMappedFileCache {");
+		builder.append("windowSize: ").append(this.windowSize);
+		builder.append(", mappings: ").append(this.mappings.size());
+		builder.append('/').append(this.maximumMappings);
+		builder.append(", hits: ").append(this.hits);
+		builder.append(", misses: ").append(this.misses);
+		builder.append(", evictions: ").append(this.evictions);
+		builder.append('}');
+
+		return builder.toString();
+	}
+
+
+	private final void evict() {
+		final Iterator<Map.Entry<Key, Mapping>> iter = this.mappings.entrySet().iterator();
+
+		while (this.mappings.size() > this.maximumMappings && iter.hasNext()) {
+			final Mapping mapping = iter.next().getValue();
+			iter.remove();
+
+			++this.evictions;
+			mapping.releaseReference();
+		}
+	}
+
+	private final Mapping map(final Key key, final File file, final long windowStart) throws IOException {
+		final RandomAccessFile raFile = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel fileChannel = raFile.getChannel();
+
+			final long size = fileChannel.size();
+			final long length = Math.max(0, Math.min(this.windowSize, size - windowStart));
+
+			// The mapping stays valid after the channel is closed.
+			final MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+
+			return new Mapping(this, key, windowStart, buffer);
+		} finally {
+			raFile.close();
+		}
+	}
+
+
+	private static final class Key {
+
+		private final String path;
+		private final long window;
+
+
+		Key(final String path, final long window) {
+			this.path = path;
+			this.window = window;
+		}
+
+
+		@Override
+		public final int hashCode() {
+			return this.path.hashCode() * 31 + (int)(this.window ^ (this.window >>> 32));
+		}
+
+		@Override
+		public final boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj instanceof Key) {
+				final Key other = (Key)obj;
+				return this.window == other.window && this.path.equals(other.path);
+			}
+			return false;
+		}
+
+	}
+
+	public static final class Mapping {
+
+		private final AIOMappedFileCache cache;
+		private final Key key;
+
+		private final long start;
+		private final int length;
+
+		private final MappedByteBuffer buffer;
+
+		// Guarded by the cache, one reference is held while cached.
+		private int references;
+		private final IdentityHashMap<ByteBuffer, Boolean> views;
+
+
+		private Mapping(final AIOMappedFileCache cache, final Key key,
+				final long start, final MappedByteBuffer buffer) {
+			this.cache = cache;
+			this.key = key;
+			this.start = start;
+			this.length = buffer.capacity();
+			this.buffer = buffer;
+			this.references = 1;
+			this.views = new IdentityHashMap<ByteBuffer, Boolean>(4);
+		}
+
+
+		public final long start() {
+			return this.start;
+		}
+
+		public final int length() {
+			return this.length;
+		}
+
+		/**
+		 * The mapping is never unmapped explicitly while a view is out,
+		 * give the view back by {@link #release(ByteBuffer)} once it is no longer used.
+		 *
+		 * @return an independent read-only view of the whole window.
+		 */
+		public final ByteBuffer buffer() {
+			final ByteBuffer view = this.buffer.asReadOnlyBuffer();
+			synchronized (this.cache) {
+				if (this.references <= 0) {
+					throw new IllegalStateException("Mapping: " + this.key.path + " already released.");
+				}
+				this.views.put(view, Boolean.TRUE);
+			}
+			return view;
+		}
+
+		public final void release() {
+			synchronized (this.cache) {
+				releaseReference();
+			}
+		}
+
+		/**
+		 * Releases the reference along with a view got by {@link #buffer()},
+		 * the view must not be accessed any more.
+		 */
+		public final void release(final ByteBuffer view) {
+			synchronized (this.cache) {
+				if (view != null) {
+					this.views.remove(view);
+				}
+				releaseReference();
+			}
+		}
+
+		private final void releaseReference() {
+			if (this.references <= 0) {
+				throw new IllegalStateException("Mapping: " + this.key.path + " already released.");
+			}
+			if (--this.references == 0 && this.views.isEmpty()) {
+				unmap(this.buffer);
+			}
+		}
+
+	}
+
+	/*
+	 * Unmap methods
+	 */
+
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+
+			final Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+		} catch (Exception ignore) {
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	static final void unmap(final MappedByteBuffer buffer) {
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+
+				final Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (Exception ignore) {
+			// Left to the garbage collector.
+		}
+	}
+
+}
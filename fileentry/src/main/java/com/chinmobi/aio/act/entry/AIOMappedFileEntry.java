@@ -0,0 +1,227 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.chinmobi.aio.act.AIOInputLegacy;
+import com.chinmobi.aio.act.AIOReadableActEntry;
+
+/**
+ * Serves a file range from the mappings of an {@link AIOMappedFileCache} as
+ * byte buffer entries, one window per act: call {@link #toInput()} again
+ * while {@link #hasRemaining()}.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOMappedFileEntry {
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private final AIOMappedFileCache cache;
+	private final File file;
+
+	private final long start;
+	private final long end;
+
+	private long position;
+
+	private AIOMappedFileCache.Mapping mapping;
+	private ByteBuffer buffer;
+
+	private final Input input;
+
+
+	public AIOMappedFileEntry(final AIOMappedFileCache cache, final File file) {
+		this(cache, file, 0, file.length());
+	}
+
+	public AIOMappedFileEntry(final AIOMappedFileCache cache, final File file,
+			final long start, final long end) {
+		super();
+
+		if (end < start || start < 0) {
+			throw new IllegalArgumentException("start: " + start + " end: " + end);
+		}
+
+		this.cache = cache;
+		this.file = file;
+
+		this.start = start;
+		this.end = end;
+
+		this.position = start;
+
+		this.input = new Input(this);
+	}
+
+
+	public final File file() {
+		return this.file;
+	}
+
+	public final long start() {
+		return this.start;
+	}
+
+	public final long end() {
+		return this.end;
+	}
+
+	public final long position() {
+		syncPosition();
+		return this.position;
+	}
+
+	public final long remaining() {
+		return this.end - position();
+	}
+
+	public final boolean hasRemaining() {
+		return remaining() > 0;
+	}
+
+	public final AIOReadableActEntry toInput() throws IOException {
+		prepareWindow();
+		return this.input;
+	}
+
+	public final AIOInputLegacy toInputLegacy() throws IOException {
+		prepareWindow();
+		return this.input;
+	}
+
+	public final AIOMappedFileEntry rewind() {
+		releaseMapping();
+		this.position = this.start;
+		return this;
+	}
+
+	/**
+	 * Releases the current mapping, the entry can be prepared again afterwards.
+	 */
+	public final void release() {
+		releaseMapping();
+	}
+
+
+	protected void onCompleted(final long position, final long count) {
+	}
+
+	protected void onInputLegacyRelease() {
+	}
+
+
+	private final void prepareWindow() throws IOException {
+		syncPosition();
+
+		final ByteBuffer current = this.buffer;
+		if (current != null && current.hasRemaining()) {
+			return;
+		}
+
+		releaseMapping();
+
+		if (this.position < this.end) {
+			final AIOMappedFileCache.Mapping mapping = this.cache.acquire(this.file, this.position, this.end);
+
+			final ByteBuffer buffer = mapping.buffer();
+			buffer.limit((int)(Math.min(this.end, mapping.start() + mapping.length()) - mapping.start()));
+			buffer.position((int)(this.position - mapping.start()));
+
+			this.mapping = mapping;
+			this.buffer = buffer;
+		} else {
+			this.buffer = EMPTY_BUFFER;
+		}
+	}
+
+	private final void syncPosition() {
+		final AIOMappedFileCache.Mapping mapping = this.mapping;
+		if (mapping != null) {
+			this.position = mapping.start() + this.buffer.position();
+		}
+	}
+
+	private final void releaseMapping() {
+		final AIOMappedFileCache.Mapping mapping = this.mapping;
+		if (mapping != null) {
+			syncPosition();
+
+			final ByteBuffer view = this.buffer;
+
+			this.mapping = null;
+			this.buffer = null;
+
+			mapping.release(view);
+		}
+	}
+
+
+	private static final class Input implements AIOReadableActEntry, AIOInputLegacy {
+
+		private final AIOMappedFileEntry entry;
+
+
+		Input(final AIOMappedFileEntry entry) {
+			this.entry = entry;
+		}
+
+
+		public final ByteBuffer byteBuffer() {
+			return this.entry.buffer;
+		}
+
+		public final FileChannel fileChannel() {
+			return null;
+		}
+
+		public final long position() {
+			final ByteBuffer buffer = this.entry.buffer;
+			return (buffer != null) ? buffer.position() : 0;
+		}
+
+		public final long count() {
+			final ByteBuffer buffer = this.entry.buffer;
+			return (buffer != null) ? buffer.remaining() : 0;
+		}
+
+		public final void completed(final long position, final long count) {
+			this.entry.syncPosition();
+			this.entry.onCompleted(position, count);
+		}
+
+		public final void release() {
+			this.entry.syncPosition();
+			this.entry.onInputLegacyRelease();
+		}
+
+	}
+
+}
@@ -0,0 +1,268 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.act.entry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.chinmobi.aio.act.AIOMultipartActEntry;
+import com.chinmobi.aio.act.AIOReadableActEntry;
+
+/**
+ * Sequences buffer parts and file parts, e.g. a header, a file region and a trailer,
+ * into one output act.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public class AIOMultipartEntry {
+
+	private final List<AIOReadableActEntry> parts;
+
+	private long[] positions;
+	private long[] counts;
+
+	private final Input input;
+
+
+	public AIOMultipartEntry() {
+		super();
+
+		this.parts = new ArrayList<AIOReadableActEntry>(4);
+
+		this.positions = new long[4];
+		this.counts = new long[4];
+
+		this.input = new Input(this);
+	}
+
+
+	public final AIOMultipartEntry add(final ByteBuffer buffer) {
+		this.parts.add(new BufferPart(buffer));
+		return this;
+	}
+
+	public final AIOMultipartEntry add(final FileChannel fileChannel, final long position, final long count) {
+		if (position < 0 || count < 0) {
+			throw new IllegalArgumentException("position: " + position + " count: " + count);
+		}
+
+		this.parts.add(new FilePart(fileChannel, position, count));
+		return this;
+	}
+
+	/**
+	 * Adds an entry, e.g. of {@link AIOFileRegion} or {@link AIOBufferEntryBase}, which is
+	 * completed with its own transferred count when this entry is completed.
+	 */
+	public final AIOMultipartEntry add(final AIOReadableActEntry part) {
+		if (part.byteBuffer() == null && part.fileChannel() == null) {
+			throw new IllegalArgumentException("Neither byte buffer nor file channel part.");
+		}
+
+		this.parts.add(part);
+		return this;
+	}
+
+	public final int partCount() {
+		return this.parts.size();
+	}
+
+	public final AIOMultipartEntry clear() {
+		this.parts.clear();
+		return this;
+	}
+
+	public final AIOMultipartActEntry toInput() {
+		final int partCount = this.parts.size();
+
+		if (this.counts.length < partCount) {
+			this.positions = new long[partCount];
+			this.counts = new long[partCount];
+		}
+
+		for (int i = 0; i < partCount; ++i) {
+			final AIOReadableActEntry part = this.parts.get(i);
+			final ByteBuffer buffer = part.byteBuffer();
+
+			this.positions[i] = part.position();
+			this.counts[i] = (buffer != null) ? buffer.remaining() : fileCount(part);
+		}
+
+		return this.input;
+	}
+
+
+	protected void onCompleted(final long position, final long count) {
+	}
+
+
+	private static final long fileCount(final AIOReadableActEntry part) {
+		final long count = part.count();
+		if (count >= 0) {
+			return count;
+		}
+
+		// A negative count runs to the end of the file.
+		try {
+			final long remaining = part.fileChannel().size() - part.position();
+			return (remaining > 0) ? remaining : 0;
+		} catch (IOException ex) {
+			throw new IllegalArgumentException(ex.getMessage(), ex);
+		}
+	}
+
+
+	private final void completed(final long position, long count) {
+		final int partCount = this.parts.size();
+
+		for (int i = 0; i < partCount; ++i) {
+			final long partCompleted = Math.min(count, this.counts[i]);
+
+			this.parts.get(i).completed(this.positions[i], partCompleted);
+
+			count -= partCompleted;
+		}
+	}
+
+
+	private static final class Input implements AIOMultipartActEntry {
+
+		private final AIOMultipartEntry entry;
+
+
+		Input(final AIOMultipartEntry entry) {
+			this.entry = entry;
+		}
+
+
+		public final ByteBuffer byteBuffer() {
+			return null;
+		}
+
+		public final FileChannel fileChannel() {
+			return null;
+		}
+
+		public final long position() {
+			return 0;
+		}
+
+		public final long count() {
+			final int partCount = this.entry.parts.size();
+
+			long count = 0;
+			for (int i = 0; i < partCount; ++i) {
+				count += this.entry.counts[i];
+			}
+			return count;
+		}
+
+		public final int partCount() {
+			return this.entry.parts.size();
+		}
+
+		public final AIOReadableActEntry part(final int index) {
+			return this.entry.parts.get(index);
+		}
+
+		public final void completed(final long position, final long count) {
+			this.entry.completed(position, count);
+			this.entry.onCompleted(position, count);
+		}
+
+	}
+
+	private static final class BufferPart implements AIOReadableActEntry {
+
+		private final ByteBuffer buffer;
+
+
+		BufferPart(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+
+		public final ByteBuffer byteBuffer() {
+			return this.buffer;
+		}
+
+		public final FileChannel fileChannel() {
+			return null;
+		}
+
+		public final long position() {
+			return this.buffer.position();
+		}
+
+		public final long count() {
+			return this.buffer.remaining();
+		}
+
+		public final void completed(final long position, final long count) {
+		}
+
+	}
+
+	private static final class FilePart implements AIOReadableActEntry {
+
+		private final FileChannel fileChannel;
+
+		private final long position;
+		private final long count;
+
+
+		FilePart(final FileChannel fileChannel, final long position, final long count) {
+			this.fileChannel = fileChannel;
+			this.position = position;
+			this.count = count;
+		}
+
+
+		public final ByteBuffer byteBuffer() {
+			return null;
+		}
+
+		public final FileChannel fileChannel() {
+			return this.fileChannel;
+		}
+
+		public final long position() {
+			return this.position;
+		}
+
+		public final long count() {
+			return this.count;
+		}
+
+		public final void completed(final long position, final long count) {
+		}
+
+	}
+
+}
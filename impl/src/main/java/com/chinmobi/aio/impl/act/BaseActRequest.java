@@ -33,6 +33,7 @@ import com.chinmobi.aio.act.AIOActEntry;
 import com.chinmobi.aio.act.AIOActResult;
 import com.chinmobi.aio.act.AIOInputActResult;
 import com.chinmobi.aio.act.AIOOutputActResult;
+import com.chinmobi.aio.act.AIOReleasableActEntry;
 import com.chinmobi.aio.impl.nio.FutureDoAccomplishCallback;
 import com.chinmobi.aio.impl.nio.FutureReleaseCallback;
 import com.chinmobi.aio.impl.nio.Session;
@@ -53,6 +54,8 @@ public abstract class BaseActRequest<T extends AIOActResult>
 	static final int STATUS_END_OF_INPUT = 2;
 	static final int STATUS_NO_MATCHED_ENTRY = 4;
 	static final int STATUS_NULL_CHANNEL = 8;
+	static final int STATUS_TO_YIELD = 16;
+	static final int STATUS_TO_PENDING = 32;
 
 	protected final ActFuture<T> future;
 
@@ -111,6 +114,10 @@ public abstract class BaseActRequest<T extends AIOActResult>
 		this.future.internalRelease();
 	}
 
+	final void cancelTimer() {
+		this.timerEntry.cancel();
+	}
+
 	final boolean isDone() {
 		if (this.state == 0) {
 			if (BaseActor.ENABLE_TRACE != 0) {
@@ -232,6 +239,15 @@ public abstract class BaseActRequest<T extends AIOActResult>
 	protected void released() {
 		if (BaseActor.ENABLE_TRACE != 0) trace('}');
 
+		final AIOActEntry entry = this.entry;
+		if (entry instanceof AIOReleasableActEntry) {
+			try {
+				((AIOReleasableActEntry)entry).released();
+			} catch (Throwable ignore) {
+				this.future.exceptionHandler().handleUncaughtException(ignore);
+			}
+		}
+
 		this.future.setExceptionHandler(null);
 
 		this.entry = null;
@@ -239,6 +255,13 @@ public abstract class BaseActRequest<T extends AIOActResult>
 	}
 
 
+	/**
+	 * @return true if a disk operation has been completed and the act can go on without readiness.
+	 */
+	boolean isDiskCompleted() {
+		return false;
+	}
+
 	int inputReady(final Session session, final TransportChannel transportChannel) throws IOException {
 		return 0;
 	}
@@ -255,6 +278,16 @@ public abstract class BaseActRequest<T extends AIOActResult>
 		return 0;
 	}
 
+	/**
+	 * Charges every transfer, including the one completing the request, so that a stream
+	 * of short acts yields too, the actor checks the session before starting the next act.
+	 *
+	 * @return true if the quantum of the session is exhausted.
+	 */
+	static final boolean chargeQuantum(final Session quantumSession, final long transferred) {
+		return (quantumSession != null && !quantumSession.consumeQuantum(transferred));
+	}
+
 
 	public final boolean isTimerScheduled() {
 		return this.timerEntry.isScheduled();
@@ -330,7 +363,10 @@ public abstract class BaseActRequest<T extends AIOActResult>
 		public final void futureDoAccomplish(final T result) {
 			if (BaseActor.ENABLE_TRACE != 0) this.request.onAccomplished();
 			try {
-				this.request.entry.completed(this.request.position, this.request.completedCount);
+				final AIOActEntry entry = this.request.entry;
+				if (entry != null) {
+					entry.completed(this.request.position, this.request.completedCount);
+				}
 			} catch (Throwable ignore) {
 				this.request.future.exceptionHandler().handleUncaughtException(ignore);
 			}
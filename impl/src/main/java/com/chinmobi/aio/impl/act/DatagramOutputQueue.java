@@ -0,0 +1,281 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.impl.act;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import com.chinmobi.aio.act.AIODatagramOutputQueue;
+import com.chinmobi.aio.impl.nio.Session;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+final class DatagramOutputQueue implements AIODatagramOutputQueue {
+
+	private final Session session;
+
+	private final ByteBuffer[] datagrams;
+	private final SocketAddress[] destinations;
+
+	private int head;
+	private int count;
+
+	private boolean closed;
+
+	private int unreportedDrops;
+
+	private volatile long sentCount;
+	private volatile long droppedCount;
+	private volatile long failedCount;
+
+	private volatile Observer observer;
+
+
+	DatagramOutputQueue(final Session session, final int capacity) {
+		this.session = session;
+
+		this.datagrams = new ByteBuffer[capacity];
+		this.destinations = new SocketAddress[capacity];
+
+		this.head = 0;
+		this.count = 0;
+	}
+
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#enqueue(ByteBuffer datagram, SocketAddress destination)
+	 */
+	public final boolean enqueue(final ByteBuffer datagram, final SocketAddress destination) {
+		if (datagram == null) {
+			throw new IllegalArgumentException("Null datagram.");
+		}
+
+		synchronized (this) {
+			if (this.closed || this.count == this.datagrams.length) {
+				++this.droppedCount;
+				++this.unreportedDrops;
+				return false;
+			}
+
+			final int tail = (this.head + this.count) % this.datagrams.length;
+			this.datagrams[tail] = datagram;
+			this.destinations[tail] = destination;
+
+			if (++this.count > 1) {
+				return true;
+			}
+		}
+
+		this.session.setOutputEvent();
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#size()
+	 */
+	public final synchronized int size() {
+		return this.count;
+	}
+
+	final synchronized boolean isEmpty() {
+		return (this.count == 0);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#capacity()
+	 */
+	public final int capacity() {
+		return this.datagrams.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#isClosed()
+	 */
+	public final synchronized boolean isClosed() {
+		return this.closed;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#setObserver(Observer observer)
+	 */
+	public final void setObserver(final Observer observer) {
+		this.observer = observer;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#getObserver()
+	 */
+	public final Observer getObserver() {
+		return this.observer;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#getSentCount()
+	 */
+	public final long getSentCount() {
+		return this.sentCount;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#getDroppedCount()
+	 */
+	public final long getDroppedCount() {
+		return this.droppedCount;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIODatagramOutputQueue#getFailedCount()
+	 */
+	public final long getFailedCount() {
+		return this.failedCount;
+	}
+
+	/**
+	 * Sends the queued datagrams until the socket accepts no more.
+	 *
+	 * @return true if the queue is drained.
+	 * @throws IOException if the channel is closed.
+	 */
+	final boolean flush(final DatagramChannel channel) throws IOException {
+		int sent = 0;
+		int failed = 0;
+		Throwable cause = null;
+
+		boolean drained = false;
+
+		try {
+			for (;;) {
+				final ByteBuffer datagram;
+				final SocketAddress destination;
+
+				synchronized (this) {
+					if (this.count == 0) {
+						drained = true;
+						break;
+					}
+					datagram = this.datagrams[this.head];
+					destination = this.destinations[this.head];
+				}
+
+				try {
+					final int sends = (destination != null) ?
+							channel.send(datagram, destination) : channel.write(datagram);
+					if (sends <= 0 && datagram.hasRemaining()) {
+						// The socket buffer is full.
+						break;
+					}
+					++sent;
+				} catch (IOException ex) {	// PortUnreachableException, IOException
+					if (!channel.isOpen()) {
+						throw ex;
+					}
+					++failed;
+					cause = ex;
+				} catch (RuntimeException ex) {	// NotYetConnectedException, SecurityException
+					++failed;
+					cause = ex;
+				}
+
+				synchronized (this) {
+					this.datagrams[this.head] = null;
+					this.destinations[this.head] = null;
+					this.head = (this.head + 1) % this.datagrams.length;
+					--this.count;
+				}
+			}
+		} finally {
+			report(sent, failed, cause);
+		}
+
+		return drained;
+	}
+
+	final void close() {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+
+			for (int i = 0; i < this.count; ++i) {
+				final int index = (this.head + i) % this.datagrams.length;
+				this.datagrams[index] = null;
+				this.destinations[index] = null;
+			}
+
+			this.droppedCount += this.count;
+			this.unreportedDrops += this.count;
+
+			this.head = 0;
+			this.count = 0;
+		}
+
+		report(0, 0, null);
+	}
+
+	private final void report(final int sent, final int failed, final Throwable cause) {
+		final int dropped;
+		synchronized (this) {
+			dropped = this.unreportedDrops;
+			this.unreportedDrops = 0;
+
+			this.sentCount += sent;
+			this.failedCount += failed;
+		}
+
+		if (sent == 0 && dropped == 0 && failed == 0) {
+			return;
+		}
+
+		final Observer observer = this.observer;
+		if (observer != null) {
+			try {
+				observer.datagramsFlushed(this, sent, dropped, failed, cause);
+			} catch (RuntimeException ex) {
+				this.session.context().handleUncaughtException(ex);
+			}
+		}
+	}
+
+	@Override
+	public final String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("DatagramOutputQueue [");
+		builder.append("size: ").append(size());
+		builder.append(", capacity: ").append(capacity());
+		builder.append(", sent: ").append(this.sentCount);
+		builder.append(", dropped: ").append(this.droppedCount);
+		builder.append(", failed: ").append(this.failedCount);
+		builder.append("]");
+
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,205 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.impl.act;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.chinmobi.aio.act.AIOActEntryRuntimeException;
+import com.chinmobi.aio.impl.nio.DiskScheduler;
+import com.chinmobi.aio.impl.nio.Session;
+
+/**
+ * Stages the file contents of an act in its own buffer, the file is
+ * read into or written from the buffer on the disk executor.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+final class DiskOperation extends DiskScheduler.Operation {
+
+	private final ByteBuffer buffer;
+
+	private FileChannel fileChannel;
+	private long filePosition;
+	private boolean toWrite;
+
+	private boolean endOfFile;
+
+	private volatile Session session;
+	private volatile boolean pending;
+	private volatile boolean completed;
+
+
+	DiskOperation(final int bufferSize) {
+		super();
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+	}
+
+
+	/**
+	 * Empties the buffer, for filling if to write the file, otherwise for draining.
+	 */
+	final void reset(final boolean toWrite) {
+		this.buffer.clear();
+		if (!toWrite) {
+			this.buffer.limit(0);
+		}
+
+		this.endOfFile = false;
+		this.completed = false;
+		this.failure = null;
+	}
+
+	final ByteBuffer buffer() {
+		return this.buffer;
+	}
+
+	final boolean isPending() {
+		return this.pending;
+	}
+
+	/**
+	 * @return true if an operation has been completed since the last call.
+	 */
+	final boolean testAndClearCompleted() {
+		if (this.completed) {
+			this.completed = false;
+			return true;
+		}
+		return false;
+	}
+
+	final boolean isCompleted() {
+		return this.completed;
+	}
+
+	final boolean endOfFile() {
+		return this.endOfFile;
+	}
+
+	final void checkFailure() throws AIOActEntryRuntimeException {
+		final IOException failure = this.failure;
+		if (failure != null) {
+			this.failure = null;
+			throw new AIOActEntryRuntimeException(failure);
+		}
+	}
+
+	/**
+	 * Reads at most the count of bytes at the position into the buffer.
+	 */
+	final void read(final DiskScheduler scheduler, final Session session,
+			final FileChannel fileChannel, final long position, final long count) {
+		this.buffer.clear();
+		if (count < this.buffer.capacity()) {
+			this.buffer.limit((int)count);
+		}
+
+		this.endOfFile = false;
+
+		submit(scheduler, session, fileChannel, position, false);
+	}
+
+	/**
+	 * Writes the buffer filled, which is cleared after written, at the position.
+	 */
+	final void write(final DiskScheduler scheduler, final Session session,
+			final FileChannel fileChannel, final long position) {
+		this.buffer.flip();
+
+		submit(scheduler, session, fileChannel, position, true);
+	}
+
+	private final void submit(final DiskScheduler scheduler, final Session session,
+			final FileChannel fileChannel, final long position, final boolean toWrite) {
+		this.fileChannel = fileChannel;
+		this.filePosition = position;
+		this.toWrite = toWrite;
+
+		this.session = session;
+		this.completed = false;
+		this.pending = true;
+
+		scheduler.submit(this);
+	}
+
+	/**
+	 * Detaches the session, a pending operation completes without notifying it.
+	 */
+	final void detach() {
+		this.session = null;
+	}
+
+
+	@Override
+	protected final void operate() throws IOException {
+		final ByteBuffer buffer = this.buffer;
+		long position = this.filePosition;
+
+		if (this.toWrite) {
+			try {
+				while (buffer.hasRemaining()) {
+					position += this.fileChannel.write(buffer, position);
+				}
+			} finally {
+				buffer.clear();
+			}
+		} else {
+			try {
+				while (buffer.hasRemaining()) {
+					final int reads = this.fileChannel.read(buffer, position);
+					if (reads < 0) {
+						this.endOfFile = true;
+						break;
+					}
+					position += reads;
+				}
+			} finally {
+				buffer.flip();
+			}
+		}
+	}
+
+	@Override
+	protected final void onCompleted() {
+		this.fileChannel = null;
+
+		this.completed = true;
+		this.pending = false;
+
+		final Session session = this.session;
+		if (session != null) {
+			if (this.toWrite) {
+				session.setInputEvent(true);
+			} else {
+				session.setOutputEvent(true);
+			}
+			session.reactivate();
+		}
+	}
+
+}
@@ -32,15 +32,21 @@ import java.nio.channels.DatagramChannel;
 import java.nio.channels.FileChannel;
 import java.nio.channels.NonReadableChannelException;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
 
 import com.chinmobi.aio.AIOFutureCallback;
 import com.chinmobi.aio.act.AIOActDirection;
 import com.chinmobi.aio.act.AIOActEntryRuntimeException;
+import com.chinmobi.aio.act.AIODatagramBatchActEntry;
 import com.chinmobi.aio.act.AIODatagramActEntry;
 import com.chinmobi.aio.act.AIODatagramWritableActEntry;
+import com.chinmobi.aio.act.AIOForceableActEntry;
 import com.chinmobi.aio.act.AIOInputActResult;
 import com.chinmobi.aio.act.AIOInputActStrategy;
+import com.chinmobi.aio.act.AIOReadEntryPool;
+import com.chinmobi.aio.act.AIOSegmentedActEntry;
 import com.chinmobi.aio.act.AIOWritableActEntry;
+import com.chinmobi.aio.impl.nio.DiskScheduler;
 import com.chinmobi.aio.impl.nio.Session;
 import com.chinmobi.aio.impl.nio.TransportChannel;
 
@@ -59,16 +65,60 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 
 	private AIOInputActStrategy strategy;
 
+	private AIOReadEntryPool pool;
+	private boolean entryHandedOff;
+
+	private DiskOperation diskOperation;
+	private boolean toExtendFile;
+	private int diskStatus;
+
+	private final ForceCallback forceCallback;
+	private boolean forcing;
+
+	private boolean batchStarted;
+
 
 	InputActRequest(final ActRequestFactory requestFactory) {
 		super(requestFactory.sessionContext());
 		this.requestFactory = requestFactory;
+
+		this.forceCallback = new ForceCallback(this);
 	}
 
 
 	final void set(final AIOWritableActEntry target, final AIOFutureCallback<AIOInputActResult> callback,
 			final long timeout, final Object attachment) throws IllegalArgumentException {
 
+		resetDiskOperation();
+		this.forcing = false;
+		this.batchStarted = false;
+		attach(target);
+
+		super.set(target, this.position, this.count, timeout, attachment);
+		this.endOfInput = false;
+
+		this.future.set(this.futureReleaseCallback(), this.futureCancellable(),
+				callback, attachment, (AIOInputActResult)this);
+	}
+
+	final void set(final AIOReadEntryPool pool, final AIOFutureCallback<AIOInputActResult> callback,
+			final long timeout, final Object attachment) {
+
+		resetDiskOperation();
+		this.forcing = false;
+		this.batchStarted = false;
+
+		super.set(null, 0, 0, timeout, attachment);
+		this.endOfInput = false;
+
+		this.pool = pool;
+		this.entryHandedOff = false;
+
+		this.future.set(this.futureReleaseCallback(), this.futureCancellable(),
+				callback, attachment, (AIOInputActResult)this);
+	}
+
+	private final void attach(final AIOWritableActEntry target) throws IllegalArgumentException {
 		long position = target.position();
 		long count = target.count();
 
@@ -99,27 +149,85 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 						position = fileSize;
 					} else
 					if (position > fileSize) {
-						final ByteBuffer buf = ByteBuffer.allocate(8);
-						buf.put((byte)0x00);
-						buf.flip();
-
-						fileChannel.position(position);
-						fileChannel.write(buf);
-
-						fileChannel.truncate(position);
+						if (this.requestFactory.sessionContext().diskScheduler() != null) {
+							// Not to block the reactor threads, the staged writes extend the file by themselves.
+							this.toExtendFile = true;
+						} else {
+							extendFile(fileChannel, position);
+						}
 					}
 
 				} catch (IOException ex) {
 					throw new IllegalArgumentException(ex.getMessage(), ex);
 				}
+			} else if (target instanceof AIOSegmentedActEntry) {
+				// The segments themselves delimit what to transfer.
+				count = OutputActRequest.segmentsRemaining((AIOSegmentedActEntry)target);
+			} else if (target instanceof AIODatagramBatchActEntry) {
+				position = 0;
 			}
 		}
 
-		super.set(target, position, count, timeout, attachment);
-		this.endOfInput = false;
+		this.entry = target;
 
-		this.future.set(this.futureReleaseCallback(), this.futureCancellable(),
-				callback, attachment, (AIOInputActResult)this);
+		this.position = position;
+		this.count = count;
+	}
+
+	private final boolean borrowEntry() {
+		if (this.entry == null) {
+			final AIOReadEntryPool pool = this.pool;
+			if (pool == null) {
+				return false;
+			}
+
+			final AIOWritableActEntry target;
+			try {
+				target = pool.borrowEntry();
+				if (target == null) {
+					throw new NullPointerException("Borrowed entry");
+				}
+			} catch (RuntimeException ex) {
+				throw new AIOActEntryRuntimeException(ex);
+			}
+
+			try {
+				attach(target);
+			} catch (IllegalArgumentException ex) {
+				this.entry = target;
+				reclaimEntry();
+				throw new AIOActEntryRuntimeException(ex);
+			}
+		}
+		return true;
+	}
+
+	private final int reclaimEmptyEntry(final int status) {
+		if (this.pool != null && this.completedCount == 0) {
+			switch (status) {
+			case STATUS_TO_CONTINUE:
+			case STATUS_END_OF_INPUT:
+			case STATUS_TO_YIELD:
+				reclaimEntry();
+				break;
+
+			default:
+			}
+		}
+		return status;
+	}
+
+	private final void reclaimEntry() {
+		final AIOWritableActEntry target = (AIOWritableActEntry)this.entry;
+		if (target != null) {
+			this.entry = null;
+			this.batchStarted = false;
+
+			this.position = 0;
+			this.count = 0;
+
+			this.pool.reclaimEntry(target);
+		}
 	}
 
 	final void setStrategy(final AIOInputActStrategy strategy) {
@@ -154,8 +262,8 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 	@Override
 	final int inputReady(final Session session, final TransportChannel transportChannel) throws IOException {
 		final ReadableByteChannel inputChannel = transportChannel.readableChannel();
-		if (inputChannel != null) {
-			return inputReady(session, inputChannel);
+		if (inputChannel != null && !(this.entry instanceof AIODatagramBatchActEntry)) {
+			return inputReady(inputChannel, session);
 		} else {
 			final DatagramChannel datagramChannel = transportChannel.datagramChannel();
 			if (datagramChannel != null) {
@@ -168,11 +276,17 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 	private final int datagramReady(final Session session, final DatagramChannel datagramChannel) throws IOException {
 		synchronized (this.future.lock()) {
 			if (!this.future.isDone()) {
+				if (!borrowEntry()) {
+					return STATUS_NO_MATCHED_ENTRY;
+				}
+
 				final ByteBuffer buffer = this.entry.byteBuffer();
 				if (buffer != null) {
 					if (this.entry instanceof AIODatagramActEntry) {
-						return receiveToBuffer(buffer, datagramChannel);
+						return reclaimEmptyEntry(receiveToBuffer(buffer, datagramChannel));
 					}
+				} else if (this.entry instanceof AIODatagramBatchActEntry) {
+					return reclaimEmptyEntry(receiveToBatch((AIODatagramBatchActEntry)this.entry, datagramChannel, session));
 				}
 				return STATUS_NO_MATCHED_ENTRY;
 			}
@@ -182,15 +296,39 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 
 	@Override
 	final int inputReady(final Session session, final ReadableByteChannel inputChannel) throws IOException {
+		return inputReady(inputChannel, null);
+	}
+
+	private final int inputReady(final ReadableByteChannel inputChannel, final Session quantumSession) throws IOException {
 		synchronized (this.future.lock()) {
 			if (!this.future.isDone()) {
+				if (!borrowEntry()) {
+					return STATUS_NO_MATCHED_ENTRY;
+				}
+
 				final ByteBuffer buffer = this.entry.byteBuffer();
 				if (buffer != null) {
-					return readToBuffer(buffer, inputChannel);
+					return reclaimEmptyEntry(readToBuffer(buffer, inputChannel, quantumSession));
 				} else {
 					final FileChannel fileChannel = this.entry.fileChannel();
 					if (fileChannel != null) {
-						return readToFile(fileChannel, inputChannel);
+						final DiskScheduler diskScheduler = (quantumSession != null && this.strategy == null) ?
+								quantumSession.context().diskScheduler() : null;
+						if (diskScheduler != null) {
+							return readToFileStaged(diskScheduler, fileChannel, inputChannel, quantumSession);
+						}
+
+						if (this.toExtendFile) {
+							this.toExtendFile = false;
+							try {
+								extendFile(fileChannel, this.position);
+							} catch (IOException ex) {
+								throw new AIOActEntryRuntimeException(ex);
+							}
+						}
+						return reclaimEmptyEntry(readToFile(fileChannel, inputChannel, quantumSession));
+					} else if (this.entry instanceof AIOSegmentedActEntry) {
+						return reclaimEmptyEntry(readToBuffers(inputChannel, quantumSession));
 					}
 				}
 			}
@@ -198,7 +336,8 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 		return STATUS_DO_NOTHING;
 	}
 
-	private final int readToBuffer(ByteBuffer buffer, final ReadableByteChannel channel) throws IOException {
+	private final int readToBuffer(ByteBuffer buffer, final ReadableByteChannel channel,
+			final Session quantumSession) throws IOException {
 		try {
 			for (;;) {
 				final int reads = channel.read(buffer);
@@ -207,14 +346,22 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 					this.completedCount += reads;
 					this.count -= reads;
 
+					final boolean exhausted = chargeQuantum(quantumSession, reads);
 					if (this.strategy != null) {
 						buffer = determineBufferReads(buffer, reads);
 						if (buffer == null) {
 							return STATUS_TO_TERMINATE;
 						}
+					} else if (channel instanceof DatagramChannel) {
+						// A connected datagram channel, one datagram per act as receive does,
+						// the next one may be truncated by the remaining of the buffer.
+						return STATUS_TO_TERMINATE;
 					}
 
 					if (this.count > 0) {
+						if (exhausted) {
+							return STATUS_TO_YIELD;
+						}
 						continue;
 					}
 				} else
@@ -246,6 +393,92 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 		}
 	}
 
+	private final int readToBuffers(final ReadableByteChannel channel, final Session quantumSession) throws IOException {
+		AIOSegmentedActEntry entry = (AIOSegmentedActEntry)this.entry;
+
+		ByteBuffer[] buffers = entry.byteBuffers();
+		int offset = entry.segmentOffset();
+		int end = offset + entry.segmentLength();
+
+		try {
+			while (this.count > 0) {
+				while (offset < end && !buffers[offset].hasRemaining()) {
+					++offset;
+				}
+				if (offset >= end) {
+					break;
+				}
+
+				final long reads;
+				if (channel instanceof ScatteringByteChannel) {
+					reads = ((ScatteringByteChannel)channel).read(buffers, offset, end - offset);
+				} else {
+					reads = channel.read(buffers[offset]);
+				}
+
+				if (reads > 0) {
+					this.completedCount += reads;
+					this.count -= reads;
+
+					final boolean exhausted = chargeQuantum(quantumSession, reads);
+					if (this.strategy != null) {
+						try {
+							final AIOActDirection direction = this.strategy.determineInputActReads(this.entry,
+									this.position, this.completedCount, reads);
+
+							if (direction != null) {
+								switch (direction.status()) {
+								case TERMINATE:
+									return STATUS_TO_TERMINATE;
+								default: // CONTINUE
+								}
+
+								if (direction.newActEntryCount() != 0) {
+									entry = (AIOSegmentedActEntry)this.entry;
+
+									buffers = entry.byteBuffers();
+									offset = entry.segmentOffset();
+									end = offset + entry.segmentLength();
+
+									this.count = OutputActRequest.segmentsRemaining(entry);
+								}
+							}
+						} catch (RuntimeException ex) {
+							throw new AIOActEntryRuntimeException(ex);
+						}
+					} else if (channel instanceof DatagramChannel) {
+						// One datagram scattered per act.
+						return STATUS_TO_TERMINATE;
+					}
+
+					if (exhausted && this.count > 0) {
+						return STATUS_TO_YIELD;
+					}
+				} else
+				if (reads == 0) {
+					return (this.count > 0) ? STATUS_TO_CONTINUE : STATUS_TO_TERMINATE;
+				} else {
+					this.endOfInput = true;
+					return STATUS_END_OF_INPUT;
+				}
+			}
+
+			return STATUS_TO_TERMINATE;
+
+		} catch (ClosedChannelException ex) {	// ClosedChannelException,
+												// AsynchronousCloseException, ClosedByInterruptException
+			this.endOfInput = true;
+			return STATUS_END_OF_INPUT;
+
+		} catch (IOException ex) {
+			throw ex;
+		} catch (AIOActEntryRuntimeException ex) {
+			throw ex;
+		} catch (RuntimeException ex) {	// NonReadableChannelException
+			throw ex;
+		}
+	}
+
 	private final ByteBuffer determineBufferReads(ByteBuffer buffer, final int reads) {
 		try {
 			final AIOActDirection direction = this.strategy.determineInputActReads(this.entry,
@@ -254,6 +487,7 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 			if (direction != null) {
 				switch (direction.status()) {
 				case TERMINATE:
+					giveBackReads(buffer, direction.newActEntryCount());
 					return null;
 				default: // CONTINUE
 				}
@@ -290,7 +524,136 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 		return buffer;
 	}
 
-	private final int readToFile(FileChannel fileChannel, final ReadableByteChannel channel) throws IOException {
+	/**
+	 * Gives back the trailing bytes of the reads, which a terminating strategy
+	 * has taken over (e.g. pushed back as a legacy).
+	 */
+	private final void giveBackReads(final ByteBuffer buffer, final long newCount) {
+		if (newCount < 0) {
+			int giveBacks = (int)-newCount;
+			if (giveBacks > this.completedCount) {
+				giveBacks = (int)this.completedCount;
+			}
+
+			buffer.position(buffer.position() - giveBacks);
+
+			this.completedCount -= giveBacks;
+			this.count += giveBacks;
+		}
+	}
+
+	/**
+	 * Reads the channel into the staging buffer, and writes the buffer to the file
+	 * on the disk executor when it is filled or the channel has no more data.
+	 */
+	private final int readToFileStaged(final DiskScheduler diskScheduler, final FileChannel fileChannel,
+			final ReadableByteChannel channel, final Session session) throws IOException {
+		DiskOperation operation = this.diskOperation;
+		if (operation == null) {
+			operation = new DiskOperation(diskScheduler.bufferSize());
+			operation.reset(true);
+			this.diskOperation = operation;
+		} else if (operation.isPending()) {
+			return STATUS_TO_PENDING;
+		}
+
+		operation.testAndClearCompleted();
+		operation.checkFailure();
+
+		// The staged bytes were all written to the file.
+		final int diskStatus = this.diskStatus;
+		if (diskStatus != STATUS_TO_CONTINUE) {
+			this.diskStatus = STATUS_TO_CONTINUE;
+			return diskStatus;
+		}
+
+		final ByteBuffer buffer = operation.buffer();
+
+		int status = STATUS_TO_CONTINUE;
+		try {
+			for (;;) {
+				if (this.count > 0 && this.count < buffer.remaining()) {
+					buffer.limit(buffer.position() + (int)this.count);
+				}
+
+				final int reads = channel.read(buffer);
+
+				if (reads > 0) {
+					this.completedCount += reads;
+					if (this.count > 0) this.count -= reads;
+
+					final boolean exhausted = chargeQuantum(session, reads);
+					if (this.count == 0) {
+						status = STATUS_TO_TERMINATE;
+						break;
+					}
+
+					if (!buffer.hasRemaining() || exhausted) {
+						break;
+					}
+				} else
+				if (reads == 0) {
+					if (this.count < 0 && this.completedCount > 0) {
+						status = STATUS_TO_TERMINATE;
+					}
+					break;
+				} else {
+					this.endOfInput = true;
+					status = STATUS_END_OF_INPUT;
+					break;
+				}
+			}
+		} catch (IOException ex) {	// ClosedChannelException,
+									// AsynchronousCloseException, ClosedByInterruptException
+			if (channel.isOpen()) {
+				throw ex;
+			}
+			this.endOfInput = true;
+			status = STATUS_END_OF_INPUT;
+		}
+
+		final int staged = buffer.position();
+		if (staged == 0) {
+			return status;
+		}
+
+		this.diskStatus = status;
+
+		session.clearInputEvent();
+		operation.write(diskScheduler, session, fileChannel,
+				this.position + this.completedCount - staged);
+
+		return STATUS_TO_PENDING;
+	}
+
+	@Override
+	final boolean isDiskCompleted() {
+		final DiskOperation operation = this.diskOperation;
+		return (operation != null && operation.isCompleted());
+	}
+
+	private final void resetDiskOperation() {
+		this.toExtendFile = false;
+		this.diskStatus = STATUS_TO_CONTINUE;
+
+		if (this.diskOperation != null) {
+			this.diskOperation.reset(true);
+		}
+	}
+
+	private static final void extendFile(final FileChannel fileChannel, final long position) throws IOException {
+		final ByteBuffer buf = ByteBuffer.allocate(8);
+		buf.put((byte)0x00);
+		buf.flip();
+
+		fileChannel.position(position);
+		fileChannel.write(buf);
+
+		fileChannel.truncate(position);
+	}
+
+	private final int readToFile(FileChannel fileChannel, final ReadableByteChannel channel,
+			final Session quantumSession) throws IOException {
 		try {
 			for (;;) {
 				final long reads = fileChannel.transferFrom(channel,
@@ -301,6 +664,7 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 					this.completedCount += reads;
 					if (this.count > 0) this.count -= reads;
 
+					final boolean exhausted = chargeQuantum(quantumSession, reads);
 					if (this.strategy != null) {
 						try {
 							final AIOActDirection direction = this.strategy.determineInputActReads(this.entry,
@@ -332,6 +696,10 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 					if (this.count == 0) {
 						return STATUS_TO_TERMINATE;
 					}
+
+					if (exhausted) {
+						return STATUS_TO_YIELD;
+					}
 				} else {
 					break;
 				}
@@ -408,15 +776,100 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 		}
 	}
 
+	private final int receiveToBatch(final AIODatagramBatchActEntry entry, final DatagramChannel channel,
+			final Session quantumSession) throws IOException {
+
+		if (!this.batchStarted) {
+			// Reading into the entry again means the last batch has been consumed.
+			this.batchStarted = true;
+			entry.recycle();
+		}
+
+		try {
+			ByteBuffer slot;
+			while ((slot = entry.nextSlot()) != null) {
+				final SocketAddress remote = channel.receive(slot);
+				if (remote == null) {
+					break;
+				}
+
+				final int reads = slot.position();
+				entry.slotReceived(remote);
+
+				this.completedCount += reads;
+
+				if (chargeQuantum(quantumSession, reads) && entry.count() > 0) {
+					return STATUS_TO_YIELD;
+				}
+			}
+
+			return (entry.size() > 0) ? STATUS_TO_TERMINATE : STATUS_TO_CONTINUE;
+
+		} catch (IOException ex) {	// ClosedChannelException,
+									// AsynchronousCloseException, ClosedByInterruptException
+									// IOException
+			throw ex;
+		} catch (SecurityException ex) {
+			throw ex;
+		}
+	}
+
 	@Override
 	final void accomplished() {
+		if (!this.forcing && this.completedCount > 0 &&
+				this.entry instanceof AIOForceableActEntry) {
+			this.forcing = true;
+
+			// The request is out of the actor, only the timer can complete it meanwhile.
+			cancelTimer();
+
+			try {
+				if (((AIOForceableActEntry)this.entry).force(this.forceCallback)) {
+					return;
+				}
+			} catch (RuntimeException ex) {
+				failed(ex);
+				return;
+			}
+		}
+
+		doAccomplished();
+	}
+
+	private final void forced(final Throwable cause) {
+		if (cause == null) {
+			doAccomplished();
+		} else {
+			failed(cause);
+		}
+	}
+
+	private final void doAccomplished() {
+		// Set ahead, the callback may release the future before accomplished returns.
+		this.entryHandedOff = true;
 		if (!this.future.accomplished((AIOInputActResult)this, futureDoAccomplishCallback())) {
+			// Cancelled or done already, the borrowed entry never reached the caller.
+			this.entryHandedOff = false;
 			internalRelease();
 		}
 	}
 
 	@Override
 	protected final void released() {
+		if (this.pool != null) {
+			if (!this.entryHandedOff) {
+				reclaimEntry();
+			}
+			this.pool = null;
+		}
+
+		final DiskOperation operation = this.diskOperation;
+		if (operation != null && operation.isPending()) {
+			// Leaves the buffer to the pending operation.
+			operation.detach();
+			this.diskOperation = null;
+		}
+
 		super.released();
 		this.strategy = null;
 
@@ -437,4 +890,24 @@ public class InputActRequest extends BaseActRequest<AIOInputActResult>
 		return builder.toString();
 	}
 
+
+	private static final class ForceCallback implements AIOForceableActEntry.Callback {
+
+		private final InputActRequest request;
+
+
+		ForceCallback(final InputActRequest request) {
+			this.request = request;
+		}
+
+
+		/* (non-Javadoc)
+		 * @see com.chinmobi.aio.act.AIOForceableActEntry.Callback#forced(java.lang.Throwable)
+		 */
+		public final void forced(final Throwable cause) {
+			this.request.forced(cause);
+		}
+
+	}
+
 }
@@ -24,6 +24,7 @@
  */
 package com.chinmobi.aio.impl.act;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
 
 import com.chinmobi.aio.AIOClosedSessionException;
@@ -35,6 +36,8 @@ import com.chinmobi.aio.act.AIOInputActStrategy;
 import com.chinmobi.aio.act.AIOInputActor;
 import com.chinmobi.aio.act.AIOInputLegacy;
 import com.chinmobi.aio.act.AIOInputLegacyRuntimeException;
+import com.chinmobi.aio.act.AIOInputLegacyView;
+import com.chinmobi.aio.act.AIOReadEntryPool;
 import com.chinmobi.aio.act.AIOWritableActEntry;
 import com.chinmobi.aio.impl.nio.Session;
 import com.chinmobi.aio.impl.nio.TransportChannel;
@@ -85,6 +88,37 @@ public final class InputActor extends BaseActor<AIOInputActResult> implements AI
 		return runRequest(sessionId, request, msecs);
 	}
 
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOInputActor#read(...)
+	 */
+	public final AIOFuture<AIOInputActResult> read(final int sessionId,
+			final AIOReadEntryPool pool, final AIOFutureCallback<AIOInputActResult> callback, final long timeout, final TimeUnit unit,
+			final AIOInputActStrategy strategy, final Object attachment)
+					throws AIOClosedSessionException, IllegalArgumentException {
+		return addRequest(sessionId,
+				pool, callback, timeout, unit,
+				strategy, attachment).future();
+	}
+
+	public final InputActRequest addRequest(final int sessionId,
+			final AIOReadEntryPool pool, final AIOFutureCallback<AIOInputActResult> callback, final long timeout, final TimeUnit unit,
+			final AIOInputActStrategy strategy, final Object attachment)
+					throws AIOClosedSessionException, IllegalArgumentException {
+
+		if (pool == null) {
+			throw new IllegalArgumentException("Null pool.");
+		}
+
+		final long msecs = unit.toMillis(timeout);
+
+		final InputActRequest request = actRequestFactory().createInputActRequest();
+
+		request.set(pool, callback, msecs, attachment);
+		request.setStrategy(strategy);
+
+		return runRequest(sessionId, request, msecs);
+	}
+
 	private final ActRequestFactory actRequestFactory() {
 		return this.session.context().actRequestFactory();
 	}
@@ -140,8 +174,10 @@ public final class InputActor extends BaseActor<AIOInputActResult> implements AI
 			if (handleLegacy(request)) {
 				request = currentRequest();
 				continue;
-			} else if (!isReadyOps) {
+			} else if (!isReadyOps && !request.isDiskCompleted()) {
 				break;
+			} else if (this.session.isYielded()) {
+				return 1;
 			}
 
 			try {
@@ -168,6 +204,10 @@ public final class InputActor extends BaseActor<AIOInputActResult> implements AI
 				case BaseActRequest.STATUS_NULL_CHANNEL:
 					return this.session.isInputShutdown() ? 1 : 0;
 
+				case BaseActRequest.STATUS_TO_PENDING:
+					// Resumed when the disk operation is completed.
+					return 1;
+
 				default:
 					return 1;
 				}
@@ -292,6 +332,69 @@ public final class InputActor extends BaseActor<AIOInputActResult> implements AI
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOInputActor#viewLegacy(int sessionId)
+	 */
+	public final AIOInputLegacyView viewLegacy(final int sessionId) throws AIOClosedSessionException {
+		synchronized (this.session.requestLock()) {
+			if (this.session.id() == sessionId && this.session.isOpen()) {
+				if (hasLegacy()) {
+					final ByteBuffer[] byteBuffers = new ByteBuffer[this.legacyStack.topIndex() + 1];
+					int count = 0;
+
+					LegacyChannel legacyChannel = this.legacyStack.topLegacyChannel();
+					while (legacyChannel != null) {
+						if (legacyChannel.remaining() > 0) {
+							final ByteBuffer byteBuffer = legacyChannel.viewBuffer();
+							if (byteBuffer == null) {
+								break;
+							}
+							byteBuffers[count++] = byteBuffer;
+						}
+
+						legacyChannel = legacyChannel.next;
+					}
+
+					return new LegacyView(byteBuffers, count);
+				}
+
+				return new LegacyView(null, 0);
+			} else {
+				throw new AIOClosedSessionException("Session ID: " + sessionId);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOInputActor#skipLegacy(int sessionId, long count)
+	 */
+	public final long skipLegacy(final int sessionId, long count) throws AIOClosedSessionException {
+		synchronized (this.session.requestLock()) {
+			if (this.session.id() == sessionId && this.session.isOpen()) {
+				long skipped = 0;
+
+				while (count > 0 && hasLegacy()) {
+					final LegacyChannel legacyChannel = this.legacyStack.topLegacyChannel();
+
+					final long skips = legacyChannel.skip(count);
+					skipped += skips;
+					count -= skips;
+
+					if (legacyChannel.remaining() > 0) {
+						break;
+					}
+
+					this.legacyStack.popLegacyChannel();
+					legacyChannel.release();
+				}
+
+				return skipped;
+			} else {
+				throw new AIOClosedSessionException("Session ID: " + sessionId);
+			}
+		}
+	}
+
 	@Override
 	protected final void terminated() {
 		releaseAllLegacy();
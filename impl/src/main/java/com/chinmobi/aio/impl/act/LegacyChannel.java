@@ -155,6 +155,39 @@ public final class LegacyChannel implements ScatteringByteChannel {
 		return this.length;
 	}
 
+	/**
+	 *
+	 * @return the read-only duplicate of the remaining bytes, null if the legacy is not backed by a buffer.
+	 */
+	final ByteBuffer viewBuffer() {
+		final ByteBuffer byteBuffer = this.legacy.byteBuffer();
+		if (byteBuffer != null) {
+			final ByteBuffer view = byteBuffer.asReadOnlyBuffer();
+			view.limit((int)(this.offset + this.length)).position((int)this.offset);
+			return view;
+		}
+		return null;
+	}
+
+	final long skip(long count) {
+		if (count > this.length) {
+			count = this.length;
+		}
+
+		if (count > 0) {
+			this.offset += count;
+			this.length -= count;
+
+			final ByteBuffer byteBuffer = this.legacy.byteBuffer();
+			if (byteBuffer != null) {
+				byteBuffer.position((int)this.offset);
+			}
+
+			return count;
+		}
+		return 0;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.io.Closeable#close()
 	 */
@@ -0,0 +1,216 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.impl.act;
+
+import java.nio.ByteBuffer;
+
+import com.chinmobi.aio.act.AIOInputLegacyView;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+final class LegacyView implements AIOInputLegacyView {
+
+	private static final ByteBuffer[] EMPTY_BUFFERS = new ByteBuffer[0];
+
+	private final ByteBuffer[] byteBuffers;
+
+	private int first;
+	private long length;
+
+
+	LegacyView(final ByteBuffer[] byteBuffers, final int count) {
+		if (count > 0) {
+			if (byteBuffers.length == count) {
+				this.byteBuffers = byteBuffers;
+			} else {
+				this.byteBuffers = new ByteBuffer[count];
+				System.arraycopy(byteBuffers, 0, this.byteBuffers, 0, count);
+			}
+		} else {
+			this.byteBuffers = EMPTY_BUFFERS;
+		}
+
+		long length = 0;
+		for (int i = 0; i < count; ++i) {
+			length += this.byteBuffers[i].remaining();
+		}
+
+		this.first = 0;
+		this.length = length;
+	}
+
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOInputLegacyView#byteBuffers()
+	 */
+	public final ByteBuffer[] byteBuffers() {
+		return this.byteBuffers;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOInputLegacyView#length()
+	 */
+	public final long length() {
+		return this.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOInputLegacyView#get(long)
+	 */
+	public final byte get(long index) {
+		if (index < 0 || index >= this.length) {
+			throw new IndexOutOfBoundsException("index: " + index + ", length: " + this.length);
+		}
+
+		for (int i = this.first; i < this.byteBuffers.length; ++i) {
+			final ByteBuffer buffer = this.byteBuffers[i];
+			final int remaining = buffer.remaining();
+
+			if (index < remaining) {
+				return buffer.get(buffer.position() + (int)index);
+			}
+
+			index -= remaining;
+		}
+
+		throw new IndexOutOfBoundsException("index: " + index);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOInputLegacyView#indexOf(byte, long)
+	 */
+	public final long indexOf(final byte value, final long fromIndex) {
+		if (fromIndex < 0 || fromIndex >= this.length) {
+			return -1;
+		}
+
+		long base = 0;
+		for (int i = this.first; i < this.byteBuffers.length; ++i) {
+			final ByteBuffer buffer = this.byteBuffers[i];
+			final int position = buffer.position();
+			final int limit = buffer.limit();
+
+			int index = position;
+			if (fromIndex > base) {
+				if (fromIndex - base >= limit - position) {
+					base += limit - position;
+					continue;
+				}
+				index += (int)(fromIndex - base);
+			}
+
+			for (; index < limit; ++index) {
+				if (buffer.get(index) == value) {
+					return base + (index - position);
+				}
+			}
+
+			base += limit - position;
+		}
+
+		return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOInputLegacyView#indexOf(byte[], long)
+	 */
+	public final long indexOf(final byte[] delimiter, long fromIndex) {
+		if (delimiter.length == 0) {
+			return (fromIndex >= 0 && fromIndex <= this.length) ? fromIndex : -1;
+		}
+
+		for (;;) {
+			final long index = indexOf(delimiter[0], fromIndex);
+			if (index < 0 || index + delimiter.length > this.length) {
+				return -1;
+			}
+
+			if (matches(delimiter, index)) {
+				return index;
+			}
+
+			fromIndex = index + 1;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.act.AIOInputLegacyView#skip(long)
+	 */
+	public final long skip(final long count) {
+		long left = (count < this.length) ? count : this.length;
+		if (left <= 0) {
+			return 0;
+		}
+
+		final long skipped = left;
+
+		while (left > 0) {
+			final ByteBuffer buffer = this.byteBuffers[this.first];
+			final int remaining = buffer.remaining();
+
+			if (left < remaining) {
+				buffer.position(buffer.position() + (int)left);
+				break;
+			}
+
+			buffer.position(buffer.limit());
+			left -= remaining;
+			++this.first;
+		}
+
+		this.length -= skipped;
+
+		return skipped;
+	}
+
+	private final boolean matches(final byte[] delimiter, final long index) {
+		int i = this.first;
+		long offset = index;
+
+		ByteBuffer buffer = this.byteBuffers[i];
+		while (offset >= buffer.remaining()) {
+			offset -= buffer.remaining();
+			buffer = this.byteBuffers[++i];
+		}
+
+		int position = buffer.position() + (int)offset;
+
+		for (int j = 0; j < delimiter.length; ++j) {
+			while (position >= buffer.limit()) {
+				buffer = this.byteBuffers[++i];
+				position = buffer.position();
+			}
+
+			if (buffer.get(position++) != delimiter[j]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+}
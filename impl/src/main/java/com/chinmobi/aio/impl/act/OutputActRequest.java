@@ -31,6 +31,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.WritableByteChannel;
 
@@ -39,7 +40,11 @@ import com.chinmobi.aio.act.AIOActEntryRuntimeException;
 import com.chinmobi.aio.act.AIODatagramActEntry;
 import com.chinmobi.aio.act.AIODatagramReadableActEntry;
 import com.chinmobi.aio.act.AIOOutputActResult;
+import com.chinmobi.aio.act.AIOMultipartActEntry;
 import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOSegmentedActEntry;
+import com.chinmobi.aio.impl.nio.DiskScheduler;
+import com.chinmobi.aio.impl.nio.FileTransferableChannel;
 import com.chinmobi.aio.impl.nio.Session;
 import com.chinmobi.aio.impl.nio.TransportChannel;
 
@@ -50,8 +55,20 @@ import com.chinmobi.aio.impl.nio.TransportChannel;
 public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 	implements AIOOutputActResult {
 
+	private static final int CORK_SIZE = 8 * 1024;
+
 	private final ActRequestFactory requestFactory;
 
+	private int partIndex;
+	private long partTransferred;
+	private long partLength;
+
+	private ByteBuffer[] gathers;
+	private ByteBuffer corkBuffer;
+	private int corkPart;
+
+	private DiskOperation diskOperation;
+
 
 	OutputActRequest(final ActRequestFactory requestFactory) {
 		super(requestFactory.sessionContext());
@@ -98,9 +115,23 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 				} catch (IOException ex) {
 					throw new IllegalArgumentException(ex.getMessage(), ex);
 				}
+			} else if (source instanceof AIOSegmentedActEntry) {
+				// The segments themselves delimit what to transfer.
+				count = segmentsRemaining((AIOSegmentedActEntry)source);
+			} else if (source instanceof AIOMultipartActEntry) {
+				count = partsRemaining((AIOMultipartActEntry)source);
 			}
 		}
 
+		this.partIndex = 0;
+		this.partTransferred = 0;
+		this.partLength = -1;
+		this.corkPart = -1;
+
+		if (this.diskOperation != null) {
+			this.diskOperation.reset(false);
+		}
+
 		super.set(source, position, count, timeout, attachment);
 
 		this.future.set(this.futureReleaseCallback(), this.futureCancellable(),
@@ -124,7 +155,7 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 	final int outputReady(final Session session, final TransportChannel transportChannel) throws IOException {
 		final WritableByteChannel outputChannel = transportChannel.writableChannel();
 		if (outputChannel != null) {
-			return outputReady(session, outputChannel);
+			return outputReady(outputChannel, session);
 		} else {
 			final DatagramChannel datagramChannel = transportChannel.datagramChannel();
 			if (datagramChannel != null) {
@@ -143,7 +174,7 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 						final AIODatagramReadableActEntry entry = (AIODatagramReadableActEntry)this.entry;
 						final SocketAddress remote = entry.getRemoteSocketAddress();
 						if (remote != null) {
-							return sendFromBuffer(buffer, datagramChannel, remote);
+							return sendFromBuffer(buffer, datagramChannel, remote, session);
 						}
 					}
 				}
@@ -155,15 +186,28 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 
 	@Override
 	final int outputReady(final Session session, final WritableByteChannel outputChannel) throws IOException {
+		return outputReady(outputChannel, null);
+	}
+
+	private final int outputReady(final WritableByteChannel outputChannel, final Session quantumSession) throws IOException {
 		synchronized (this.future.lock()) {
 			if (!this.future.isDone()) {
 				final ByteBuffer buffer = this.entry.byteBuffer();
 				if (buffer != null) {
-					return writeFromBuffer(buffer, outputChannel);
+					return writeFromBuffer(buffer, outputChannel, quantumSession);
 				} else {
 					final FileChannel fileChannel = this.entry.fileChannel();
 					if (fileChannel != null) {
-						return writeFromFile(fileChannel, outputChannel);
+						final DiskScheduler diskScheduler = (quantumSession != null) ?
+								quantumSession.context().diskScheduler() : null;
+						if (diskScheduler != null) {
+							return writeFromFileStaged(diskScheduler, fileChannel, outputChannel, quantumSession);
+						}
+						return writeFromFile(fileChannel, outputChannel, quantumSession);
+					} else if (this.entry instanceof AIOSegmentedActEntry) {
+						return writeFromBuffers((AIOSegmentedActEntry)this.entry, outputChannel, quantumSession);
+					} else if (this.entry instanceof AIOMultipartActEntry) {
+						return writeFromParts((AIOMultipartActEntry)this.entry, outputChannel, quantumSession);
 					}
 				}
 			}
@@ -171,7 +215,8 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 		return STATUS_DO_NOTHING;
 	}
 
-	private final int writeFromBuffer(final ByteBuffer buffer, final WritableByteChannel channel) throws IOException {
+	private final int writeFromBuffer(final ByteBuffer buffer, final WritableByteChannel channel,
+			final Session quantumSession) throws IOException {
 		try {
 			for (;;) {
 				final int writes = channel.write(buffer);
@@ -180,7 +225,11 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 					this.completedCount += writes;
 					this.count -= writes;
 
+					final boolean exhausted = chargeQuantum(quantumSession, writes);
 					if (this.count > 0) {
+						if (exhausted) {
+							return STATUS_TO_YIELD;
+						}
 						continue;
 					}
 				} else
@@ -205,19 +254,383 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 		}
 	}
 
-	private final int writeFromFile(final FileChannel fileChannel, final WritableByteChannel channel) throws IOException {
+	private final int writeFromBuffers(final AIOSegmentedActEntry entry, final WritableByteChannel channel,
+			final Session quantumSession) throws IOException {
+		final ByteBuffer[] buffers = entry.byteBuffers();
+		final int end = entry.segmentOffset() + entry.segmentLength();
+
+		int offset = entry.segmentOffset();
+
+		try {
+			while (this.count > 0) {
+				while (offset < end && !buffers[offset].hasRemaining()) {
+					++offset;
+				}
+				if (offset >= end) {
+					break;
+				}
+
+				final long writes;
+				if (channel instanceof GatheringByteChannel) {
+					writes = ((GatheringByteChannel)channel).write(buffers, offset, end - offset);
+				} else {
+					writes = channel.write(buffers[offset]);
+				}
+
+				if (writes > 0) {
+					this.completedCount += writes;
+					this.count -= writes;
+
+					if (chargeQuantum(quantumSession, writes) && this.count > 0) {
+						return STATUS_TO_YIELD;
+					}
+				} else {
+					return (this.count > 0) ? STATUS_TO_CONTINUE : STATUS_TO_TERMINATE;
+				}
+			}
+
+			return STATUS_TO_TERMINATE;
+
+		} catch (ClosedChannelException ex) {	// ClosedChannelException,
+												// AsynchronousCloseException, ClosedByInterruptException
+			throw ex;
+		} catch (IOException ex) {
+			throw ex;
+		} catch (RuntimeException ex) {	// NonWritableChannelException
+			throw ex;
+		}
+	}
+
+	static final long segmentsRemaining(final AIOSegmentedActEntry entry) {
+		final ByteBuffer[] buffers = entry.byteBuffers();
+		final int end = entry.segmentOffset() + entry.segmentLength();
+
+		long remaining = 0;
+		for (int i = entry.segmentOffset(); i < end; ++i) {
+			remaining += buffers[i].remaining();
+		}
+		return remaining;
+	}
+
+	private final int writeFromParts(final AIOMultipartActEntry entry, final WritableByteChannel channel,
+			final Session quantumSession) throws IOException {
+		final int partCount = entry.partCount();
+
+		try {
+			while (this.count > 0) {
+				// Skips the parts already transferred.
+				for (; this.partIndex < partCount; ++this.partIndex, this.partTransferred = 0, this.partLength = -1) {
+					final AIOReadableActEntry part = entry.part(this.partIndex);
+					final ByteBuffer buffer = part.byteBuffer();
+					if (buffer != null) {
+						if (buffer.hasRemaining()) {
+							break;
+						}
+					} else if (this.partTransferred < currentPartLength(part)) {
+						break;
+					}
+				}
+				if (this.partIndex >= partCount) {
+					break;
+				}
+
+				final AIOReadableActEntry part = entry.part(this.partIndex);
+
+				if (this.corkPart == this.partIndex) {
+					// The head of this part was read into the cork buffer.
+					this.partTransferred = this.corkBuffer.position();
+					if (!this.corkBuffer.hasRemaining()) {
+						this.corkPart = -1;
+						continue;
+					}
+				}
+
+				final long writes;
+				if (part.byteBuffer() != null) {
+					writes = writeGathers(entry, channel);
+				} else
+				if (this.corkPart == this.partIndex) {
+					writes = channel.write(this.corkBuffer);
+				} else {
+					final FileChannel fileChannel = part.fileChannel();
+					final long position = part.position() + this.partTransferred;
+					final long count = currentPartLength(part) - this.partTransferred;
+
+					if (channel instanceof FileTransferableChannel) {
+						writes = ((FileTransferableChannel)channel).transferFrom(fileChannel, position, count);
+					} else {
+						writes = fileChannel.transferTo(position, count, channel);
+					}
+					this.partTransferred += writes;
+				}
+
+				if (writes > 0) {
+					this.completedCount += writes;
+					this.count -= writes;
+
+					if (chargeQuantum(quantumSession, writes) && this.count > 0) {
+						return STATUS_TO_YIELD;
+					}
+				} else {
+					return (this.count > 0) ? STATUS_TO_CONTINUE : STATUS_TO_TERMINATE;
+				}
+			}
+
+			return STATUS_TO_TERMINATE;
+
+		} catch (ClosedChannelException ex) {	// ClosedChannelException,
+												// AsynchronousCloseException, ClosedByInterruptException
+			throw ex;
+		} catch (IOException ex) {
+			if (channel.isOpen()) {
+				throw new AIOActEntryRuntimeException(ex);
+			} else {
+				throw ex;
+			}
+		} catch (NonWritableChannelException ex) {
+			throw ex;
+		} catch (RuntimeException ex) {	// IllegalArgumentException,
+										// NonReadableChannelException
+			throw new AIOActEntryRuntimeException(ex);
+		}
+	}
+
+	/**
+	 * Writes the adjacent buffer parts at once, small ones are corked
+	 * together with the head of the following file part.
+	 */
+	private final long writeGathers(final AIOMultipartActEntry entry, final WritableByteChannel channel)
+			throws IOException {
+		final int partCount = entry.partCount();
+
+		ByteBuffer[] gathers = this.gathers;
+		int length = 0;
+		long remaining = 0;
+
+		int index = this.partIndex;
+		for (; index < partCount; ++index) {
+			final ByteBuffer buffer = entry.part(index).byteBuffer();
+			if (buffer == null) {
+				break;
+			}
+
+			if (gathers == null || length >= gathers.length - 1) {
+				final ByteBuffer[] newGathers = new ByteBuffer[(length + 2) << 1];
+				if (gathers != null) {
+					System.arraycopy(gathers, 0, newGathers, 0, length);
+				}
+				gathers = newGathers;
+				this.gathers = newGathers;
+			}
+
+			gathers[length++] = buffer;
+			remaining += buffer.remaining();
+		}
+
+		if (index < partCount && remaining < CORK_SIZE && fillCorkBuffer(entry.part(index), index)) {
+			gathers[length++] = this.corkBuffer;
+		}
+
+		try {
+			final long writes;
+			if (length == 1) {
+				writes = channel.write(gathers[0]);
+			} else if (channel instanceof GatheringByteChannel) {
+				writes = ((GatheringByteChannel)channel).write(gathers, 0, length);
+			} else {
+				long total = 0;
+				for (int i = 0; i < length; ++i) {
+					final int n = channel.write(gathers[i]);
+					total += n;
+					if (gathers[i].hasRemaining()) {
+						break;
+					}
+				}
+				writes = total;
+			}
+
+			return writes;
+		} finally {
+			for (int i = 0; i < length; ++i) {
+				gathers[i] = null;
+			}
+		}
+	}
+
+	private final boolean fillCorkBuffer(final AIOReadableActEntry part, final int index) throws IOException {
+		if (this.corkPart == index) {
+			return this.corkBuffer.hasRemaining();
+		}
+
+		final FileChannel fileChannel = part.fileChannel();
+		if (fileChannel == null) {
+			return false;
+		}
+
+		final long length = partLength(part);
+		if (length <= 0) {
+			return false;
+		}
+
+		ByteBuffer corkBuffer = this.corkBuffer;
+		if (corkBuffer == null) {
+			corkBuffer = ByteBuffer.allocateDirect(CORK_SIZE);
+			this.corkBuffer = corkBuffer;
+		}
+
+		corkBuffer.clear();
+		if (length < CORK_SIZE) {
+			corkBuffer.limit((int)length);
+		}
+
+		final int reads = fileChannel.read(corkBuffer, part.position());
+		corkBuffer.flip();
+
+		if (reads > 0) {
+			this.corkPart = index;
+			return true;
+		}
+		return false;
+	}
+
+	static final long partsRemaining(final AIOMultipartActEntry entry) {
+		final int partCount = entry.partCount();
+
+		long remaining = 0;
+		for (int i = 0; i < partCount; ++i) {
+			final AIOReadableActEntry part = entry.part(i);
+			final ByteBuffer buffer = part.byteBuffer();
+			if (buffer != null) {
+				remaining += buffer.remaining();
+			} else {
+				try {
+					remaining += partLength(part);
+				} catch (IOException ex) {
+					throw new IllegalArgumentException(ex.getMessage(), ex);
+				}
+			}
+		}
+		return remaining;
+	}
+
+	private final long currentPartLength(final AIOReadableActEntry part) throws IOException {
+		if (this.partLength < 0) {
+			this.partLength = partLength(part);
+		}
+		return this.partLength;
+	}
+
+	/**
+	 * Resolves the count of a file part, a negative count runs to the end of the file.
+	 */
+	static final long partLength(final AIOReadableActEntry part) throws IOException {
+		long count = part.count();
+
+		final FileChannel fileChannel = part.fileChannel();
+		if (fileChannel != null) {
+			final long fileSize = fileChannel.size();
+			final long position = (part.position() < 0) ? 0 : part.position();
+
+			if (position >= fileSize) {
+				return 0;
+			}
+
+			if (count < 0 || (position + count) > fileSize) {
+				count = fileSize - position;
+			}
+		} else if (count < 0) {
+			count = 0;
+		}
+		return count;
+	}
+
+	/**
+	 * Reads the file into the staging buffer on the disk executor, and writes the buffer
+	 * to the channel when the session is activated again.
+	 */
+	private final int writeFromFileStaged(final DiskScheduler diskScheduler, final FileChannel fileChannel,
+			final WritableByteChannel channel, final Session session) throws IOException {
+		DiskOperation operation = this.diskOperation;
+		if (operation == null) {
+			operation = new DiskOperation(diskScheduler.bufferSize());
+			operation.reset(false);
+			this.diskOperation = operation;
+		} else if (operation.isPending()) {
+			return STATUS_TO_PENDING;
+		}
+
+		operation.testAndClearCompleted();
+		operation.checkFailure();
+
+		final ByteBuffer buffer = operation.buffer();
+
 		try {
 			for (;;) {
-				final long writes = fileChannel.transferTo(
-						this.position + this.completedCount, this.count, channel);
+				if (buffer.hasRemaining()) {
+					final int writes = channel.write(buffer);
+
+					if (writes > 0) {
+						this.completedCount += writes;
+						this.count -= writes;
+
+						final boolean exhausted = chargeQuantum(session, writes);
+						if (this.count <= 0) {
+							return STATUS_TO_TERMINATE;
+						}
+
+						if (exhausted) {
+							return STATUS_TO_YIELD;
+						}
+						continue;
+					}
+
+					return STATUS_TO_CONTINUE;
+				}
+
+				if (this.count <= 0 || operation.endOfFile()) {
+					return STATUS_TO_TERMINATE;
+				}
+
+				operation.read(diskScheduler, session, fileChannel,
+						this.position + this.completedCount, this.count);
+				return STATUS_TO_PENDING;
+			}
+
+		} catch (ClosedChannelException ex) {	// ClosedChannelException,
+												// AsynchronousCloseException, ClosedByInterruptException
+			throw ex;
+		} catch (IOException ex) {
+			throw ex;
+		} catch (RuntimeException ex) {	// NonWritableChannelException
+			throw ex;
+		}
+	}
+
+	private final int writeFromFile(final FileChannel fileChannel, final WritableByteChannel channel,
+			final Session quantumSession) throws IOException {
+		try {
+			for (;;) {
+				final long writes;
+				if (channel instanceof FileTransferableChannel) {
+					writes = ((FileTransferableChannel)channel).transferFrom(fileChannel,
+							this.position + this.completedCount, this.count);
+				} else {
+					writes = fileChannel.transferTo(
+							this.position + this.completedCount, this.count, channel);
+				}
 
 				if (writes > 0) {
 					this.completedCount += writes;
 					this.count -= writes;
 
+					final boolean exhausted = chargeQuantum(quantumSession, writes);
 					if (this.count <= 0) {
 						return STATUS_TO_TERMINATE;
 					}
+
+					if (exhausted) {
+						return STATUS_TO_YIELD;
+					}
 				} else {
 					break;
 				}
@@ -242,8 +655,8 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 	}
 
 	private final int sendFromBuffer(final ByteBuffer buffer, final DatagramChannel channel,
-			final SocketAddress remote) throws SocketException, IOException {
-		final int sendSize = channel.socket().getSendBufferSize();
+			final SocketAddress remote, final Session quantumSession) throws SocketException, IOException {
+		final int sendSize = quantumSession.outputActor().sendBufferSize(channel);
 		final int oldLimit = buffer.limit();
 		try {
 			while (this.count > 0) {
@@ -254,6 +667,10 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 				if (sends > 0) {
 					this.completedCount += sends;
 					this.count -= sends;
+
+					if (chargeQuantum(quantumSession, sends) && this.count > 0) {
+						return STATUS_TO_YIELD;
+					}
 				} else {
 					break;
 				}
@@ -280,6 +697,13 @@ public final class OutputActRequest extends BaseActRequest<AIOOutputActResult>
 
 	@Override
 	protected final void released() {
+		final DiskOperation operation = this.diskOperation;
+		if (operation != null && operation.isPending()) {
+			// Leaves the buffer to the pending operation.
+			operation.detach();
+			this.diskOperation = null;
+		}
+
 		super.released();
 
 		this.requestFactory.releaseActRequest(this);
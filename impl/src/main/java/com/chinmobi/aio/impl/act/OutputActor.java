@@ -24,15 +24,22 @@
  */
 package com.chinmobi.aio.impl.act;
 
+import java.io.IOException;
+import java.net.SocketException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 
 import com.chinmobi.aio.AIOClosedSessionException;
 import com.chinmobi.aio.AIOFuture;
 import com.chinmobi.aio.AIOFutureCallback;
 import com.chinmobi.aio.act.AIOActEntryRuntimeException;
+import com.chinmobi.aio.act.AIODatagramOutputQueue;
 import com.chinmobi.aio.act.AIOOutputActResult;
 import com.chinmobi.aio.act.AIOOutputActor;
 import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.impl.nio.CorkableChannel;
 import com.chinmobi.aio.impl.nio.Session;
 import com.chinmobi.aio.impl.nio.TransportChannel;
 
@@ -42,9 +49,73 @@ import com.chinmobi.aio.impl.nio.TransportChannel;
  */
 public final class OutputActor extends BaseActor<AIOOutputActResult> implements AIOOutputActor {
 
+	private volatile DatagramOutputQueue datagramQueue;
+
+	// Cached for the lifetime of the session.
+	private int sendBufferSize;
+
+	// Written while corked, accomplished once the corked data is flushed.
+	private final ArrayList<BaseActRequest<AIOOutputActResult>> corkedRequests;
+
 
 	public OutputActor(final Session session) {
 		super(session);
+
+		this.corkedRequests = new ArrayList<BaseActRequest<AIOOutputActResult>>();
+	}
+
+
+	@Override
+	public final void reset() {
+		super.reset();
+
+		this.datagramQueue = null;
+		this.sendBufferSize = 0;
+	}
+
+	@Override
+	protected final void terminated() {
+		final DatagramOutputQueue queue = this.datagramQueue;
+		if (queue != null) {
+			queue.close();
+		}
+
+		super.terminated();
+	}
+
+	final int sendBufferSize(final DatagramChannel channel) throws SocketException {
+		int size = this.sendBufferSize;
+		if (size <= 0) {
+			size = channel.socket().getSendBufferSize();
+			this.sendBufferSize = size;
+		}
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.chinmobi.aio.AIOOutputActor#datagramQueue(int sessionId, int capacity)
+	 */
+	public final AIODatagramOutputQueue datagramQueue(final int sessionId, final int capacity)
+			throws AIOClosedSessionException {
+		synchronized (this.session.requestLock()) {
+			if (this.session.id() == sessionId && this.session.isOpen()) {
+				if (this.session.datagramChannel() == null || this.session.isOutputShutdown()) {
+					throw new UnsupportedOperationException("Datagram output");
+				}
+
+				DatagramOutputQueue queue = this.datagramQueue;
+				if (queue == null) {
+					if (capacity <= 0) {
+						throw new IllegalArgumentException("Illegal capacity: " + capacity);
+					}
+					queue = new DatagramOutputQueue(this.session, capacity);
+					this.datagramQueue = queue;
+				}
+				return queue;
+			}
+		}
+
+		throw new AIOClosedSessionException("Session ID: " + sessionId);
 	}
 
 
@@ -133,51 +204,98 @@ public final class OutputActor extends BaseActor<AIOOutputActResult> implements
 			return -1;
 		}
 
-		while (request != null) {
-			if (ENABLE_TRACE != 0) this.trace(true, 'X');
-
+		final DatagramOutputQueue queue = this.datagramQueue;
+		if (queue != null && !queue.isEmpty()) {
+			final DatagramChannel channel = transportChannel.datagramChannel();
 			try {
-				final int status = request.outputReady(this.session, transportChannel);
-				if (ENABLE_TRACE != 0) {
-					this.trace(true, '=', status);
-					this.traceValue(request.completedCount());
+				if (channel == null || !queue.flush(channel)) {
+					this.session.setOutputEvent();
+					return 1;
 				}
+			} catch (IOException ex) {
+				queue.close();
+				this.session.shutdownOutput(true);
+				return 1;
+			}
 
-				switch (status) {
-				case BaseActRequest.STATUS_DO_NOTHING:
-				case BaseActRequest.STATUS_TO_TERMINATE:
-					if (nextRequest(request) == null) {
-						this.session.clearOutputEvent();
-					}
-					request.accomplished();
-					break;
+			if (request == null) {
+				// Re-armed below if more datagrams are queued meanwhile.
+				this.session.clearOutputEvent();
+			}
+		}
 
-				case BaseActRequest.STATUS_NO_MATCHED_ENTRY:
-				case BaseActRequest.STATUS_NULL_CHANNEL:
-					this.session.setOutputEvent();
-					return this.session.isOutputShutdown() ? 1 : 0;
+		final CorkableChannel corkable = (request != null) ? corkableChannel(transportChannel) : null;
+		if (corkable != null) {
+			corkable.cork();
+		}
+		try {
+			while (request != null) {
+				if (ENABLE_TRACE != 0) this.trace(true, 'X');
 
-				default:
+				if (this.session.isYielded()) {
 					this.session.setOutputEvent();
 					return 1;
 				}
-			} catch (AIOActEntryRuntimeException ex) {
-				nextRequest(request);
-				request.failed(ex);
-			} catch (Exception ex) {	// IOException, RuntimeException
-				nextRequest(request);
-				this.session.shutdownOutput(true);
-				request.failed(ex);
-			}
 
-			if (!this.session.isOpen()) {
-				this.session.getEventHandler().close();
-				return -1;
-			} else if (this.session.isOutputShutdown()) {
-				break;
+				try {
+					final int status = request.outputReady(this.session, transportChannel);
+					if (ENABLE_TRACE != 0) {
+						this.trace(true, '=', status);
+						this.traceValue(request.completedCount());
+					}
+
+					switch (status) {
+					case BaseActRequest.STATUS_DO_NOTHING:
+					case BaseActRequest.STATUS_TO_TERMINATE:
+						if (nextRequest(request) == null) {
+							this.session.clearOutputEvent();
+						}
+						if (corkable != null) {
+							this.corkedRequests.add(request);
+						} else {
+							request.accomplished();
+						}
+						break;
+
+					case BaseActRequest.STATUS_NO_MATCHED_ENTRY:
+					case BaseActRequest.STATUS_NULL_CHANNEL:
+						this.session.setOutputEvent();
+						return this.session.isOutputShutdown() ? 1 : 0;
+
+					case BaseActRequest.STATUS_TO_PENDING:
+						// Resumed when the disk operation is completed.
+						return 1;
+
+					default:
+						this.session.setOutputEvent();
+						return 1;
+					}
+				} catch (AIOActEntryRuntimeException ex) {
+					nextRequest(request);
+					request.failed(ex);
+				} catch (Exception ex) {	// IOException, RuntimeException
+					nextRequest(request);
+					this.session.shutdownOutput(true);
+					request.failed(ex);
+				}
+
+				if (!this.session.isOpen()) {
+					this.session.getEventHandler().close();
+					return -1;
+				} else if (this.session.isOutputShutdown()) {
+					break;
+				}
+
+				request = currentRequest();
 			}
+		} finally {
+			if (corkable != null) {
+				uncork(corkable);
+			}
+		}
 
-			request = currentRequest();
+		if (queue != null && !queue.isEmpty()) {
+			this.session.setOutputEvent();
 		}
 
 		if (this.session.isShuttingDown()) {
@@ -192,6 +310,36 @@ public final class OutputActor extends BaseActor<AIOOutputActResult> implements
 		return this.session.isOutputShutdown() ? 1 : 0;
 	}
 
+	private static final CorkableChannel corkableChannel(final TransportChannel transportChannel) {
+		final WritableByteChannel channel = transportChannel.writableChannel();
+		if (channel instanceof CorkableChannel) {
+			return (CorkableChannel)channel;
+		}
+		return null;
+	}
+
+	private final void uncork(final CorkableChannel corkable) {
+		IOException cause = null;
+		try {
+			corkable.uncork();
+		} catch (IOException ex) {
+			cause = ex;
+			this.session.shutdownOutput(true);
+		}
+
+		final ArrayList<BaseActRequest<AIOOutputActResult>> requests = this.corkedRequests;
+		final int size = requests.size();
+		for (int i = 0; i < size; ++i) {
+			final BaseActRequest<AIOOutputActResult> request = requests.get(i);
+			if (cause == null) {
+				request.accomplished();
+			} else {
+				request.failed(cause);
+			}
+		}
+		requests.clear();
+	}
+
 	/* (non-Javadoc)
 	 * @see com.chinmobi.aio.AIOOutputActor#getCurrentResult()
 	 */
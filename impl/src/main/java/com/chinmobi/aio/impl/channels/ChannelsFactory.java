@@ -25,6 +25,10 @@
 package com.chinmobi.aio.impl.channels;
 
 import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.NetworkChannel;
 import java.nio.channels.SelectableChannel;
 
 import com.chinmobi.aio.impl.BuildOptions;
@@ -42,10 +46,46 @@ import com.chinmobi.aio.scheme.AIOTransportScheme;
  */
 public final class ChannelsFactory implements BuildOptions {
 
+	// StandardSocketOptions.SO_REUSEPORT is only available since Java 9.
+	private static final SocketOption<Boolean> SO_REUSEPORT = lookupReusePort();
+
+
 	private ChannelsFactory() {
 	}
 
 
+	@SuppressWarnings("unchecked")
+	private static SocketOption<Boolean> lookupReusePort() {
+		try {
+			return (SocketOption<Boolean>)StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+		} catch (Exception ex) {
+			return null;
+		}
+	}
+
+	static void enableReusePort(final NetworkChannel channel) throws IOException {
+		if (SO_REUSEPORT == null || !channel.supportedOptions().contains(SO_REUSEPORT)) {
+			throw new SocketException("SO_REUSEPORT is not supported.");
+		}
+
+		try {
+			channel.setOption(SO_REUSEPORT, Boolean.TRUE);
+		} catch (UnsupportedOperationException ex) {
+			throw new SocketException("SO_REUSEPORT is not supported.");
+		}
+	}
+
+	public static boolean isShardedAcceptor(final AIOTransportScheme scheme) {
+		if (scheme instanceof AIOSocketScheme) {
+			return ((AIOSocketScheme)scheme).isShardedAcceptor();
+		} else
+		if (scheme instanceof AIODatagramScheme) {
+			return ((AIODatagramScheme)scheme).isShardedAcceptor();
+		}
+		return false;
+	}
+
+
 	public static TransportChannel createTransportChannel(final SelectableChannel selectableChannel) {
 return new DefaultTransportChannel(selectableChannel);
 	}
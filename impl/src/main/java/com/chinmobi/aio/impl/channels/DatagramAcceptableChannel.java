@@ -87,6 +87,10 @@ public class DatagramAcceptableChannel implements AcceptableChannel {
 	public final boolean bind(final AIOInetEndpoint addr) throws IOException {
 		final DatagramSocket socket = this.datagramChannel.socket();
 
+		if (this.scheme.isShardedAcceptor()) {
+			ChannelsFactory.enableReusePort(this.datagramChannel);
+		}
+
 		try {
 			this.scheme.prepareBind(socket);
 		} catch (SocketException ex) {
@@ -120,6 +124,10 @@ public class DatagramAcceptableChannel implements AcceptableChannel {
 		return 0;
 	}
 
+	public final int acceptBatchSize() {
+		return 1;
+	}
+
 	public final boolean isAcceptable(final SelectionKey key) {
 		try {
 			return key.isReadable();
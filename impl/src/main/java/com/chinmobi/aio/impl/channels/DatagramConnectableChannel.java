@@ -121,6 +121,7 @@ public final class DatagramConnectableChannel implements ConnectableChannel {
 		} catch (SecurityException ex) {
 			throw ex;
 		}
+		this.transport.connected = true;
 		connected();
 		return true;
 	}
@@ -175,6 +176,9 @@ public final class DatagramConnectableChannel implements ConnectableChannel {
 
 		private final DatagramChannel datagramChannel;
 
+		// Connected once for the session lifetime, saves the locking of isConnected() per act.
+		private volatile boolean connected;
+
 
 		Transport(final DatagramChannel datagramChannel) {
 			this.datagramChannel = datagramChannel;
@@ -195,19 +199,19 @@ public final class DatagramConnectableChannel implements ConnectableChannel {
 		}
 
 		public final ReadableByteChannel readableChannel() {
-			return this.datagramChannel.isConnected() ? this.datagramChannel : null;
+			return this.connected ? this.datagramChannel : null;
 		}
 
 		public final ScatteringByteChannel scatteringChannel() {
-			return this.datagramChannel.isConnected() ? this.datagramChannel : null;
+			return this.connected ? this.datagramChannel : null;
 		}
 
 		public final WritableByteChannel writableChannel() {
-			return this.datagramChannel.isConnected() ? this.datagramChannel : null;
+			return this.connected ? this.datagramChannel : null;
 		}
 
 		public final GatheringByteChannel gatheringChannel() {
-			return this.datagramChannel.isConnected() ? this.datagramChannel : null;
+			return this.connected ? this.datagramChannel : null;
 		}
 
 		public final DatagramChannel datagramChannel() {
@@ -53,6 +53,7 @@ import com.chinmobi.aio.impl.nio.EventHandler;
 import com.chinmobi.aio.impl.nio.HandshakeHandler;
 import com.chinmobi.aio.impl.nio.SessionContext;
 import com.chinmobi.aio.impl.nio.TransportChannel;
+import com.chinmobi.aio.scheme.AIOHandshakeExecutor;
 import com.chinmobi.aio.scheme.AIOSecurityScheme;
 import com.chinmobi.aio.scheme.AIOSocketScheme;
 
@@ -90,6 +91,10 @@ public final class SocketAcceptableChannel implements AcceptableChannel {
 	public final boolean bind(final AIOInetEndpoint addr) throws IOException {
 		final ServerSocket serverSocket = this.serverChannel.socket();
 
+		if (this.scheme.isShardedAcceptor()) {
+			ChannelsFactory.enableReusePort(this.serverChannel);
+		}
+
 		try {
 			this.scheme.prepareBind(serverSocket);
 		} catch (SocketException ex) {
@@ -123,6 +128,10 @@ public final class SocketAcceptableChannel implements AcceptableChannel {
 		return SelectionKey.OP_ACCEPT;
 	}
 
+	public final int acceptBatchSize() {
+		return this.scheme.getAcceptBatchSize();
+	}
+
 	public final boolean isAcceptable(final SelectionKey key) {
 		try {
 			return key.isAcceptable();
@@ -161,7 +170,8 @@ public final class SocketAcceptableChannel implements AcceptableChannel {
 			throw ex;
 		}
 
-		return new Transport(socketChannel, this.scheme.getSecurityScheme());
+		return new Transport(socketChannel, this.scheme.getSecurityScheme(), this.scheme.getHandshakeExecutor(),
+				!this.scheme.isShardedAcceptor());
 	}
 
 	public final void close() {
@@ -181,18 +191,26 @@ public final class SocketAcceptableChannel implements AcceptableChannel {
 
 		private final SocketChannel socketChannel;
 		private final AIOSecurityScheme securityScheme;
+		private final AIOHandshakeExecutor handshakeExecutor;
+
+		private final boolean dispatching;
 
 
-		Transport(final SocketChannel socketChannel, final AIOSecurityScheme securityScheme) {
+		Transport(final SocketChannel socketChannel, final AIOSecurityScheme securityScheme,
+				final AIOHandshakeExecutor handshakeExecutor, final boolean dispatching) {
 			this.socketChannel = socketChannel;
 			this.securityScheme = securityScheme;
+			this.handshakeExecutor = handshakeExecutor;
+			this.dispatching = dispatching;
 		}
 
 
 		public final void execute(final AcceptorHandler acceptorHandler,
 				SessionContext sessionContext, final EventHandler.Executor executor)
 				throws IOException {
-			sessionContext = sessionContext.dispatch();
+			if (this.dispatching) {
+				sessionContext = sessionContext.dispatch();
+			}
 			if (this.securityScheme != null) {
 				final TransportChannel sslTransport = createSSLTransportChannel(acceptorHandler);
 
@@ -204,7 +222,7 @@ public final class SocketAcceptableChannel implements AcceptableChannel {
 
 		private final TransportChannel createSSLTransportChannel(final AcceptorHandler acceptorHandler) {
 			try {
-				return SSLChannelsFactory.createTransportChannel(this.securityScheme, this, false);
+				return SSLChannelsFactory.createTransportChannel(this.securityScheme, this, false, this.handshakeExecutor);
 			} catch (RuntimeException ex) {
 				close();
 				acceptorHandler.fail(ex);
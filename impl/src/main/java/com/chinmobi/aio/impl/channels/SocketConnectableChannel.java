@@ -233,7 +233,8 @@ public final class SocketConnectableChannel implements ConnectableChannel {
 
 	private final TransportChannel createSSLTransportChannel(final EventHandler source) {
 		try {
-			return SSLChannelsFactory.createTransportChannel(this.scheme.getSecurityScheme(), this.transport, true);
+			return SSLChannelsFactory.createTransportChannel(this.scheme.getSecurityScheme(), this.transport, true,
+					this.scheme.getHandshakeExecutor());
 		} catch (RuntimeException ex) {
 			close();
 			if (source != null) source.fail(ex);
@@ -89,6 +89,10 @@ public final class StreamAcceptableChannel implements AcceptableChannel {
 		return 0;
 	}
 
+	public final int acceptBatchSize() {
+		return 1;
+	}
+
 	public final boolean isAcceptable(final SelectionKey key) {
 		try {
 			return key.isReadable();
@@ -0,0 +1,117 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.impl.channels.ssl;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The buffers shared by the SSL sessions, so that an idle session holds no buffer.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+final class SSLBufferPool {
+
+	private static final int MAX_POOLED_BUFFERS = 256;
+
+	static final SSLBufferPool HEAP = new SSLBufferPool(false);
+	static final SSLBufferPool DIRECT = new SSLBufferPool(true);
+
+
+	private final boolean direct;
+
+	private final ConcurrentLinkedQueue<ByteBuffer> buffers;
+	private final AtomicInteger pooledCount;
+
+	private final AtomicInteger acquiredCount;
+	private final AtomicLong acquiredBytes;
+
+
+	private SSLBufferPool(final boolean direct) {
+		this.direct = direct;
+
+		this.buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+		this.pooledCount = new AtomicInteger();
+
+		this.acquiredCount = new AtomicInteger();
+		this.acquiredBytes = new AtomicLong();
+	}
+
+
+	static final SSLBufferPool of(final ByteBuffer buffer) {
+		return buffer.isDirect() ? DIRECT : HEAP;
+	}
+
+	final ByteBuffer acquire(final int capacity) {
+		ByteBuffer buffer = this.buffers.poll();
+		if (buffer != null) {
+			if (buffer.capacity() < capacity) {
+				// Still fits the smaller ones, keeps it pooled.
+				this.buffers.offer(buffer);
+				buffer = null;
+			} else {
+				this.pooledCount.decrementAndGet();
+				buffer.clear();
+			}
+		}
+
+		if (buffer == null) {
+			buffer = this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+		}
+
+		this.acquiredCount.incrementAndGet();
+		this.acquiredBytes.addAndGet(buffer.capacity());
+
+		return buffer;
+	}
+
+	final void release(final ByteBuffer buffer) {
+		this.acquiredCount.decrementAndGet();
+		this.acquiredBytes.addAndGet(-buffer.capacity());
+
+		if (this.pooledCount.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+			buffer.clear();
+			this.buffers.offer(buffer);
+		} else {
+			this.pooledCount.decrementAndGet();
+		}
+	}
+
+	final int acquiredCount() {
+		return this.acquiredCount.get();
+	}
+
+	final long acquiredBytes() {
+		return this.acquiredBytes.get();
+	}
+
+	final int pooledCount() {
+		return this.pooledCount.get();
+	}
+
+}
@@ -24,8 +24,11 @@
  */
 package com.chinmobi.aio.impl.channels.ssl;
 
+import java.nio.channels.WritableByteChannel;
+
 import com.chinmobi.aio.impl.BuildOptions;
 import com.chinmobi.aio.impl.nio.TransportChannel;
+import com.chinmobi.aio.scheme.AIOHandshakeExecutor;
 import com.chinmobi.aio.scheme.AIOSecurityScheme;
 
 /**
@@ -36,11 +39,36 @@ public final class SSLChannelsFactory implements BuildOptions {
 
 	@SuppressWarnings("unused")
 	public static final TransportChannel createTransportChannel(final AIOSecurityScheme scheme, final TransportChannel lowerChannel,
-			final boolean clientMode) {
+			final boolean clientMode, final AIOHandshakeExecutor handshakeExecutor) {
 		if (SUPPORT_SECURITY_SCHEME != 0) {
-return new SSLTransportChannel(scheme, lowerChannel, clientMode);
+return new SSLTransportChannel(scheme, lowerChannel, clientMode, handshakeExecutor);
 		}
 		throw new UnsupportedOperationException("SecurityScheme");
 	}
 
+	/**
+	 * Gets the number of the SSL buffers held by the sessions.
+	 */
+	public static final int getAcquiredBufferCount() {
+		return SSLBufferPool.HEAP.acquiredCount() + SSLBufferPool.DIRECT.acquiredCount();
+	}
+
+	/**
+	 * Gets the total capacity of the SSL buffers held by the sessions.
+	 */
+	public static final long getAcquiredBufferBytes() {
+		return SSLBufferPool.HEAP.acquiredBytes() + SSLBufferPool.DIRECT.acquiredBytes();
+	}
+
+	/**
+	 * Gets the number of the TLS records wrapped so far by the channel,
+	 * or -1 if it is not a SSL one.
+	 */
+	public static final long getWrappedRecordCount(final WritableByteChannel channel) {
+		if (channel instanceof SSLWritableChannel) {
+			return ((SSLWritableChannel)channel).getWrappedRecords();
+		}
+		return -1;
+	}
+
 }
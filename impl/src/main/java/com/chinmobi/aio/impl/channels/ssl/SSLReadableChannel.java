@@ -27,6 +27,7 @@ package com.chinmobi.aio.impl.channels.ssl;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ReadOnlyBufferException;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ScatteringByteChannel;
 
 import javax.net.ssl.SSLEngine;
@@ -47,6 +48,10 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 
 	private ByteBuffer encryptedData;
 	private final ByteBuffer[] plainDatas;
+	private final ByteBuffer[] appDatas;
+
+	private int packetBufferSize;
+	private int appBufferSize;
 
 	private int lastReads;
 
@@ -54,6 +59,7 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 	SSLReadableChannel(final SSLTransportChannel transport) {
 		this.transport = transport;
 		this.plainDatas = new ByteBuffer[1];
+		this.appDatas = new ByteBuffer[1];
 	}
 
 
@@ -64,10 +70,70 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 	}
 
 	private final void doInit() {
+		releaseBuffers();
+
 		final SSLSession sslSession = sslEngine().getSession();
 
-		this.encryptedData = ByteBuffer.allocate(sslSession.getPacketBufferSize());
-		this.plainDatas[0] = ByteBuffer.allocate(sslSession.getApplicationBufferSize());
+		this.packetBufferSize = sslSession.getPacketBufferSize();
+		this.appBufferSize = sslSession.getApplicationBufferSize();
+	}
+
+	private final ByteBuffer encryptedData() {
+		ByteBuffer encryptedData = this.encryptedData;
+		if (encryptedData == null) {
+			encryptedData = SSLBufferPool.HEAP.acquire(this.packetBufferSize);
+			this.encryptedData = encryptedData;
+		}
+		return encryptedData;
+	}
+
+	private final ByteBuffer plainData() {
+		ByteBuffer plainData = this.plainDatas[0];
+		if (plainData == null) {
+			plainData = SSLBufferPool.HEAP.acquire(this.appBufferSize);
+			this.plainDatas[0] = plainData;
+		}
+		return plainData;
+	}
+
+	private final boolean hasPlainData() {
+		final ByteBuffer plainData = this.plainDatas[0];
+		return (plainData != null && plainData.position() > 0);
+	}
+
+	/**
+	 * Returns the drained buffers to the pool.
+	 */
+	final void releaseIdleBuffers() {
+		final ByteBuffer encryptedData = this.encryptedData;
+		if (encryptedData != null && encryptedData.position() == 0) {
+			this.encryptedData = null;
+			SSLBufferPool.HEAP.release(encryptedData);
+		}
+
+		final ByteBuffer plainData = this.plainDatas[0];
+		if (plainData != null && plainData.position() == 0) {
+			this.plainDatas[0] = null;
+			SSLBufferPool.HEAP.release(plainData);
+		}
+	}
+
+	final void releaseBuffers() {
+		if (this.encryptedData != null) {
+			this.encryptedData.clear();
+		}
+		if (this.plainDatas[0] != null) {
+			this.plainDatas[0].clear();
+		}
+
+		releaseIdleBuffers();
+	}
+
+	private final void ensureOpened() throws ClosedChannelException {
+		// Closed, the buffers have been released and are not to be taken again.
+		if (this.transport.status() == SSLTransportChannel.STATUS_CLOSED) {
+			throw new ClosedChannelException();
+		}
 	}
 
 	private final SSLEngine sslEngine() {
@@ -118,8 +184,11 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 	 */
 	public final int read(final ByteBuffer dst) throws IOException {
 		synchronized (this.transport) {
+			ensureOpened();
+
+			this.appDatas[0] = dst;
 			try {
-				return doRead(dst);
+				return (int)doRead(this.appDatas, 0, 1);
 			} catch (SSLException ex) {
 				this.transport.toShuttingDown();
 				this.transport.handleUncaughtException(ex);
@@ -128,23 +197,28 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 				this.transport.closeInbound();
 				this.transport.toShuttingDown();
 				throw ex;
+			} finally {
+				this.appDatas[0] = null;
+
+				releaseIdleBuffers();
 			}
 		}
 	}
 
-	private final int doRead(final ByteBuffer dst) throws SSLException, IOException {
-		final int position = dst.position();
+	private final long doRead(final ByteBuffer[] dsts, final int dstsOffset, final int dstsLength)
+			throws SSLException, IOException {
+		final long remaining = remaining(dsts, dstsOffset, dstsLength);
 
 		this.lastReads = 0;
 
-		while (dst.hasRemaining()) {
-			if (transferPlainData(dst) > 0) {
+		while (remaining(dsts, dstsOffset, dstsLength) > 0) {
+			if (transferPlainData(dsts, dstsOffset, dstsLength) > 0) {
 				continue;
 			}
 
 			if (readEncryptedData() >= 0) {
 
-				final SSLEngineResult result = unwrap(dst);
+				final SSLEngineResult result = unwrap(dsts, dstsOffset, dstsLength);
 
 				if (result != null) {
 					switch (result.getStatus()) {
@@ -176,7 +250,7 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 			break;
 		}
 
-		final int count = dst.position() - position;
+		final long count = remaining - remaining(dsts, dstsOffset, dstsLength);
 
 		return (count > 0) ? count : ((this.lastReads < 0) ? -1 : 0);
 	}
@@ -185,25 +259,23 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 	 * @see java.nio.channels.ScatteringByteChannel#read(ByteBuffer[] dsts, int offset, int length)
 	 */
 	public final long read(final ByteBuffer[] dsts, final int dstsOffset, final int dstsLength) throws IOException {
-		long count = 0;
-
-		for (int i = dstsOffset; i < dstsLength; ++i) {
-			final int reads = read(dsts[i]);
+		synchronized (this.transport) {
+			ensureOpened();
 
-			if (reads > 0) {
-				count += reads;
-			} else
-			if (reads < 0) {
-				if (count == 0) {
-					count = -1;
-				}
-				break;
-			} else {
-				break;
+			try {
+				return doRead(dsts, dstsOffset, dstsLength);
+			} catch (SSLException ex) {
+				this.transport.toShuttingDown();
+				this.transport.handleUncaughtException(ex);
+				return 0;
+			} catch (IOException ex) {
+				this.transport.closeInbound();
+				this.transport.toShuttingDown();
+				throw ex;
+			} finally {
+				releaseIdleBuffers();
 			}
 		}
-
-		return count;
 	}
 
 	/* (non-Javadoc)
@@ -213,8 +285,37 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 		return read(dsts, 0, dsts.length);
 	}
 
+	private static final long remaining(final ByteBuffer[] dsts, final int dstsOffset, final int dstsLength) {
+		long remaining = 0;
+
+		final int end = dstsOffset + dstsLength;
+		for (int i = dstsOffset; i < end; ++i) {
+			remaining += dsts[i].remaining();
+		}
+		return remaining;
+	}
+
+	private final int transferPlainData(final ByteBuffer[] dsts, final int dstsOffset, final int dstsLength) {
+		int total = 0;
+
+		final int end = dstsOffset + dstsLength;
+		for (int i = dstsOffset; i < end; ++i) {
+			final int count = transferPlainData(dsts[i]);
+			if (count > 0) {
+				total += count;
+			} else
+			if (!hasPlainData()) {
+				break;
+			}
+		}
+		return total;
+	}
+
 	private final int transferPlainData(final ByteBuffer dst) {
 		final ByteBuffer plainData = this.plainDatas[0];
+		if (plainData == null) {
+			return 0;
+		}
 
 		int count = plainData.position();
 		if (count > 0) {
@@ -238,17 +339,35 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 		return count;
 	}
 
-	final SSLEngineResult unwrap(final ByteBuffer appData) throws SSLException, IOException {
+	final SSLEngineResult unwrap() throws SSLException, IOException {
+		return unwrap(null, 0, 0);
+	}
+
+	/**
+	 * Unwraps straight into the caller's buffers when they have room for a whole record
+	 * and nothing is left in the plain data buffer, otherwise through the plain data buffer.
+	 */
+	private final SSLEngineResult unwrap(final ByteBuffer[] appDatas, final int offset, final int length)
+			throws SSLException, IOException {
+		boolean direct = (appDatas != null) && isDirectUnwrapping(appDatas, offset, length);
+
 		for (;;) {
-			final SSLEngineResult result = doUnwrap();
+			final SSLEngineResult result;
+			if (direct) {
+				result = doUnwrap(appDatas, offset, length);
+			} else {
+				plainData();
+				result = doUnwrap(this.plainDatas, 0, 1);
+			}
 
-			if (appData != null) {
+			if (appDatas != null) {
 				switch (result.getHandshakeStatus()) {
 				case NEED_TASK:
 				case NEED_WRAP: case NEED_UNWRAP:
 					if (this.transport.doHandshake() != HandshakeHandler.HANDSHAKE_STATUS_FINISHED) {
 						return null;
 					}
+					direct = isDirectUnwrapping(appDatas, offset, length);
 					continue;
 
 				//case FINISHED:
@@ -260,8 +379,13 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 
 			switch (result.getStatus()) {
 			case BUFFER_OVERFLOW:
-				if (appData != null) {
-					if (transferPlainData(appData) > 0) {
+				if (direct) {
+					direct = false;
+					continue;
+				}
+
+				if (appDatas != null) {
+					if (transferPlainData(appDatas, offset, length) > 0) {
 						continue;
 					}
 				}
@@ -290,11 +414,19 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 		}
 	}
 
-	private final SSLEngineResult doUnwrap() throws SSLException {
-		this.encryptedData.flip();
+	private final boolean isDirectUnwrapping(final ByteBuffer[] appDatas, final int offset, final int length) {
+		return !hasPlainData() &&
+			(remaining(appDatas, offset, length) >= this.appBufferSize);
+	}
+
+	private final SSLEngineResult doUnwrap(final ByteBuffer[] dsts, final int dstsOffset, final int dstsLength)
+			throws SSLException {
+		final ByteBuffer encryptedData = encryptedData();
+
+		encryptedData.flip();
 
 		try {
-			return sslEngine().unwrap(this.encryptedData, this.plainDatas);
+			return sslEngine().unwrap(encryptedData, dsts, dstsOffset, dstsLength);
 		} catch (SSLException ex) {
 			throw ex;
 		} catch (ReadOnlyBufferException ex) {
@@ -310,12 +442,12 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 			}
 			throw new SSLException(cause);
 		} finally {
-			this.encryptedData.compact();
+			encryptedData.compact();
 		}
 	}
 
 	final int readEncryptedData() throws IOException {
-		this.lastReads = lowerChannel().readableChannel().read(this.encryptedData);
+		this.lastReads = lowerChannel().readableChannel().read(encryptedData());
 		return this.lastReads;
 	}
 
@@ -328,15 +460,18 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 
 		final int appSize = sslSession.getApplicationBufferSize();
 
-		final ByteBuffer oldBuffer = this.plainDatas[0];
+		final ByteBuffer oldBuffer = plainData();
 
 		if (appSize > oldBuffer.capacity()) {
-			final ByteBuffer newBuffer = ByteBuffer.allocate(oldBuffer.position() + appSize);
+			this.appBufferSize = appSize;
+
+			final ByteBuffer newBuffer = SSLBufferPool.HEAP.acquire(oldBuffer.position() + appSize);
 
 			oldBuffer.flip();
 			newBuffer.put(oldBuffer);
 
 			this.plainDatas[0] = newBuffer;
+			SSLBufferPool.HEAP.release(oldBuffer);
 
 			return true;
 		}
@@ -348,15 +483,18 @@ public final class SSLReadableChannel implements ScatteringByteChannel {
 
 		final int netSize = sslSession.getPacketBufferSize();
 
-		final ByteBuffer oldBuffer = this.encryptedData;
+		final ByteBuffer oldBuffer = encryptedData();
 
 		if (netSize > oldBuffer.capacity()) {
-			final ByteBuffer newBuffer = ByteBuffer.allocate(netSize);
+			this.packetBufferSize = netSize;
+
+			final ByteBuffer newBuffer = SSLBufferPool.HEAP.acquire(netSize);
 
 			oldBuffer.flip();
 			newBuffer.put(oldBuffer);
 
 			this.encryptedData = newBuffer;
+			SSLBufferPool.HEAP.release(oldBuffer);
 
 			return true;
 		}
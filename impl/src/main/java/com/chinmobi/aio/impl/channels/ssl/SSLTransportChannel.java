@@ -45,6 +45,7 @@ import javax.net.ssl.SSLException;
 import com.chinmobi.aio.impl.nio.HandshakeContext;
 import com.chinmobi.aio.impl.nio.HandshakeHandler;
 import com.chinmobi.aio.impl.nio.TransportChannel;
+import com.chinmobi.aio.scheme.AIOHandshakeExecutor;
 import com.chinmobi.aio.scheme.AIOSecurityScheme;
 
 /**
@@ -60,7 +61,12 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 	static final int STATUS_OPENED = 1;
 	static final int STATUS_HANDSHAKED = 2;
 
+	private static final int TASKS_NONE = 0;
+	private static final int TASKS_RUNNING = 1;
+	private static final int TASKS_DONE = 2;
+
 	private final AIOSecurityScheme scheme;
+	private final AIOHandshakeExecutor handshakeExecutor;
 
 	private final TransportChannel lowerChannel;
 
@@ -75,10 +81,14 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 
 	private int status;
 
+	private volatile int tasksStatus;
+	private volatile SSLException tasksFailure;
+
 
 	public SSLTransportChannel(final AIOSecurityScheme scheme, final TransportChannel lowerChannel,
-			final boolean clientMode) {
+			final boolean clientMode, final AIOHandshakeExecutor handshakeExecutor) {
 		this.scheme = scheme;
+		this.handshakeExecutor = handshakeExecutor;
 		this.lowerChannel = lowerChannel;
 		this.clientMode = clientMode;
 
@@ -150,6 +160,9 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 		this.readableChannel.init();
 		this.writableChannel.init();
 
+		this.tasksStatus = TASKS_NONE;
+		this.tasksFailure = null;
+
 		sslEngine.beginHandshake();
 
 		this.status = STATUS_OPENED;
@@ -192,17 +205,26 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 		if ((readyOps & SelectionKey.OP_WRITE) != 0) {
 			this.writableChannel.flush();
 		} else
-		if ((readyOps & SelectionKey.OP_READ) == 0) {
+		if ((readyOps & SelectionKey.OP_READ) == 0 && this.tasksStatus != TASKS_DONE) {
 			return HANDSHAKE_STATUS_UNCOMPLETED;
 		}
 
-		if (this.status > STATUS_CLOSED) {
-			return doHandshake();
-		} else
-		if (this.status < STATUS_CLOSED) {
-			return shuttingDown();
+		try {
+			if (this.status > STATUS_CLOSED) {
+				return doHandshake();
+			} else
+			if (this.status < STATUS_CLOSED) {
+				return shuttingDown();
+			}
+			return HANDSHAKE_STATUS_FINISHED;
+		} finally {
+			releaseIdleBuffers();
 		}
-		return HANDSHAKE_STATUS_FINISHED;
+	}
+
+	private final synchronized void releaseIdleBuffers() {
+		this.readableChannel.releaseIdleBuffers();
+		this.writableChannel.releaseIdleBuffers();
 	}
 
 	public final SelectableChannel selectableChannel() {
@@ -243,6 +265,9 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 
 		closeSSLEngine();
 
+		this.readableChannel.releaseBuffers();
+		this.writableChannel.releaseBuffers();
+
 		this.lowerChannel.close();
 	}
 
@@ -386,7 +411,7 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 						continue;
 					}
 
-					result = this.readableChannel.unwrap(null);
+					result = this.readableChannel.unwrap();
 
 					switch (result.getStatus()) {
 					case BUFFER_OVERFLOW:
@@ -476,12 +501,29 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 	final synchronized int doHandshake() throws SSLException, IOException {
 		final SSLEngine sslEngine = this.sslEngine;
 
+		switch (this.tasksStatus) {
+		case TASKS_RUNNING:
+			return HANDSHAKE_STATUS_UNCOMPLETED;
+
+		case TASKS_DONE:
+			if (resumeHandshake()) {
+				return HANDSHAKE_STATUS_UNCOMPLETED;
+			}
+			break;
+
+		default:
+			break;
+		}
+
 		SSLEngineResult result = null;
 		int handshakeStatus = HANDSHAKE_STATUS_UNCOMPLETED;
 
 		while (handshakeStatus > 0) {
 			switch (sslEngine.getHandshakeStatus()) {
 			case NEED_TASK:
+				if (delegateTasks(sslEngine)) {
+					return HANDSHAKE_STATUS_UNCOMPLETED;
+				}
 				try {
 					doRunTask(sslEngine);
 				} catch (SSLException ex) {
@@ -532,7 +574,7 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 						return HANDSHAKE_STATUS_UNCOMPLETED;
 					}
 
-					result = this.readableChannel.unwrap(null);
+					result = this.readableChannel.unwrap();
 
 					switch (result.getStatus()) {
 					case BUFFER_OVERFLOW:
@@ -591,6 +633,78 @@ public final class SSLTransportChannel implements TransportChannel, HandshakeHan
 		return handshakeStatus;
 	}
 
+	/**
+	 * Parks the handshake while its delegated tasks are run by the handshake executor,
+	 * the session is reactivated when they are done.
+	 *
+	 * @return false if the tasks should be run inline.
+	 */
+	private final boolean delegateTasks(final SSLEngine sslEngine) {
+		final AIOHandshakeExecutor executor = this.handshakeExecutor;
+		final HandshakeContext context = this.context;
+		if (executor == null || context == null) {
+			return false;
+		}
+
+		this.tasksStatus = TASKS_RUNNING;
+
+		// The input readiness is ignored until the tasks are done.
+		context.clearInputEvent();
+
+		if (executor.execute(new DelegatedTasks(sslEngine, context))) {
+			return true;
+		}
+
+		this.tasksStatus = TASKS_NONE;
+		context.setInputEvent();
+		return false;
+	}
+
+	/**
+	 * @return true if the handshake failed.
+	 */
+	private final boolean resumeHandshake() {
+		this.tasksStatus = TASKS_NONE;
+
+		setInputOutputEvent();
+
+		final SSLException failure = this.tasksFailure;
+		if (failure != null) {
+			this.tasksFailure = null;
+
+			toShuttingDown();
+			handleUncaughtException(failure);
+			return true;
+		}
+		return false;
+	}
+
+	private final class DelegatedTasks implements Runnable {
+
+		private final SSLEngine sslEngine;
+		private final HandshakeContext context;
+
+
+		DelegatedTasks(final SSLEngine sslEngine, final HandshakeContext context) {
+			this.sslEngine = sslEngine;
+			this.context = context;
+		}
+
+
+		public final void run() {
+			try {
+				doRunTask(this.sslEngine);
+			} catch (SSLException ex) {
+				tasksFailure = ex;
+			} finally {
+				tasksStatus = TASKS_DONE;
+
+				this.context.reactivate();
+			}
+		}
+
+	}
+
 	private static final void doRunTask(final SSLEngine sslEngine) throws SSLException {
 		Runnable task = sslEngine.getDelegatedTask();
 		while (task != null) {
@@ -27,6 +27,8 @@ package com.chinmobi.aio.impl.channels.ssl;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ReadOnlyBufferException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.GatheringByteChannel;
 
 import javax.net.ssl.SSLEngine;
@@ -34,6 +36,8 @@ import javax.net.ssl.SSLEngineResult;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSession;
 
+import com.chinmobi.aio.impl.nio.CorkableChannel;
+import com.chinmobi.aio.impl.nio.FileTransferableChannel;
 import com.chinmobi.aio.impl.nio.HandshakeHandler;
 import com.chinmobi.aio.impl.nio.TransportChannel;
 
@@ -41,19 +45,32 @@ import com.chinmobi.aio.impl.nio.TransportChannel;
  * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
  *
  */
-public final class SSLWritableChannel implements GatheringByteChannel {
+public final class SSLWritableChannel implements GatheringByteChannel, FileTransferableChannel, CorkableChannel {
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+	private static final ByteBuffer[] EMPTY_BUFFERS = { EMPTY_BUFFER };
+
 
 	private final SSLTransportChannel transport;
 
 	private ByteBuffer encryptedData;
 	private final ByteBuffer[] plainDatas;
+	private final ByteBuffer[] appDatas;
+
+	private int packetBufferSize;
+	private int appBufferSize;
 
 	private int lastWrites;
 
+	private boolean corked;
+
+	private long wrappedRecords;
+
 
 	SSLWritableChannel(final SSLTransportChannel transport) {
 		this.transport = transport;
 		this.plainDatas = new ByteBuffer[1];
+		this.appDatas = new ByteBuffer[1];
 	}
 
 
@@ -64,10 +81,74 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 	}
 
 	private final void doInit() {
+		releaseBuffers();
+
+		this.corked = false;
+
 		final SSLSession sslSession = sslEngine().getSession();
 
-		this.encryptedData = ByteBuffer.allocate(sslSession.getPacketBufferSize());
-		this.plainDatas[0] = ByteBuffer.allocate(sslSession.getApplicationBufferSize());
+		this.packetBufferSize = sslSession.getPacketBufferSize();
+		this.appBufferSize = sslSession.getApplicationBufferSize();
+	}
+
+	private final ByteBuffer encryptedData() {
+		ByteBuffer encryptedData = this.encryptedData;
+		if (encryptedData == null) {
+			encryptedData = SSLBufferPool.HEAP.acquire(this.packetBufferSize);
+			this.encryptedData = encryptedData;
+		}
+		return encryptedData;
+	}
+
+	private final ByteBuffer plainData() {
+		ByteBuffer plainData = this.plainDatas[0];
+		if (plainData == null) {
+			plainData = SSLBufferPool.HEAP.acquire(this.appBufferSize);
+			this.plainDatas[0] = plainData;
+		}
+		return plainData;
+	}
+
+	/**
+	 * Direct, so that the file contents are read into it without an intermediate copy.
+	 */
+	private final ByteBuffer directPlainData() {
+		ByteBuffer plainData = this.plainDatas[0];
+		if (plainData != null) {
+			if (plainData.isDirect() || plainData.position() > 0) {
+				return plainData;
+			}
+			this.plainDatas[0] = null;
+			SSLBufferPool.HEAP.release(plainData);
+		}
+
+		plainData = SSLBufferPool.DIRECT.acquire(this.appBufferSize);
+		this.plainDatas[0] = plainData;
+		return plainData;
+	}
+
+	/**
+	 * Returns the drained buffers to the pool.
+	 */
+	final void releaseIdleBuffers() {
+		final ByteBuffer encryptedData = this.encryptedData;
+		if (encryptedData != null && encryptedData.position() == 0) {
+			this.encryptedData = null;
+			SSLBufferPool.HEAP.release(encryptedData);
+		}
+
+		final ByteBuffer plainData = this.plainDatas[0];
+		if (plainData != null && plainData.position() == 0) {
+			this.plainDatas[0] = null;
+			SSLBufferPool.of(plainData).release(plainData);
+		}
+	}
+
+	final void releaseBuffers() {
+		clearNetDataRemaining();
+		clearAppDataRemaining();
+
+		releaseIdleBuffers();
 	}
 
 	private final SSLEngine sslEngine() {
@@ -78,6 +159,13 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 		return this.transport.lowerChannel();
 	}
 
+	private final void ensureOpened() throws ClosedChannelException {
+		// Closed, the buffers have been released and are not to be taken again.
+		if (this.transport.status() == SSLTransportChannel.STATUS_CLOSED) {
+			throw new ClosedChannelException();
+		}
+	}
+
 	final boolean testAndSetShuttingDown() {
 		synchronized (this.transport) {
 			switch (this.transport.status()) {
@@ -120,6 +208,8 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 	 */
 	public final int write(final ByteBuffer src) throws IOException {
 		synchronized (this.transport) {
+			ensureOpened();
+
 			try {
 				return doWrite(src);
 			} catch (SSLException ex) {
@@ -129,16 +219,32 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 			} catch (IOException ex) {
 				this.transport.onOutputException();
 				throw ex;
+			} finally {
+				releaseIdleBuffers();
 			}
 		}
 	}
 
 	private final int doWrite(final ByteBuffer src) throws SSLException, IOException {
+		if (isDirectWrapping(src.remaining())) {
+			this.appDatas[0] = src;
+			try {
+				return (int)doWriteDirect(this.appDatas, 0, 1);
+			} finally {
+				this.appDatas[0] = null;
+			}
+		}
+
 		final int position = src.position();
 
 		while (src.hasRemaining()) {
 			transferPlainData(src);
 
+			if (this.corked && this.plainDatas[0].hasRemaining()) {
+				// Wrapped together with the following writes.
+				break;
+			}
+
 			final SSLEngineResult result = wrap(src);
 
 			if (result != null) {
@@ -170,9 +276,30 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 	 */
 	public final long write(final ByteBuffer[] srcs, final int srcsOffset, final int srcsLength)
 			throws IOException {
+		synchronized (this.transport) {
+			ensureOpened();
+
+			if (isDirectWrapping(this.corked ? remaining(srcs, srcsOffset, srcsLength) : 0)) {
+				try {
+					return doWriteDirect(srcs, srcsOffset, srcsLength);
+				} catch (SSLException ex) {
+					this.transport.toShuttingDown();
+					this.transport.handleUncaughtException(ex);
+					return 0;
+				} catch (IOException ex) {
+					this.transport.onOutputException();
+					throw ex;
+				} finally {
+					releaseIdleBuffers();
+				}
+			}
+		}
+
 		long count = 0;
 
-		for (int i = srcsOffset; i < srcsLength; ++i) {
+		final int end = srcsOffset + srcsLength;
+
+		for (int i = srcsOffset; i < end; ++i) {
 			final int writes = write(srcs[i]);
 
 			if (writes > 0) {
@@ -185,6 +312,94 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 		return count;
 	}
 
+	/**
+	 * Whether the application data can be wrapped straight from the caller's buffers,
+	 * i.e. the handshake is done and nothing is left in the plain data buffer.
+	 * While corked, only the writes filling a whole record are.
+	 */
+	private final boolean isDirectWrapping(final long remaining) {
+		return (this.transport.status() == SSLTransportChannel.STATUS_HANDSHAKED) &&
+			!hasAppDataRemaining() &&
+			(!this.corked || remaining >= this.appBufferSize);
+	}
+
+	private final long doWriteDirect(final ByteBuffer[] srcs, final int srcsOffset, final int srcsLength)
+			throws SSLException, IOException {
+		long total = 0;
+
+		for (;;) {
+			final SSLEngineResult result = doWrap(srcs, srcsOffset, srcsLength);
+
+			total += result.bytesConsumed();
+
+			switch (result.getHandshakeStatus()) {
+			case NEED_TASK:
+			case NEED_WRAP: case NEED_UNWRAP:
+				if (this.transport.doHandshake() != HandshakeHandler.HANDSHAKE_STATUS_FINISHED) {
+					return total;
+				}
+				continue;
+
+			//case FINISHED:
+			//case NOT_HANDSHAKING:
+			default:
+				break;
+			}
+
+			switch (result.getStatus()) {
+			case BUFFER_OVERFLOW:
+				if (writeEncryptedData() > 0) {
+					if (this.encryptedData.hasRemaining()) {
+						continue;
+					}
+				}
+
+				if (expandEncryptedDataBuffer()) {
+					continue;
+				}
+				return total;
+
+			case CLOSED:
+				this.transport.toShuttingDown();
+				return total;
+
+			case BUFFER_UNDERFLOW:
+				return total;
+
+			//case OK:
+			default:
+				if (writeEncryptedData() < 0) {
+					return total;
+				}
+				break;
+			}
+
+			if (!hasRemaining(srcs, srcsOffset, srcsLength)) {
+				return total;
+			}
+		}
+	}
+
+	private static final long remaining(final ByteBuffer[] srcs, final int srcsOffset, final int srcsLength) {
+		long remaining = 0;
+
+		final int end = srcsOffset + srcsLength;
+		for (int i = srcsOffset; i < end; ++i) {
+			remaining += srcs[i].remaining();
+		}
+		return remaining;
+	}
+
+	private static final boolean hasRemaining(final ByteBuffer[] srcs, final int srcsOffset, final int srcsLength) {
+		final int end = srcsOffset + srcsLength;
+		for (int i = srcsOffset; i < end; ++i) {
+			if (srcs[i].hasRemaining()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.nio.channels.GatheringByteChannel#write(ByteBuffer[] srcs)
@@ -193,8 +408,121 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 		return write(srcs, 0, srcs.length);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.chinmobi.aio.impl.nio.CorkableChannel#cork()
+	 */
+	public final void cork() {
+		synchronized (this.transport) {
+			this.corked = true;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.chinmobi.aio.impl.nio.CorkableChannel#uncork()
+	 */
+	public final void uncork() throws IOException {
+		synchronized (this.transport) {
+			if (!this.corked) {
+				return;
+			}
+			this.corked = false;
+
+			flush();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.chinmobi.aio.impl.nio.FileTransferableChannel#transferFrom(FileChannel src, long position, long count)
+	 */
+	public final long transferFrom(final FileChannel src, final long position, final long count)
+			throws IOException {
+		synchronized (this.transport) {
+			ensureOpened();
+
+			try {
+				return doTransferFrom(src, position, count);
+			} catch (FileReadException ex) {
+				throw ex.source();
+			} catch (SSLException ex) {
+				this.transport.toShuttingDown();
+				this.transport.handleUncaughtException(ex);
+				return 0;
+			} catch (IOException ex) {
+				this.transport.onOutputException();
+				throw ex;
+			} finally {
+				releaseIdleBuffers();
+			}
+		}
+	}
+
+	private final long doTransferFrom(final FileChannel src, final long position, final long count)
+			throws SSLException, IOException {
+		long total = 0;
+
+		while (total < count) {
+			final int reads = readPlainData(src, position + total, count - total);
+			if (reads > 0) {
+				total += reads;
+			} else if (reads < 0 && !hasAppDataRemaining()) {
+				break;
+			}
+
+			// The file contents are wrapped straight from the plain data buffer.
+			final SSLEngineResult result = wrap(EMPTY_BUFFER);
+
+			if (result != null) {
+				switch (result.getStatus()) {
+				case CLOSED:
+					this.transport.toShuttingDown();
+					break;
+
+				case BUFFER_OVERFLOW:
+					break;
+
+				//case BUFFER_UNDERFLOW:
+				//case OK:
+				default:
+					if (this.lastWrites >= 0 && reads >= 0) {
+						continue;
+					}
+				}
+			}
+
+			break;
+		}
+
+		return total;
+	}
+
+	private final int readPlainData(final FileChannel src, final long position, final long count)
+			throws FileReadException {
+		final ByteBuffer plainData = directPlainData();
+
+		int length = plainData.remaining();
+		if (length > count) {
+			length = (int)count;
+		}
+
+		if (length > 0) {
+			final int limit = plainData.limit();
+			plainData.limit(plainData.position() + length);
+			try {
+				return src.read(plainData, position);
+			} catch (IOException ex) {
+				throw new FileReadException(ex);
+			} finally {
+				plainData.limit(limit);
+			}
+		}
+		return 0;
+	}
+
 	private final int transferPlainData(final ByteBuffer src) {
-		final ByteBuffer plainData = this.plainDatas[0];
+		final ByteBuffer plainData = plainData();
 
 		int count = plainData.remaining();
 		if (count > 0) {
@@ -204,7 +532,7 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 
 			if (count > 0) {
 				final int limit = src.limit();
-				src.limit(count);
+				src.limit(src.position() + count);
 
 				plainData.put(src);
 
@@ -216,20 +544,26 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 
 	final boolean hasAppDataRemaining() {
 		final ByteBuffer plainData = this.plainDatas[0];
-		return (plainData.position() > 0);
+		return (plainData != null && plainData.position() > 0);
 	}
 
 	final void clearAppDataRemaining() {
 		final ByteBuffer plainData = this.plainDatas[0];
-		plainData.clear();
+		if (plainData != null) {
+			plainData.clear();
+		}
 	}
 
 	final boolean hasNetDataRemaining() {
-		return (this.encryptedData.position() > 0);
+		final ByteBuffer encryptedData = this.encryptedData;
+		return (encryptedData != null && encryptedData.position() > 0);
 	}
 
 	final void clearNetDataRemaining() {
-		this.encryptedData.clear();
+		final ByteBuffer encryptedData = this.encryptedData;
+		if (encryptedData != null) {
+			encryptedData.clear();
+		}
 	}
 
 	final SSLEngineResult wrap(final ByteBuffer appData) throws SSLException, IOException {
@@ -290,11 +624,27 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 
 	private final SSLEngineResult doWrap() throws SSLException {
 		final ByteBuffer plainData = this.plainDatas[0];
+		if (plainData == null) {
+			return doWrap(EMPTY_BUFFERS, 0, 1);
+		}
 
 		plainData.flip();
 
 		try {
-			return sslEngine().wrap(this.plainDatas, this.encryptedData);
+			return doWrap(this.plainDatas, 0, 1);
+		} finally {
+			plainData.compact();
+		}
+	}
+
+	private final SSLEngineResult doWrap(final ByteBuffer[] srcs, final int srcsOffset, final int srcsLength)
+			throws SSLException {
+		try {
+			final SSLEngineResult result = sslEngine().wrap(srcs, srcsOffset, srcsLength, encryptedData());
+			if (result.bytesProduced() > 0) {
+				++this.wrappedRecords;
+			}
+			return result;
 		} catch (SSLException ex) {
 			throw ex;
 		} catch (ReadOnlyBufferException ex) {
@@ -309,17 +659,21 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 				cause = ex;
 			}
 			throw new SSLException(cause);
-		} finally {
-			plainData.compact();
 		}
 	}
 
 	private final int writeEncryptedData() throws IOException {
 		this.lastWrites = 0;
-		this.encryptedData.flip();
+
+		final ByteBuffer encryptedData = this.encryptedData;
+		if (encryptedData == null) {
+			return this.lastWrites;
+		}
+
+		encryptedData.flip();
 		try {
-			while (this.encryptedData.hasRemaining()) {
-				this.lastWrites = lowerChannel().writableChannel().write(this.encryptedData);
+			while (encryptedData.hasRemaining()) {
+				this.lastWrites = lowerChannel().writableChannel().write(encryptedData);
 				if (this.lastWrites <= 0) {
 					this.lastWrites = -1;
 					this.transport.setOutputEvent();
@@ -327,7 +681,7 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 				}
 			}
 		} finally {
-			this.encryptedData.compact();
+			encryptedData.compact();
 		}
 		return this.lastWrites;
 	}
@@ -336,8 +690,18 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 		return this.lastWrites;
 	}
 
+	final long getWrappedRecords() {
+		synchronized (this.transport) {
+			return this.wrappedRecords;
+		}
+	}
+
 	final void flush() throws IOException {
 		synchronized (this.transport) {
+			if (this.transport.status() == SSLTransportChannel.STATUS_CLOSED) {
+				return;
+			}
+
 			try {
 				doFlush();
 			} catch (SSLException ex) {
@@ -346,6 +710,8 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 			} catch (IOException ex) {
 				this.transport.onOutputException();
 				throw ex;
+			} finally {
+				releaseIdleBuffers();
 			}
 		}
 	}
@@ -382,15 +748,18 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 
 		final int netSize = sslSession.getPacketBufferSize();
 
-		final ByteBuffer oldBuffer = this.encryptedData;
+		final ByteBuffer oldBuffer = encryptedData();
 
 		if (netSize > oldBuffer.capacity()) {
-			final ByteBuffer newBuffer = ByteBuffer.allocate(oldBuffer.position() + netSize);
+			this.packetBufferSize = netSize;
+
+			final ByteBuffer newBuffer = SSLBufferPool.HEAP.acquire(oldBuffer.position() + netSize);
 
 			oldBuffer.flip();
 			newBuffer.put(oldBuffer);
 
 			this.encryptedData = newBuffer;
+			SSLBufferPool.HEAP.release(oldBuffer);
 
 			return true;
 		}
@@ -403,19 +772,41 @@ public final class SSLWritableChannel implements GatheringByteChannel {
 
 		final int appSize = sslSession.getApplicationBufferSize();
 
-		final ByteBuffer oldBuffer = this.plainDatas[0];
+		final ByteBuffer oldBuffer = plainData();
 
 		if (appSize > oldBuffer.capacity()) {
-			final ByteBuffer newBuffer = ByteBuffer.allocate(appSize);
+			this.appBufferSize = appSize;
+
+			final SSLBufferPool pool = SSLBufferPool.of(oldBuffer);
+			final ByteBuffer newBuffer = pool.acquire(appSize);
 
 			oldBuffer.flip();
 			newBuffer.put(oldBuffer);
 
 			this.plainDatas[0] = newBuffer;
+			pool.release(oldBuffer);
 
 			return true;
 		}
 		return false;
 	}
 
+
+	private static final class FileReadException extends IOException {
+
+		private static final long serialVersionUID = 3514046215720245207L;
+
+
+		FileReadException(final IOException cause) {
+			super(cause.getMessage());
+			initCause(cause);
+		}
+
+
+		final IOException source() {
+			return (IOException)getCause();
+		}
+
+	}
+
 }
@@ -42,6 +42,12 @@ public interface AcceptableChannel {
 
 	public int acceptOps();
 
+	/**
+	 *
+	 * @return the maximum number of accepts per readiness event.
+	 */
+	public int acceptBatchSize();
+
 	public boolean isAcceptable(SelectionKey key);
 
 	public AcceptedTransport accept(AcceptorHandler acceptorHandler) throws IOException;
@@ -53,6 +53,10 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 
 	private final SessionContext sessionContext;
 
+	// The sharded acceptor owning this one, or null.
+	private final Acceptor owner;
+	private Acceptor[] shards;
+
 	private final AIOTransportScheme scheme;
 	private final AIOInetEndpoint endpoint;
 
@@ -60,18 +64,36 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 
 	private Handler acceptHandler;
 
+	private AcceptedTransport[] acceptedTransports;
+
+	// The listeners of a sharded acceptor, counted by the leading one.
+	private int listenerCount;
+	private int acceptingCount;
+	private boolean startedNotified;
+	private boolean acceptingNotified;
+	private Throwable listenerCause;
+
+	private boolean accepting;
+
 	private volatile AIOServiceHandler.Factory serviceFactory;
 	private volatile Observer observer;
 
 
 	Acceptor(final AcceptorSetImpl acceptorSet, final SessionContext sessionContext,
 			final AIOTransportScheme scheme, final AIOInetEndpoint endpoint) {
+		this(acceptorSet, sessionContext, scheme, endpoint, null);
+	}
+
+	private Acceptor(final AcceptorSetImpl acceptorSet, final SessionContext sessionContext,
+			final AIOTransportScheme scheme, final AIOInetEndpoint endpoint, final Acceptor owner) {
 		super();
 
 		this.acceptorSet = acceptorSet;
 
 		this.sessionContext = sessionContext;
 
+		this.owner = owner;
+
 		this.scheme = scheme;
 		this.endpoint = endpoint;
 
@@ -83,7 +105,53 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 		return this.lock;
 	}
 
+	/**
+	 * Binds one more listener on each of the other given contexts, every one accepts
+	 * and registers its sessions on its own reactor.
+	 */
+	final void shard(final SessionContext[] contexts) {
+		int count = 0;
+		for (int i = 0; i < contexts.length; ++i) {
+			if (contexts[i] != this.sessionContext) {
+				++count;
+			}
+		}
+
+		final Acceptor[] shards = new Acceptor[count];
+		count = 0;
+		for (int i = 0; i < contexts.length; ++i) {
+			if (contexts[i] != this.sessionContext) {
+				shards[count++] = new Acceptor(this.acceptorSet, contexts[i], this.scheme, this.endpoint, this);
+			}
+		}
+
+		this.shards = shards;
+	}
+
+	private final AIOAcceptor self() {
+		return (this.owner != null) ? this.owner : this;
+	}
+
+	private final Acceptor leader() {
+		return (this.owner != null) ? this.owner : this;
+	}
+
+	private final boolean isSharded() {
+		return (this.owner != null || this.shards != null);
+	}
+
+	private final Observer observer() {
+		return (this.owner != null) ? this.owner.observer : this.observer;
+	}
+
 	final void free() {
+		final Acceptor[] shards = this.shards;
+		if (shards != null) {
+			for (int i = 0; i < shards.length; ++i) {
+				shards[i].free();
+			}
+		}
+
 		this.serviceFactory = null;
 
 		this.acceptorSet.removeAcceptor(this);
@@ -94,13 +162,22 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 				if (handler.doCancel() >= 0) {
 					handler.close();
 				}
-			} else {
+			} else if (this.listenerCount == 0) {
 				this.observer = null;
 			}
 		}
 	}
 
 	final int cancel() {
+		final Acceptor[] shards = this.shards;
+		if (shards != null) {
+			for (int i = 0; i < shards.length; ++i) {
+				if (shards[i].cancel() >= 0) {
+					shards[i].free();
+				}
+			}
+		}
+
 		synchronized (this.lock()) {
 			final Handler handler = this.acceptHandler;
 			if (handler != null) {
@@ -120,6 +197,13 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 		this.acceptorSet.removeAcceptor(this);
 
 		stopHandler();
+
+		final Acceptor[] shards = this.shards;
+		if (shards != null) {
+			for (int i = 0; i < shards.length; ++i) {
+				shards[i].close();
+			}
+		}
 	}
 
 	/* (non-Javadoc)
@@ -156,8 +240,20 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 	 */
 	public final boolean isActive() {
 		synchronized (this.lock()) {
-			return isHandlerActive();
+			if (isHandlerActive()) {
+				return true;
+			}
+		}
+
+		final Acceptor[] shards = this.shards;
+		if (shards != null) {
+			for (int i = 0; i < shards.length; ++i) {
+				if (shards[i].isActive()) {
+					return true;
+				}
+			}
 		}
+		return false;
 	}
 
 	/* (non-Javadoc)
@@ -166,8 +262,45 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 	public final void start(final AIOServiceHandler.Factory serviceFactory)
 			throws AIONotActiveException {
 
-		this.serviceFactory = serviceFactory;
+		final Acceptor[] shards = this.shards;
+		if (shards == null) {
+			this.serviceFactory = serviceFactory;
+			startHandler();
+			return;
+		}
+
+		// Counts the listeners first, so that the observer is not notified
+		// before all of them are started.
+		int pending = 1 + shards.length;
+		synchronized (this.lock()) {
+			this.listenerCount += pending;
+		}
+
+		try {
+			this.serviceFactory = serviceFactory;
+			if (startHandler()) {
+				--pending;
+			}
+
+			for (int i = 0; i < shards.length; ++i) {
+				final Acceptor shard = shards[i];
+				shard.serviceFactory = serviceFactory;
+				try {
+					if (shard.startHandler()) {
+						--pending;
+					}
+				} catch (AIONotActiveException ignore) {
+					// The reactor of the shard is shutting down.
+				}
+			}
+		} finally {
+			if (pending > 0) {
+				listenersStopped(null, pending, this, null);
+			}
+		}
+	}
 
+	private final boolean startHandler() throws AIONotActiveException {
 		synchronized (this.lock()) {
 			try {
 				if (isQueued() && !isHandlerActive()) {
@@ -177,6 +310,7 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 					handler.toPendingState();
 					this.sessionContext.demultiplexer().putRunnable(handler.activeNode(), 'a', "RUN_ACCEPT", true);
 
+					return true;
 				} else if (!isQueued()) {
 					throw new IllegalStateException("The acceptor is closed.");
 				}
@@ -188,6 +322,7 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 				throw ex;
 			}
 		}
+		return false;
 	}
 
 	/* (non-Javadoc)
@@ -197,6 +332,13 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 		this.serviceFactory = null;
 
 		stopHandler();
+
+		final Acceptor[] shards = this.shards;
+		if (shards != null) {
+			for (int i = 0; i < shards.length; ++i) {
+				shards[i].stop();
+			}
+		}
 	}
 
 	/*
@@ -253,21 +395,31 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 
 	private final void run(final Handler handler) {
 		if (!handler.isActive()) {
+			final boolean cleared;
 			synchronized (this.lock()) {
-				if (this.acceptHandler == handler) {
+				cleared = (this.acceptHandler == handler);
+				if (cleared) {
 					this.acceptHandler = null;
 				}
 			}
 			handler.close();
+
+			if (cleared && isSharded()) {
+				leader().listenersStopped(this, 1, handler, null);
+			}
 			return;
 		}
 
-		final Observer observer = this.observer;
+		final boolean toNotify = !isSharded() || leader().listenerStarted();
+
+		final Observer observer = observer();
 		if (observer != null) {
-			try {
-				observer.onAIOAcceptorStarted(this);
-			} catch (Throwable ignore) {
-				handleUncaughtException(ignore);
+			if (toNotify) {
+				try {
+					observer.onAIOAcceptorStarted(self());
+				} catch (Throwable ignore) {
+					handleUncaughtException(ignore);
+				}
 			}
 
 			if (!handler.isActive()) {
@@ -395,58 +547,123 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 			return -1;
 		}
 
-		final AcceptedTransport transport;
-		try {
-			transport = acceptableChannel.accept(handler);
-		} catch (ClosedChannelException ex) {	// ClosedChannelException,
-												// AsynchronousCloseException, ClosedByInterruptException
-			handler.fail(ex);
-			return -1;
-		} catch (IOException ex) { // SocketException, IOException
-			handler.fail(ex);
-			return -1;
-		} catch (RuntimeException ex) {	// NotYetBoundException, SecurityException
-			handler.fail(ex);
-			return -1;
-		} catch (Throwable error) {
-			handler.fail(error);
-			return -1;
+		int batchSize = (enableAdvanceSelect) ? acceptableChannel.acceptBatchSize() : 1;
+		if (batchSize < 1) {
+			batchSize = 1;
 		}
 
-		if (transport != null) {
-			if (enableAdvanceSelect && !handler.advanceSelect()) {
-				transport.close();
-				handler.close();
+		final AcceptedTransport[] transports = takeTransports(batchSize);
+		int count = 0;
+
+		Throwable cause = null;
+
+		while (count < batchSize) {
+			final AcceptedTransport transport;
+			try {
+				transport = acceptableChannel.accept(handler);
+			} catch (ClosedChannelException ex) {	// ClosedChannelException,
+													// AsynchronousCloseException, ClosedByInterruptException
+				cause = ex;
+				break;
+			} catch (IOException ex) { // SocketException, IOException
+				cause = ex;
+				break;
+			} catch (RuntimeException ex) {	// NotYetBoundException, SecurityException
+				cause = ex;
+				break;
+			} catch (Throwable error) {
+				cause = error;
+				break;
+			}
+
+			if (transport == null) {
+				break;
+			}
+
+			transports[count++] = transport;
+		}
+
+		if (count == 0) {
+			giveBackTransports(transports, 0);
+
+			if (cause != null) {
+				handler.fail(cause);
 				return -1;
 			}
-		} else {
 			return 0;
 		}
 
-		try {
-			transport.execute(handler, this.sessionContext, (EventHandler.Executor)this);
-		} catch (ClosedChannelException done) {
-		} catch (IOException done) {
-		} catch (AIONotActiveException done) {
-		} catch (IllegalQueueNodeStateException done) {
-		} catch (RuntimeException done) {
-			// IllegalBlockingModeException, IllegalSelectorException
-			// CancelledKeyException, IllegalArgumentException
+		// Re-arms the listening key once for the whole batch.
+		if (cause == null && enableAdvanceSelect && !handler.advanceSelect()) {
+			for (int i = 0; i < count; ++i) {
+				transports[i].close();
+			}
+			giveBackTransports(transports, count);
+
+			handler.close();
+			return -1;
 		}
+
+		for (int i = 0; i < count; ++i) {
+			try {
+				transports[i].execute(handler, this.sessionContext, (EventHandler.Executor)this);
+			} catch (ClosedChannelException done) {
+			} catch (IOException done) {
+			} catch (AIONotActiveException done) {
+			} catch (IllegalQueueNodeStateException done) {
+			} catch (RuntimeException done) {
+				// IllegalBlockingModeException, IllegalSelectorException
+				// CancelledKeyException, IllegalArgumentException
+			}
+		}
+		giveBackTransports(transports, count);
+
+		if (cause != null) {
+			handler.fail(cause);
+			return -1;
+		}
+
 		return enableAdvanceSelect ? -1 : 0;
 	}
 
+	/**
+	 * Takes the batch array of this acceptor, the next event may be processed by another
+	 * thread once the key is re-armed, and then gets a new one.
+	 */
+	private final AcceptedTransport[] takeTransports(final int batchSize) {
+		AcceptedTransport[] transports;
+		synchronized (this.lock()) {
+			transports = this.acceptedTransports;
+			this.acceptedTransports = null;
+		}
+
+		if (transports == null || transports.length < batchSize) {
+			transports = new AcceptedTransport[batchSize];
+		}
+		return transports;
+	}
+
+	private final void giveBackTransports(final AcceptedTransport[] transports, final int count) {
+		for (int i = 0; i < count; ++i) {
+			transports[i] = null;
+		}
+
+		synchronized (this.lock()) {
+			this.acceptedTransports = transports;
+		}
+	}
+
 	private final void stopped(final Handler handler, final Throwable cause) {
 		handler.acceptableChannel = null;
 
-		final Observer observer = this.observer;
+		final Observer observer = observer();
 
 		synchronized (this.lock()) {
 			if (this.acceptHandler == handler) {
 				this.acceptHandler = null;
 				this.serviceFactory = null;
 
-				if (!isQueued()) {
+				if (!isQueued() && !isSharded()) {
 					this.observer = null;
 				}
 			} else {
@@ -457,9 +674,14 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 			}
 		}
 
+		if (isSharded()) {
+			leader().listenersStopped(this, 1, handler, cause);
+			return;
+		}
+
 		if (observer != null) {
 			try {
-				observer.onAIOAcceptorStopped(this, handler, cause);
+				observer.onAIOAcceptorStopped(self(), handler, cause);
 			} catch (Throwable ignore) {
 				handleUncaughtException(ignore);
 			}
@@ -470,16 +692,123 @@ public final class Acceptor extends AcceptorSetImpl.Entry
 	}
 
 	private final boolean notifyAccepting() {
+		final boolean toNotify = !isSharded() || leader().listenerAccepting(this);
+
+		final Observer observer = observer();
+		if (observer != null) {
+			if (toNotify) {
+				try {
+					observer.onAIOAcceptorAccepting(self());
+				} catch (Throwable ignore) {
+					handleUncaughtException(ignore);
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * The listeners of a sharded acceptor notify the observer as one: started by the first
+	 * started listener, accepting once all the listeners are accepting, and stopped by the
+	 * last stopped listener with the first failure cause.
+	 */
+
+	private final boolean listenerStarted() {
+		synchronized (this.lock()) {
+			if (this.startedNotified) {
+				return false;
+			}
+			this.startedNotified = true;
+			return true;
+		}
+	}
+
+	private final boolean listenerAccepting(final Acceptor listener) {
+		synchronized (this.lock()) {
+			if (!listener.accepting) {
+				listener.accepting = true;
+				++this.acceptingCount;
+			}
+			return checkAccepting();
+		}
+	}
+
+	private final boolean checkAccepting() {
+		if (!this.acceptingNotified && this.acceptingCount > 0 &&
+			this.acceptingCount == this.listenerCount) {
+			this.acceptingNotified = true;
+			return true;
+		}
+		return false;
+	}
+
+	private final void listenersStopped(final Acceptor listener, final int count,
+			final Object msgObj, final Throwable cause) {
 		final Observer observer = this.observer;
+
+		final boolean toNotifyAccepting;
+		final boolean toNotifyStopped;
+		Throwable reportCause = null;
+		Throwable uncaughtCause = null;
+
+		synchronized (this.lock()) {
+			this.listenerCount -= count;
+
+			if (listener != null && listener.accepting) {
+				listener.accepting = false;
+				--this.acceptingCount;
+			}
+
+			if (cause != null) {
+				if (this.listenerCause == null) {
+					this.listenerCause = cause;
+				} else {
+					uncaughtCause = cause;
+				}
+			}
+
+			if (this.listenerCount > 0) {
+				toNotifyAccepting = checkAccepting();
+				toNotifyStopped = false;
+			} else {
+				toNotifyAccepting = false;
+				toNotifyStopped = this.startedNotified;
+				reportCause = this.listenerCause;
+
+				this.listenerCount = 0;
+				this.acceptingCount = 0;
+				this.startedNotified = false;
+				this.acceptingNotified = false;
+				this.listenerCause = null;
+
+				if (!isQueued()) {
+					this.observer = null;
+				}
+			}
+		}
+
+		if (uncaughtCause != null) {
+			handleUncaughtException(uncaughtCause);
+		}
+
 		if (observer != null) {
 			try {
-				observer.onAIOAcceptorAccepting(this);
+				if (toNotifyAccepting) {
+					observer.onAIOAcceptorAccepting(this);
+				}
+				if (toNotifyStopped) {
+					observer.onAIOAcceptorStopped(this, msgObj, reportCause);
+					return;
+				}
 			} catch (Throwable ignore) {
 				handleUncaughtException(ignore);
 			}
-			return true;
 		}
-		return false;
+
+		if (reportCause != null) {
+			handleUncaughtException(reportCause);
+		}
 	}
 
 	private final void handleUncaughtException(Throwable cause) {
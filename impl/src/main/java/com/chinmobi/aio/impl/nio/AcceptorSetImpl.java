@@ -29,6 +29,7 @@ import java.util.Iterator;
 import com.chinmobi.aio.AIOAcceptor;
 import com.chinmobi.aio.AIOInetEndpoint;
 import com.chinmobi.aio.AIONotActiveException;
+import com.chinmobi.aio.impl.channels.ChannelsFactory;
 import com.chinmobi.aio.scheme.AIOTransportScheme;
 
 /**
@@ -93,6 +94,9 @@ public final class AcceptorSetImpl implements AcceptorSet {
 			final SessionContext sessionContext = this.dispatcher.dispatch(null);
 			sessionContext.demultiplexer().activeChecker().assertActive();
 			acceptor = new Acceptor(this, sessionContext, scheme, endpoint);
+			if (ChannelsFactory.isShardedAcceptor(scheme)) {
+				acceptor.shard(this.dispatcher.activeContexts());
+			}
 
 			acceptor.next = this.acceptors;
 			this.acceptors = acceptor;
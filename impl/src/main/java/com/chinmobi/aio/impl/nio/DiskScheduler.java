@@ -0,0 +1,186 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aio.impl.nio;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the blocking file operations of a reactor on a disk executor,
+ * with a bounded number of operations in flight.
+ *
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class DiskScheduler {
+
+	private final Executor executor;
+
+	private final int maximumInFlight;
+	private final int bufferSize;
+
+	private final java.util.concurrent.ConcurrentLinkedQueue<Operation> pendings;
+
+	private final AtomicInteger inFlight;
+
+	private final AtomicLong operationCount;
+	private final AtomicLong waitTime;
+
+
+	public DiskScheduler(final Executor executor, final int maximumInFlight, final int bufferSize) {
+		if (executor == null) {
+			throw new NullPointerException("executor");
+		}
+		if (maximumInFlight <= 0) {
+			throw new IllegalArgumentException("maximumInFlight: " + maximumInFlight);
+		}
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize: " + bufferSize);
+		}
+
+		this.executor = executor;
+
+		this.maximumInFlight = maximumInFlight;
+		this.bufferSize = bufferSize;
+
+		this.pendings = new java.util.concurrent.ConcurrentLinkedQueue<Operation>();
+
+		this.inFlight = new AtomicInteger(0);
+
+		this.operationCount = new AtomicLong(0);
+		this.waitTime = new AtomicLong(0);
+	}
+
+
+	public final int bufferSize() {
+		return this.bufferSize;
+	}
+
+	public final int getOperationsInFlight() {
+		return this.inFlight.get();
+	}
+
+	public final long getOperationCount() {
+		return this.operationCount.get();
+	}
+
+	/**
+	 * Returns the total nanoseconds from the submission to the completion of the operations.
+	 */
+	public final long getWaitTime() {
+		return this.waitTime.get();
+	}
+
+	public final void submit(final Operation operation) {
+		operation.scheduler = this;
+		operation.submitTime = System.nanoTime();
+
+		this.pendings.offer(operation);
+
+		schedule();
+	}
+
+	private final void schedule() {
+		for (;;) {
+			final int inFlight = this.inFlight.get();
+			if (inFlight >= this.maximumInFlight || this.pendings.isEmpty()) {
+				return;
+			}
+
+			if (!this.inFlight.compareAndSet(inFlight, inFlight + 1)) {
+				continue;
+			}
+
+			final Operation operation = this.pendings.poll();
+			if (operation == null) {
+				this.inFlight.decrementAndGet();
+				continue;
+			}
+
+			try {
+				this.executor.execute(operation);
+			} catch (RejectedExecutionException ex) {
+				operation.failure = new IOException("Disk operation rejected.");
+				operation.failure.initCause(ex);
+
+				completed(operation);
+				operation.onCompleted();
+			}
+		}
+	}
+
+	private final void completed(final Operation operation) {
+		this.operationCount.incrementAndGet();
+		this.waitTime.addAndGet(System.nanoTime() - operation.submitTime);
+
+		this.inFlight.decrementAndGet();
+		schedule();
+	}
+
+
+	public static abstract class Operation implements Runnable {
+
+		private DiskScheduler scheduler;
+		private long submitTime;
+
+		protected IOException failure;
+
+
+		protected Operation() {
+			super();
+		}
+
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public final void run() {
+			try {
+				this.failure = null;
+				operate();
+			} catch (IOException ex) {
+				this.failure = ex;
+			} catch (RuntimeException ex) {
+				this.failure = new IOException(ex.getMessage());
+				this.failure.initCause(ex);
+			} finally {
+				this.scheduler.completed(this);
+				onCompleted();
+			}
+		}
+
+		protected abstract void operate() throws IOException;
+
+		/**
+		 * Called on the disk executor thread, after the operation is completed or rejected.
+		 */
+		protected abstract void onCompleted();
+
+	}
+
+}
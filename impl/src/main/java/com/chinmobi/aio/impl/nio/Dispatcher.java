@@ -32,4 +32,6 @@ public interface Dispatcher {
 
 	public SessionContext dispatch(SessionContext currentContext);
 
+	public SessionContext[] activeContexts();
+
 }
@@ -215,6 +215,9 @@ public abstract class EventHandler {
 	}
 
 
+	protected static final int PROCESS_STATUS_YIELD = 2;
+
+
 	private static final int STATE_CLOSED = -1;
 	private static final int STATE_REGISTERED = 0;
 	private static final int STATE_IDLE = 0;
@@ -585,6 +588,8 @@ public abstract class EventHandler {
 				if (status >= 0) {
 					if (!releaseProcess(status)) {
 						close();
+					} else {
+						onProcessReleased(status);
 					}
 				} else {
 					traceStatus(status);
@@ -1105,6 +1110,9 @@ public abstract class EventHandler {
 	protected void onSelected(final int readyOps, final int modCount) {
 	}
 
+	protected void onProcessReleased(final int status) {
+	}
+
 	protected int onTimeout() {
 		return 0;
 	}
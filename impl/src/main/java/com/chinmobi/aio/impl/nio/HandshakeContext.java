@@ -36,6 +36,8 @@ public interface HandshakeContext {
 	public void setOutputEvent();
 	public void clearOutputEvent();
 
+	public void reactivate();
+
 	public void handleUncaughtException(Throwable ex);
 
 }
@@ -119,6 +119,12 @@ public final class Reactor
 
 		final Dispatcher dispatcher = (group != null) ? group : null;
 		this.sessionContext = new SessionContext(this.logger, this.demultiplexer, dispatcher);
+		this.sessionContext.setIOQuantum(config.getIOBytesQuantum(), config.getIOIterationsQuantum());
+
+		if (config.getDiskExecutor() != null) {
+			this.sessionContext.setDiskScheduler(new DiskScheduler(config.getDiskExecutor(),
+					config.getMaximumDiskOperationsInFlight(), config.getDiskBufferSize()));
+		}
 
 		if (group != null) {
 			this.connector = group.connector();
@@ -154,6 +160,14 @@ public final class Reactor
 		return this.sessionContext;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.chinmobi.aio.impl.nio.Dispatcher#activeContexts()
+	 */
+	public final SessionContext[] activeContexts() {
+		return new SessionContext[] { this.sessionContext };
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.chinmobi.aio.impl.nio.Demultiplexer.ActiveChecker#assertActive()
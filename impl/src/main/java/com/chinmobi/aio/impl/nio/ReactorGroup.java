@@ -318,6 +318,35 @@ public final class ReactorGroup
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.chinmobi.aio.impl.nio.Dispatcher#activeContexts()
+	 */
+	public final SessionContext[] activeContexts() {
+		final AtomicReferenceArray<Reactor> reactors = this.reactors;
+		if (reactors != null) {
+			final SessionContext[] contexts = new SessionContext[reactors.length()];
+			int count = 0;
+
+			for (int i = 0; i < contexts.length; ++i) {
+				final Reactor reactor = reactors.get(i);
+				if (reactor != null && reactor.isActive()) {
+					contexts[count++] = reactor.sessionContext();
+				}
+			}
+
+			if (count == contexts.length) {
+				return contexts;
+			}
+
+			final SessionContext[] actives = new SessionContext[count];
+			System.arraycopy(contexts, 0, actives, 0, count);
+			return actives;
+		}
+
+		return new SessionContext[0];
+	}
+
 	private final Reactor dispatchReactor() {
 		final AtomicReferenceArray<Reactor> reactors = this.reactors;
 		if (reactors != null) {
@@ -553,6 +582,10 @@ public final class ReactorGroup
 		private int threadLargestPoolSize;
 		private int threadPoolSize;
 
+		private long diskOperationCount;
+		private int diskOperationsInFlight;
+		private long diskWaitTime;
+
 
 		Statistics(final Iter iter, final long startTime) {
 			this.iter = iter;
@@ -568,6 +601,10 @@ public final class ReactorGroup
 			this.threadLargestPoolSize = 0;
 			this.threadPoolSize = 0;
 
+			this.diskOperationCount = 0;
+			this.diskOperationsInFlight = 0;
+			this.diskWaitTime = 0;
+
 			this.iter.reset();
 			while (this.iter.hasNext()) {
 				final AIOReactor reactor = this.iter.next();
@@ -580,6 +617,10 @@ public final class ReactorGroup
 					this.threadActiveCount += stat.getThreadActiveCount();
 					this.threadLargestPoolSize += stat.getThreadLargestPoolSize();
 					this.threadPoolSize += stat.getThreadPoolSize();
+
+					this.diskOperationCount += stat.getDiskOperationCount();
+					this.diskOperationsInFlight += stat.getDiskOperationsInFlight();
+					this.diskWaitTime += stat.getDiskWaitTime();
 				}
 			}
 
@@ -618,6 +659,22 @@ public final class ReactorGroup
 			return this.threadPoolSize;
 		}
 
+		/*
+		 * For disk operations
+		 */
+
+		public final long getDiskOperationCount() {
+			return this.diskOperationCount;
+		}
+
+		public final int getDiskOperationsInFlight() {
+			return this.diskOperationsInFlight;
+		}
+
+		public final long getDiskWaitTime() {
+			return this.diskWaitTime;
+		}
+
 		@Override
 		public final String toString() {
 			final StringBuilder builder = new StringBuilder();
@@ -83,6 +83,25 @@ public final class ReactorStatistics implements AIOReactorStatistics {
 		return this.reactor.threadPool().getPoolSize();
 	}
 
+	/*
+	 * For disk operations
+	 */
+
+	public final long getDiskOperationCount() {
+		final DiskScheduler scheduler = this.reactor.sessionContext().diskScheduler();
+		return (scheduler != null) ? scheduler.getOperationCount() : 0;
+	}
+
+	public final int getDiskOperationsInFlight() {
+		final DiskScheduler scheduler = this.reactor.sessionContext().diskScheduler();
+		return (scheduler != null) ? scheduler.getOperationsInFlight() : 0;
+	}
+
+	public final long getDiskWaitTime() {
+		final DiskScheduler scheduler = this.reactor.sessionContext().diskScheduler();
+		return (scheduler != null) ? scheduler.getWaitTime() : 0;
+	}
+
 
 	public static final String toString(final long startTime) {
 		final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -99,6 +118,9 @@ public final class ReactorStatistics implements AIOReactorStatistics {
 		builder.append(prefix).append("ThreadActiveCount: ").append(stats.getThreadActiveCount());
 		builder.append(prefix).append("ThreadLargestPoolSize: ").append(stats.getThreadLargestPoolSize());
 		builder.append(prefix).append("ThreadPoolSize: ").append(stats.getThreadPoolSize());
+		builder.append(prefix).append("DiskOperationCount: ").append(stats.getDiskOperationCount());
+		builder.append(prefix).append("DiskOperationsInFlight: ").append(stats.getDiskOperationsInFlight());
+		builder.append(prefix).append("DiskWaitTime: ").append(stats.getDiskWaitTime());
 	}
 
 	@Override
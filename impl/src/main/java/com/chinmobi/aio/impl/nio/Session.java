@@ -70,6 +70,12 @@ public final class Session implements ExtendedSession,
 
 	private volatile int status;
 
+	private long bytesQuantum;
+	private int iterationsQuantum;
+	private boolean yielded;
+
+	private volatile boolean reactivating;
+
 
 	Session(final SessionContext context) {
 		this.context = context;
@@ -125,6 +131,42 @@ public final class Session implements ExtendedSession,
 		return this.context.demultiplexer().activateHandler(this.eventHandler);
 	}
 
+	/**
+	 * Activates the session from another thread, e.g. when a disk operation is completed.
+	 * The session is activated again after the current processing if it is being processed.
+	 */
+	public final void reactivate() {
+		this.reactivating = true;
+		activate();
+	}
+
+	/**
+	 * Consumes the I/O quantum of the current readiness event,
+	 * returns false if the session should yield to the other selected sessions.
+	 */
+	public final boolean consumeQuantum(final long transferred) {
+		if (this.iterationsQuantum > 0 && --this.iterationsQuantum == 0) {
+			this.yielded = true;
+		}
+		if (this.bytesQuantum > 0) {
+			this.bytesQuantum -= transferred;
+			if (this.bytesQuantum <= 0) {
+				this.yielded = true;
+			}
+		}
+		return !this.yielded;
+	}
+
+	public final boolean isYielded() {
+		return this.yielded;
+	}
+
+	private final void resetQuantum() {
+		this.bytesQuantum = this.context.ioBytesQuantum();
+		this.iterationsQuantum = this.context.ioIterationsQuantum();
+		this.yielded = false;
+	}
+
 	public final boolean isInterestOpsPending() {
 		return this.context.demultiplexer().containsInInterestOpsPendings(this.eventHandler);
 	}
@@ -759,20 +801,35 @@ public final class Session implements ExtendedSession,
 				this.session.clearOutputEvent(false);
 			}
 
+			this.session.reactivating = false;
+
 			int status = this.session.handshake(readyOps);
 
 			if (status == 0) {
+				this.session.resetQuantum();
+
 				final boolean isReadable = ((readyOps & SelectionKey.OP_READ) != 0);
 				status = this.session.handleInputReady(isReadable);
 
 				if (status == 0) {
 					status = this.session.handleOutputReady(isWritable);
 				}
+
+				if (status == 0 && this.session.yielded) {
+					status = PROCESS_STATUS_YIELD;
+				}
 			}
 
 			return status;
 		}
 
+		@Override
+		protected final void onProcessReleased(final int status) {
+			if (status == PROCESS_STATUS_YIELD || this.session.reactivating) {
+				this.session.activate();
+			}
+		}
+
 		@Override
 		protected final void toSetTimerExpectedModCount(final int modCount) {
 			this.session.toSetTimerExpectedModCount(modCount);
@@ -58,6 +58,11 @@ public final class SessionContext implements ExceptionHandler, Dispatcher {
 	private final AtomicInteger largestSessionCount;
 	private final AtomicInteger activeSessionCount;
 
+	private volatile int ioBytesQuantum;
+	private volatile int ioIterationsQuantum;
+
+	private volatile DiskScheduler diskScheduler;
+
 
 	public SessionContext(final Logger logger,
 			final Demultiplexer demultiplexer) {
@@ -81,6 +86,9 @@ public final class SessionContext implements ExceptionHandler, Dispatcher {
 
 		this.largestSessionCount = new AtomicInteger(0);
 		this.activeSessionCount = new AtomicInteger(0);
+
+		this.ioBytesQuantum = -1;
+		this.ioIterationsQuantum = -1;
 	}
 
 
@@ -104,6 +112,31 @@ public final class SessionContext implements ExceptionHandler, Dispatcher {
 		return this.actRequestFactory;
 	}
 
+	public final void setIOQuantum(final int bytesQuantum, final int iterationsQuantum) {
+		this.ioBytesQuantum = bytesQuantum;
+		this.ioIterationsQuantum = iterationsQuantum;
+	}
+
+	final int ioBytesQuantum() {
+		return this.ioBytesQuantum;
+	}
+
+	final int ioIterationsQuantum() {
+		return this.ioIterationsQuantum;
+	}
+
+	public final void setDiskScheduler(final DiskScheduler diskScheduler) {
+		this.diskScheduler = diskScheduler;
+	}
+
+	/**
+	 *
+	 * @return null if the file operations run on the reactor threads.
+	 */
+	public final DiskScheduler diskScheduler() {
+		return this.diskScheduler;
+	}
+
 	/* (non-Javadoc)
 	 * @see com.chinmobi.aio.impl.nio.ExceptionHandler#handleUncaughtException(Throwable ex)
 	 */
@@ -128,6 +161,17 @@ public final class SessionContext implements ExceptionHandler, Dispatcher {
 		return this;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.chinmobi.aio.impl.nio.Dispatcher#activeContexts()
+	 */
+	public final SessionContext[] activeContexts() {
+		if (this.dispatcher != null) {
+			return this.dispatcher.activeContexts();
+		}
+		return new SessionContext[] { this };
+	}
+
 	public final SessionContext dispatch() {
 		if (this.dispatcher != null) {
 			return this.dispatcher.dispatch(this);
@@ -25,7 +25,10 @@
 package com.chinmobi.aiotest.level0;
 
 import com.chinmobi.aio.AIOFuture;
+import com.chinmobi.aio.act.AIOActEntry;
 import com.chinmobi.aio.act.AIOActResult;
+import com.chinmobi.aio.act.entry.AIOBufferEntryBase;
+import com.chinmobi.aio.act.entry.AIOPooledBufferAllocator;
 import com.chinmobi.aio.impl.act.BaseActRequest;
 import com.chinmobi.aio.impl.util.TimerEntry;
 
@@ -40,6 +43,9 @@ public abstract class BaseActTestAction<T extends AIOActResult> extends Abstract
 	}
 
 
+	protected abstract AIOActEntry toRetainedEntry(AIOBufferEntryBase entry);
+
+
 	/*
 	 * Test methods
 	 */
@@ -731,6 +737,54 @@ public abstract class BaseActTestAction<T extends AIOActResult> extends Abstract
 		}
 	}
 
+	public final void testRetainedEntryTimeout() {
+		try {
+			final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+			final AIOBufferEntryBase entry = new AIOBufferEntryBase(allocator, 64);
+
+			BaseActRequest<T> request = createRequest(toRetainedEntry(entry));
+			assertEquals(2, entry.referenceCount());
+
+			// ---------------------------------------------
+			runAllTimeouts(System.currentTimeMillis() + 1000);
+
+			assertEquals(1, this.helper.timeoutCount);
+			assertTrue(containsFree(request));
+
+			assertEquals(1, entry.referenceCount());
+
+			assertTrue(entry.release());
+			assertEquals(1, allocator.getReleasedCount());
+
+		} catch (Exception ex) {
+			fail(ex);
+		}
+	}
+
+	public final void testRetainedEntryFailed() {
+		try {
+			final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+			final AIOBufferEntryBase entry = new AIOBufferEntryBase(allocator, 64);
+
+			this.helper.testCase = -1;
+
+			BaseActRequest<T> request = createRequest(toRetainedEntry(entry));
+
+			assertNull(sessionActor().currentRequest());
+
+			assertEquals(1, this.helper.failedCount);
+			assertTrue(containsFree(request));
+
+			assertEquals(1, entry.referenceCount());
+
+			assertTrue(entry.release());
+			assertEquals(1, allocator.getReleasedCount());
+
+		} catch (Exception ex) {
+			fail(ex);
+		}
+	}
+
 	private final void runAllTimeouts(final long now) {
 		final boolean[] hasNext = new boolean[1];
 
@@ -0,0 +1,239 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.nio.ByteBuffer;
+
+import com.chinmobi.aio.act.AIOInputLegacy;
+import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOReleasableActEntry;
+import com.chinmobi.aio.act.entry.AIOBufferEntryBase;
+import com.chinmobi.aio.act.entry.AIOBufferLeakDetector;
+import com.chinmobi.aio.act.entry.AIOPooledBufferAllocator;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class BufferAllocatorTestAction extends BaseTestAction {
+
+	public BufferAllocatorTestAction() {
+		super();
+	}
+
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testAllocateAndRelease() {
+		final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+
+		final ByteBuffer buffer = allocator.allocate(100);
+		assertTrue(buffer.isDirect());
+		assertEquals(128, buffer.capacity());
+		assertEquals(1, allocator.getChunkCount());
+		assertEquals(128, allocator.getCarvedBytes());
+
+		allocator.aioRelease(buffer);
+		assertEquals(1, allocator.getReleasedCount());
+
+		assertTrue(buffer == allocator.allocate(128));
+		assertEquals(128, allocator.getCarvedBytes());
+
+		final ByteBuffer large = allocator.allocate(8192);
+		assertEquals(8192, large.capacity());
+		assertEquals(1, allocator.getUnpooledCount());
+	}
+
+	public final void testReallocate() {
+		final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+
+		final ByteBuffer buffer = allocator.allocate(64);
+		buffer.put((byte)0x01);
+
+		final ByteBuffer newBuffer = allocator.aioAllocate(buffer, 200);
+		assertEquals(256, newBuffer.capacity());
+
+		buffer.flip();
+		newBuffer.put(buffer);
+		assertEquals(1, newBuffer.position());
+
+		assertTrue(buffer == allocator.allocate(10));
+	}
+
+	public final void testForeignAndRepeatedRelease() {
+		final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+
+		final ByteBuffer foreign = ByteBuffer.allocateDirect(128);
+		allocator.aioRelease(foreign);
+		assertEquals(0, allocator.getReleasedCount());
+		assertEquals(1, allocator.getRejectedCount());
+
+		final ByteBuffer buffer = allocator.allocate(128);
+		assertTrue(buffer != foreign);
+
+		allocator.aioRelease(buffer);
+		assertEquals(1, allocator.getReleasedCount());
+
+		try {
+			allocator.aioRelease(buffer);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ignore) {
+		}
+		assertEquals(1, allocator.getReleasedCount());
+
+		assertTrue(buffer == allocator.allocate(128));
+		assertTrue(allocator.allocate(128) != buffer);
+	}
+
+	public final void testThreadCacheSize() {
+		final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 1);
+
+		final ByteBuffer buffer0 = allocator.allocate(64);
+		final ByteBuffer buffer1 = allocator.allocate(64);
+
+		allocator.aioRelease(buffer0);
+		assertEquals(0, allocator.getSharedFreeBytes());
+
+		// One buffer cached on this thread, the one below it is spilled.
+		allocator.aioRelease(buffer1);
+		assertEquals(64, allocator.getSharedFreeBytes());
+
+		assertTrue(buffer1 == allocator.allocate(64));
+		assertTrue(buffer0 == allocator.allocate(64));
+		assertEquals(0, allocator.getSharedFreeBytes());
+
+		final AIOPooledBufferAllocator uncached = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 0);
+
+		final ByteBuffer buffer = uncached.allocate(64);
+		uncached.aioRelease(buffer);
+		assertEquals(64, uncached.getSharedFreeBytes());
+		assertTrue(buffer == uncached.allocate(64));
+	}
+
+	public final void testSteadyState() {
+		final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+
+		for (int i = 0; i < 1000; ++i) {
+			final AIOBufferEntryBase entry = new AIOBufferEntryBase(allocator, 1000);
+			entry.ensureCapacity(3000);
+			entry.release();
+		}
+
+		assertEquals(1, allocator.getChunkCount());
+		assertEquals(1024 + 4096, allocator.getCarvedBytes());
+	}
+
+	public final void testReferenceCount() {
+		final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+
+		final AIOBufferEntryBase entry = new AIOBufferEntryBase(allocator, 100);
+		entry.toOutput().byteBuffer().put((byte)0x01);
+		assertEquals(1, entry.referenceCount());
+
+		final AIOReadableActEntry input = entry.toRetainedInput();
+		final AIOInputLegacy legacy = entry.toRetainedInputLegacy();
+		assertEquals(3, entry.referenceCount());
+
+		input.completed(0, 1);
+		assertEquals(3, entry.referenceCount());
+
+		((AIOReleasableActEntry)input).released();
+		legacy.release();
+		assertEquals(1, entry.referenceCount());
+		assertEquals(0, allocator.getReleasedCount());
+
+		assertTrue(entry.release());
+		assertEquals(0, entry.referenceCount());
+		assertEquals(1, allocator.getReleasedCount());
+
+		try {
+			entry.retain();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ignore) {
+		}
+	}
+
+	public final void testLeakTracking() {
+		final AIOBufferLeakDetector detector = AIOBufferLeakDetector.getInstance();
+		final int interval = detector.getSamplingInterval();
+		detector.setSamplingInterval(1);
+		try {
+			final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+
+			final int trackedCount = detector.getTrackedCount();
+
+			final AIOBufferEntryBase entry = new AIOBufferEntryBase(allocator, 100);
+			assertEquals(trackedCount + 1, detector.getTrackedCount());
+
+			entry.release();
+			assertEquals(trackedCount, detector.getTrackedCount());
+		} finally {
+			detector.setSamplingInterval(interval);
+		}
+	}
+
+	public final void testLeakReport() {
+		final AIOBufferLeakDetector detector = AIOBufferLeakDetector.getInstance();
+		final int interval = detector.getSamplingInterval();
+		detector.setSamplingInterval(1);
+
+		final String[] reported = new String[1];
+		final Throwable[] allocationSite = new Throwable[1];
+		detector.setReporter(new AIOBufferLeakDetector.Reporter() {
+			public final void reportLeak(final String entryDescription, final Throwable site) {
+				reported[0] = entryDescription;
+				allocationSite[0] = site;
+			}
+		});
+		try {
+			final AIOPooledBufferAllocator allocator = new AIOPooledBufferAllocator(1, 64, 4096, 65536, 4);
+
+			final long leakCount = detector.getLeakCount();
+
+			new AIOBufferEntryBase(allocator, 100);
+
+			for (int i = 0; i < 50 && detector.getLeakCount() == leakCount; ++i) {
+				System.gc();
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException ex) {
+					fail(ex);
+				}
+				detector.reportLeaks();
+			}
+
+			assertEquals(leakCount + 1, detector.getLeakCount());
+			assertTrue(reported[0].startsWith(AIOBufferEntryBase.class.getName()));
+			assertNotNull(allocationSite[0]);
+		} finally {
+			detector.setReporter(null);
+			detector.setSamplingInterval(interval);
+		}
+	}
+
+}
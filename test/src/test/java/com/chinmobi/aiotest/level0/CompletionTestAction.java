@@ -0,0 +1,147 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.chinmobi.aio.AIOCompletion;
+import com.chinmobi.aio.AIOFuture;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class CompletionTestAction extends BaseTestAction {
+
+	public CompletionTestAction() {
+		super();
+	}
+
+
+	@Override
+	protected final void setUp(final String methodName) throws Exception {
+	}
+
+	@Override
+	protected final void tearDown() throws Exception {
+	}
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testExtracted() throws Exception {
+		final StubFuture future = new StubFuture();
+
+		final AIOCompletion<StringBuilder, String> completion = new AIOCompletion<StringBuilder, String>(
+				new AIOCompletion.Extractor<StringBuilder, String>() {
+					public String extract(final StringBuilder result) {
+						return result.toString();
+					}
+				});
+
+		final CompletableFuture<String> stage = completion.stage().toCompletableFuture();
+		assertFalse(stage.isDone());
+
+		completion.accomplished(future, null, new StringBuilder("abc"));
+
+		assertTrue(future.released);
+		assertEquals("abc", stage.get());
+	}
+
+	public final void testRetained() throws Exception {
+		final StubFuture future = new StubFuture();
+
+		final AIOCompletion<StringBuilder, StringBuilder> completion = AIOCompletion.retained();
+
+		final StringBuilder result = new StringBuilder("abc");
+		completion.accomplished(future, null, result);
+
+		assertFalse(future.released);
+		assertTrue(completion.future() == future);
+		assertTrue(completion.stage().toCompletableFuture().get() == result);
+	}
+
+	public final void testTimeout() throws Exception {
+		final StubFuture future = new StubFuture();
+
+		final AIOCompletion<StringBuilder, StringBuilder> completion = AIOCompletion.retained();
+		completion.timeout(future, null, null);
+
+		assertTrue(future.released);
+
+		try {
+			completion.stage().toCompletableFuture().get();
+			fail("Expected ExecutionException.");
+		} catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof TimeoutException);
+		}
+	}
+
+
+	private static final class StubFuture implements AIOFuture<StringBuilder> {
+
+		boolean released;
+
+
+		public final void release() {
+			this.released = true;
+		}
+
+		public final boolean cancel(final boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		public final StringBuilder get() {
+			return null;
+		}
+
+		public final StringBuilder get(final long timeout, final TimeUnit unit) {
+			return null;
+		}
+
+		public final boolean isCancelled() {
+			return false;
+		}
+
+		public final boolean isDone() {
+			return true;
+		}
+
+		public final int status() {
+			return 0;
+		}
+
+		public final Object attachment() {
+			return null;
+		}
+
+	}
+
+}
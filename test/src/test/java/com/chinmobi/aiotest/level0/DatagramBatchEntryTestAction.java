@@ -0,0 +1,139 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import com.chinmobi.aio.act.entry.AIODatagramBatchEntry;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class DatagramBatchEntryTestAction extends BaseTestAction {
+
+	public DatagramBatchEntryTestAction() {
+		super();
+	}
+
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testSlots() {
+		final AIODatagramBatchEntry entry = new AIODatagramBatchEntry(3, 16);
+
+		assertEquals(3, entry.slotCount());
+		assertEquals(0, entry.size());
+		assertEquals(48, entry.count());
+		assertTrue(entry.byteBuffer() == null);
+
+		final SocketAddress remote = new InetSocketAddress(8181);
+
+		for (int i = 0; i < 3; ++i) {
+			final ByteBuffer slot = entry.nextSlot();
+			assertNotNull(slot);
+			assertTrue(slot.isDirect());
+			assertEquals(16, slot.remaining());
+
+			slot.put((byte)i).put((byte)(i + 1));
+			entry.slotReceived(remote);
+		}
+
+		assertTrue(entry.nextSlot() == null);
+		assertEquals(3, entry.size());
+		assertEquals(0, entry.count());
+
+		for (int i = 0; i < 3; ++i) {
+			final ByteBuffer datagram = entry.datagram(i);
+			assertEquals(2, datagram.remaining());
+			assertEquals(i, datagram.get(0));
+			assertEquals(remote, entry.remoteAddress(i));
+		}
+
+		try {
+			entry.datagram(3);
+			fail("Should throw IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException ignore) {
+		}
+
+		entry.recycle();
+		assertEquals(0, entry.size());
+		assertNotNull(entry.nextSlot());
+	}
+
+	public final void testReceive() {
+		DatagramChannel receiver = null;
+		DatagramChannel sender = null;
+		try {
+			receiver = DatagramChannel.open();
+			receiver.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+			sender = DatagramChannel.open();
+
+			final SocketAddress target = receiver.socket().getLocalSocketAddress();
+			for (int i = 0; i < 4; ++i) {
+				sender.send(ByteBuffer.wrap(("datagram-" + i).getBytes()), target);
+			}
+
+			final AIODatagramBatchEntry entry = new AIODatagramBatchEntry(4, 64);
+
+			ByteBuffer slot;
+			while ((slot = entry.nextSlot()) != null) {
+				final SocketAddress remote = receiver.receive(slot);
+				assertNotNull(remote);
+				entry.slotReceived(remote);
+			}
+
+			assertEquals(4, entry.size());
+			for (int i = 0; i < 4; ++i) {
+				final ByteBuffer datagram = entry.datagram(i);
+				final byte[] bytes = new byte[datagram.remaining()];
+				datagram.get(bytes);
+				assertEquals("datagram-" + i, new String(bytes));
+			}
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			try {
+				if (sender != null) {
+					sender.close();
+				}
+				if (receiver != null) {
+					receiver.close();
+				}
+			} catch (Exception ignore) {
+			}
+		}
+	}
+
+}
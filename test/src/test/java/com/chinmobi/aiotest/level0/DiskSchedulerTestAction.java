@@ -0,0 +1,143 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+
+import com.chinmobi.aio.impl.nio.DiskScheduler;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class DiskSchedulerTestAction extends BaseTestAction {
+
+	private static final class QueuedExecutor implements Executor {
+
+		final LinkedList<Runnable> runnables = new LinkedList<Runnable>();
+
+
+		public final void execute(final Runnable command) {
+			this.runnables.add(command);
+		}
+
+		final boolean runNext() {
+			final Runnable runnable = this.runnables.poll();
+			if (runnable != null) {
+				runnable.run();
+				return true;
+			}
+			return false;
+		}
+
+	}
+
+	private static final class Operation extends DiskScheduler.Operation {
+
+		private final boolean toFail;
+
+		int completedCount;
+
+
+		Operation(final boolean toFail) {
+			this.toFail = toFail;
+		}
+
+
+		@Override
+		protected final void operate() throws IOException {
+			if (this.toFail) {
+				throw new IOException("Disk failure.");
+			}
+		}
+
+		@Override
+		protected final void onCompleted() {
+			++this.completedCount;
+		}
+
+		final IOException failure() {
+			return this.failure;
+		}
+
+	}
+
+
+	public DiskSchedulerTestAction() {
+		super();
+	}
+
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testBoundedInFlight() {
+		final QueuedExecutor executor = new QueuedExecutor();
+		final DiskScheduler scheduler = new DiskScheduler(executor, 2, 1024);
+
+		final Operation[] operations = new Operation[5];
+		for (int i = 0; i < operations.length; ++i) {
+			operations[i] = new Operation(false);
+			scheduler.submit(operations[i]);
+		}
+
+		assertEquals(2, scheduler.getOperationsInFlight());
+		assertEquals(2, executor.runnables.size());
+
+		int runs = 0;
+		while (executor.runNext()) {
+			++runs;
+			assertTrue(scheduler.getOperationsInFlight() <= 2);
+		}
+
+		assertEquals(5, runs);
+		assertEquals(0, scheduler.getOperationsInFlight());
+		assertEquals(5, scheduler.getOperationCount());
+		assertTrue(scheduler.getWaitTime() >= 0);
+
+		for (int i = 0; i < operations.length; ++i) {
+			assertEquals(1, operations[i].completedCount);
+			assertNull(operations[i].failure());
+		}
+	}
+
+	public final void testFailure() {
+		final QueuedExecutor executor = new QueuedExecutor();
+		final DiskScheduler scheduler = new DiskScheduler(executor, 1, 1024);
+
+		final Operation operation = new Operation(true);
+		scheduler.submit(operation);
+		executor.runNext();
+
+		assertEquals(1, operation.completedCount);
+		assertTrue(operation.failure() != null);
+		assertEquals(0, scheduler.getOperationsInFlight());
+	}
+
+}
@@ -0,0 +1,287 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.chinmobi.aio.AIOFuture;
+import com.chinmobi.aio.AIOFutureCallback;
+import com.chinmobi.aio.act.AIOActDirection;
+import com.chinmobi.aio.act.AIOActEntry;
+import com.chinmobi.aio.act.AIOInputActResult;
+import com.chinmobi.aio.act.AIOInputActStrategy;
+import com.chinmobi.aio.act.AIOInputActor;
+import com.chinmobi.aio.act.AIOInputLegacy;
+import com.chinmobi.aio.act.AIOInputLegacyView;
+import com.chinmobi.aio.act.AIOReadEntryPool;
+import com.chinmobi.aio.act.AIOWritableActEntry;
+import com.chinmobi.aio.codec.AIOFixedLengthFrameDecoder;
+import com.chinmobi.aio.codec.AIOFrameCorruptedException;
+import com.chinmobi.aio.codec.AIOLengthFieldFrameDecoder;
+import com.chinmobi.aio.codec.AIOLineFrameDecoder;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class FrameDecoderTestAction extends BaseTestAction {
+
+	private LegacyRecorder recorder;
+
+
+	public FrameDecoderTestAction() {
+		super();
+	}
+
+
+	@Override
+	protected final void setUp(final String methodName) throws Exception {
+		this.recorder = new LegacyRecorder();
+	}
+
+	@Override
+	protected final void tearDown() throws Exception {
+		this.recorder = null;
+	}
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testLengthField() {
+		final AIOLengthFieldFrameDecoder decoder =
+			new AIOLengthFieldFrameDecoder(1, 2, 0, ByteOrder.LITTLE_ENDIAN, 64);
+		decoder.reset(this.recorder, 1);
+
+		final Entry entry = new Entry(64, decoder.initialCount());
+
+		// Tag, length 4 (little endian), payload; then the next frame.
+		final byte[] wire = new byte[] { 7, 4, 0, 'a', 'b', 'c', 'd', 7, 1, 0, 'x' };
+
+		assertEquals(3, entry.read(decoder, wire, 0, 3));
+		assertEquals(4, entry.buffer.remaining());
+
+		assertEquals(4, entry.read(decoder, wire, 3, 8));
+		assertTrue(entry.terminated);
+
+		assertTrue(decoder.isFrameCompleted());
+		assertEquals(7, decoder.frameLength());
+		assertEquals(7, entry.buffer.position());
+		assertEquals(0, this.recorder.legacies.size());
+	}
+
+	public final void testLengthFieldOverRead() {
+		final AIOLengthFieldFrameDecoder decoder = new AIOLengthFieldFrameDecoder(1, 64);
+		decoder.reset(this.recorder, 1);
+
+		final Entry entry = new Entry(64, -1);
+
+		final byte[] wire = new byte[] { 2, 'a', 'b', 1, 'x' };
+
+		entry.read(decoder, wire, 0, wire.length);
+		assertTrue(entry.terminated);
+
+		assertEquals(3, decoder.frameLength());
+		assertEquals(3, entry.buffer.position());
+
+		assertEquals(1, this.recorder.legacies.size());
+		final ByteBuffer legacy = this.recorder.legacies.get(0).byteBuffer();
+		assertEquals(2, legacy.remaining());
+		assertEquals((byte)1, legacy.get(0));
+		assertEquals((byte)'x', legacy.get(1));
+	}
+
+	public final void testLengthFieldCorrupted() {
+		final AIOLengthFieldFrameDecoder decoder = new AIOLengthFieldFrameDecoder(1, 8);
+		decoder.reset(this.recorder, 1);
+
+		final Entry entry = new Entry(64, -1);
+
+		try {
+			entry.read(decoder, new byte[] { 100 }, 0, 1);
+			fail("Expected AIOFrameCorruptedException.");
+		} catch (AIOFrameCorruptedException ignore) {
+		}
+	}
+
+	public final void testLine() {
+		final AIOLineFrameDecoder decoder = new AIOLineFrameDecoder(64);
+		decoder.reset(this.recorder, 1);
+
+		final Entry entry = new Entry(64, -1);
+
+		final byte[] wire = "GET /\r\nHost".getBytes();
+
+		entry.read(decoder, wire, 0, 6);
+		assertFalse(entry.terminated);
+		assertFalse(decoder.isFrameCompleted());
+
+		entry.read(decoder, wire, 6, wire.length);
+		assertTrue(entry.terminated);
+
+		assertEquals(7, decoder.frameLength());
+		assertEquals(5, decoder.lineLength(entry.buffer, 0));
+		assertEquals(7, entry.buffer.position());
+
+		assertEquals(1, this.recorder.legacies.size());
+		assertEquals(4, this.recorder.legacies.get(0).byteBuffer().remaining());
+	}
+
+	public final void testFixedLength() {
+		final AIOFixedLengthFrameDecoder decoder = new AIOFixedLengthFrameDecoder(4);
+		decoder.reset(this.recorder, 1);
+
+		final Entry entry = new Entry(64, decoder.initialCount());
+
+		final byte[] wire = new byte[] { 1, 2, 3, 4 };
+
+		entry.read(decoder, wire, 0, 1);
+		assertFalse(entry.terminated);
+		assertEquals(3, entry.buffer.remaining());
+
+		entry.read(decoder, wire, 1, 4);
+		assertTrue(entry.terminated);
+		assertEquals(4, decoder.frameLength());
+	}
+
+
+	/**
+	 * Applies the directions of a strategy as the input act does.
+	 */
+	private static final class Entry implements AIOActEntry {
+
+		final ByteBuffer buffer;
+		boolean terminated;
+
+		private long total;
+
+
+		Entry(final int capacity, final int count) {
+			this.buffer = ByteBuffer.allocate(capacity);
+			if (count >= 0) {
+				this.buffer.limit(count);
+			}
+		}
+
+
+		final int read(final AIOInputActStrategy strategy, final byte[] wire, final int from, int to) {
+			if (to - from > this.buffer.remaining()) {
+				to = from + this.buffer.remaining();
+			}
+
+			final int reads = to - from;
+			this.buffer.put(wire, from, reads);
+			this.total += reads;
+
+			final AIOActDirection direction = strategy.determineInputActReads(this, 0, this.total, reads);
+			if (direction != null) {
+				final long newCount = direction.newActEntryCount();
+
+				if (direction.status() == AIOActDirection.Status.TERMINATE) {
+					if (newCount < 0) {
+						this.buffer.position(this.buffer.position() + (int)newCount);
+						this.total += newCount;
+					}
+					this.terminated = true;
+				} else if (newCount != 0) {
+					this.buffer.limit(this.buffer.position() + (int)newCount);
+				}
+			}
+
+			return reads;
+		}
+
+		public final ByteBuffer byteBuffer() {
+			return this.buffer;
+		}
+
+		public final FileChannel fileChannel() {
+			return null;
+		}
+
+		public final long position() {
+			return 0;
+		}
+
+		public final long count() {
+			return this.buffer.remaining();
+		}
+
+		public final void completed(final long position, final long count) {
+		}
+
+	}
+
+	private static final class LegacyRecorder implements AIOInputActor {
+
+		final List<AIOInputLegacy> legacies = new ArrayList<AIOInputLegacy>();
+
+
+		public final AIOFuture<AIOInputActResult> read(final int sessionId,
+				final AIOWritableActEntry target, final AIOFutureCallback<AIOInputActResult> callback,
+				final long timeout, final TimeUnit unit, final AIOInputActStrategy strategy, final Object attachment) {
+			throw new UnsupportedOperationException();
+		}
+
+		public final AIOFuture<AIOInputActResult> read(final int sessionId,
+				final AIOReadEntryPool pool, final AIOFutureCallback<AIOInputActResult> callback,
+				final long timeout, final TimeUnit unit, final AIOInputActStrategy strategy, final Object attachment) {
+			throw new UnsupportedOperationException();
+		}
+
+		public final AIOInputActResult getCurrentResult() {
+			return null;
+		}
+
+		public final int pushLegacy(final int sessionId, final AIOInputLegacy legacy, final boolean endOfInput) {
+			this.legacies.add(legacy);
+			return this.legacies.size() - 1;
+		}
+
+		public final int topIndexOfLegacy(final int sessionId) {
+			return this.legacies.size() - 1;
+		}
+
+		public final AIOInputLegacy popLegacy(final int sessionId) {
+			return this.legacies.isEmpty() ? null : this.legacies.remove(this.legacies.size() - 1);
+		}
+
+		public final AIOInputLegacyView viewLegacy(final int sessionId) {
+			throw new UnsupportedOperationException();
+		}
+
+		public final long skipLegacy(final int sessionId, final long count) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
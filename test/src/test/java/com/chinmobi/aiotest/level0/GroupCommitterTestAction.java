@@ -0,0 +1,141 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.chinmobi.aio.act.AIOForceableActEntry;
+import com.chinmobi.aio.act.AIOWritableActEntry;
+import com.chinmobi.aio.act.entry.AIOFileEntryBase;
+import com.chinmobi.aio.act.entry.AIOGroupCommitter;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class GroupCommitterTestAction extends BaseTestAction {
+
+	private File file;
+	private AIOGroupCommitter committer;
+
+
+	public GroupCommitterTestAction() {
+		super();
+	}
+
+
+	@Override
+	protected final void setUp(final String methodName) throws Exception {
+		this.file = File.createTempFile("aiotest", ".commit");
+		this.committer = new AIOGroupCommitter(50, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	protected final void tearDown() throws Exception {
+		this.committer.close();
+		this.file.delete();
+	}
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testGroupCommit() throws Exception {
+		final RandomAccessFile raFile = new RandomAccessFile(this.file, "rw");
+		try {
+			final FileChannel fileChannel = raFile.getChannel();
+
+			final int commits = 5;
+			final Callback callback = new Callback(commits);
+
+			for (int i = 0; i < commits; ++i) {
+				fileChannel.write(ByteBuffer.wrap(new byte[] { (byte)i }));
+				this.committer.commit(fileChannel, callback);
+			}
+
+			assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+			assertTrue(callback.cause == null);
+
+			assertEquals(commits, this.committer.getRequestCount());
+			assertEquals(1, this.committer.getForceCount());
+			assertEquals(commits - 1, this.committer.getForcesSaved());
+			assertTrue(this.committer.getMaximumLatency() > 0);
+			assertTrue(this.committer.getTotalLatency() >= this.committer.getMaximumLatency());
+		} finally {
+			raFile.close();
+		}
+	}
+
+	public final void testDurabilityMode() throws Exception {
+		AIOFileEntryBase entry = new AIOFileEntryBase(this.file);
+		try {
+			final AIOWritableActEntry output = entry.toOutput();
+			assertTrue(output instanceof AIOForceableActEntry);
+
+			assertFalse(((AIOForceableActEntry)output).force(new Callback(1)));
+		} finally {
+			entry.close();
+		}
+
+		entry = new AIOFileEntryBase(this.file, this.committer);
+		try {
+			final Callback callback = new Callback(1);
+			assertTrue(((AIOForceableActEntry)entry.toOutput()).force(callback));
+
+			assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+			assertTrue(callback.cause == null);
+		} finally {
+			entry.close();
+		}
+	}
+
+
+	private static final class Callback implements AIOForceableActEntry.Callback {
+
+		final CountDownLatch latch;
+		volatile Throwable cause;
+
+
+		Callback(final int count) {
+			this.latch = new CountDownLatch(count);
+		}
+
+
+		public final void forced(final Throwable cause) {
+			if (cause != null) {
+				this.cause = cause;
+			}
+			this.latch.countDown();
+		}
+
+	}
+
+}
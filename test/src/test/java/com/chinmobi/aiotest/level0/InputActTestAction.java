@@ -37,7 +37,11 @@ import com.chinmobi.aio.act.AIOActDirection;
 import com.chinmobi.aio.act.AIOActEntry;
 import com.chinmobi.aio.act.AIOInputActResult;
 import com.chinmobi.aio.act.AIOInputActStrategy;
+import com.chinmobi.aio.act.AIOReadEntryPool;
 import com.chinmobi.aio.act.AIOWritableActEntry;
+import com.chinmobi.aio.act.entry.AIOBufferEntryBase;
+import com.chinmobi.aio.act.entry.AIOSegmentedBufferEntry;
+import com.chinmobi.aio.codec.AIOLengthFieldFrameDecoder;
 import com.chinmobi.aio.impl.act.BaseActRequest;
 import com.chinmobi.aio.impl.act.BaseActor;
 import com.chinmobi.aio.impl.act.InputActRequest;
@@ -185,6 +189,23 @@ public final class InputActTestAction extends BaseActTestAction<AIOInputActResul
 	}
 
 
+	private static final class EntryPool implements AIOReadEntryPool {
+
+		int borrowedCount;
+		int reclaimedCount;
+
+		public final AIOWritableActEntry borrowEntry() {
+			++this.borrowedCount;
+			return new BufferActEntry();
+		}
+
+		public final void reclaimEntry(final AIOWritableActEntry entry) {
+			++this.reclaimedCount;
+		}
+
+	}
+
+
 	public InputActTestAction() {
 		super();
 		this.strategy = new ActStrategy();
@@ -205,6 +226,11 @@ public final class InputActTestAction extends BaseActTestAction<AIOInputActResul
 		return request;
 	}
 
+	@Override
+	protected final AIOActEntry toRetainedEntry(final AIOBufferEntryBase entry) {
+		return entry.toRetainedOutput();
+	}
+
 	@Override
 	protected final BaseActor<AIOInputActResult> sessionActor() {
 		return this.session.inputActor();
@@ -226,6 +252,48 @@ public final class InputActTestAction extends BaseActTestAction<AIOInputActResul
 	 * Test methods
 	 */
 
+	public final void testPooledRead() {
+		try {
+			final EntryPool pool = new EntryPool();
+
+			BaseActRequest<AIOInputActResult> request = this.session.inputActor().addRequest(this.session.id(),
+					pool, this.helper, 1000, TimeUnit.MILLISECONDS,
+					this.strategy, null);
+
+			assertTrue(sessionActor().contains(request));
+			assertNull(request.entry());
+			assertEquals(0, pool.borrowedCount);
+
+			// ---------------------------------------------
+			sessionActor().handleSessionReady(true);
+
+			assertTrue(sessionActor().contains(request));
+			assertNull(request.entry());
+			assertEquals(1, pool.borrowedCount);
+			assertEquals(1, pool.reclaimedCount);
+
+			assertEquals(0, this.helper.accomplishedCount);
+
+			// ---------------------------------------------
+			mockWrite(1);
+
+			while(!request.future().isDone())sessionActor().handleSessionReady(true);
+
+			assertFalse(sessionActor().contains(request));
+
+			assertEquals(1, this.helper.accomplishedCount);
+
+			assertEquals(1, request.completedCount());
+			assertEquals(pool.borrowedCount - 1, pool.reclaimedCount);
+
+			assertNull(sessionActor().currentRequest());
+
+			// ---------------------------------------------
+		} catch (Exception ex) {
+			fail(ex);
+		}
+	}
+
 	public final void testSessionReady0() {
 		try {
 			BufferActEntry entry = new BufferActEntry();
@@ -404,6 +472,68 @@ public final class InputActTestAction extends BaseActTestAction<AIOInputActResul
 		}
 	}
 
+	public final void testSessionReadyGiveBack() {
+		try {
+			final AIOLengthFieldFrameDecoder decoder = new AIOLengthFieldFrameDecoder(1, 64);
+			decoder.reset(this.session.inputActor(), this.session.id());
+
+			BufferActEntry entry = new BufferActEntry(64);
+
+			BaseActRequest<AIOInputActResult> request = this.session.inputActor().addRequest(this.session.id(),
+					entry, this.helper, 1000, TimeUnit.MILLISECONDS,
+					decoder, null);
+
+			assertTrue(sessionActor().contains(request));
+
+			// ---------------------------------------------
+			// One frame and the head of the next one in a single read.
+			mockWrite(new byte[] { 2, 'a', 'b', 1, 'x' });
+
+			while(!request.future().isDone())sessionActor().handleSessionReady(true);
+
+			assertFalse(sessionActor().contains(request));
+
+			assertEquals(1, this.helper.accomplishedCount);
+
+			assertTrue(decoder.isFrameCompleted());
+			assertEquals(3, decoder.frameLength());
+
+			assertEquals(3, entry.position());
+			assertEquals(0, request.position());
+			assertEquals(3, request.completedCount());
+
+			assertEquals(0, this.session.inputActor().topIndexOfLegacy(this.session.id()));
+
+			// ---------------------------------------------
+			// The next act reads the given back bytes from the legacy.
+			decoder.reset(this.session.inputActor(), this.session.id());
+
+			entry = new BufferActEntry(64);
+
+			request = this.session.inputActor().addRequest(this.session.id(),
+					entry, this.helper, 1000, TimeUnit.MILLISECONDS,
+					decoder, null);
+
+			while(!request.future().isDone())sessionActor().handleSessionReady(true);
+
+			assertEquals(2, this.helper.accomplishedCount);
+
+			assertTrue(decoder.isFrameCompleted());
+			assertEquals(2, decoder.frameLength());
+			assertEquals(2, request.completedCount());
+			assertEquals((byte)1, entry.byteBuffer().get(0));
+			assertEquals((byte)'x', entry.byteBuffer().get(1));
+
+			assertEquals(-1, this.session.inputActor().topIndexOfLegacy(this.session.id()));
+
+			assertNull(sessionActor().currentRequest());
+
+			// ---------------------------------------------
+		} catch (Exception ex) {
+			fail(ex);
+		}
+	}
+
 	public final void testSessionReadyFile0() {
 		FileActEntry entry = null;
 		try {
@@ -569,6 +699,66 @@ public final class InputActTestAction extends BaseActTestAction<AIOInputActResul
 		}
 	}
 
+	public final void testSessionReadySegmented() {
+		try {
+			final AIOSegmentedBufferEntry entry = new AIOSegmentedBufferEntry(16);
+
+			BaseActRequest<AIOInputActResult> request = createRequest(entry.toOutput(40));
+
+			assertTrue(sessionActor().contains(request));
+			assertEquals(40, request.entry().count());
+
+			// ---------------------------------------------
+			mockWrite(30);
+
+			while(!request.future().isDone())sessionActor().handleSessionReady(true);
+
+			assertFalse(sessionActor().contains(request));
+
+			if (this.helper.cause != null) {
+				fail(this.helper.cause);
+			}
+			assertEquals(1, this.helper.accomplishedCount);
+
+			assertEquals(30, request.completedCount());
+			assertEquals(30, entry.readableBytes());
+			assertEquals(3, entry.segmentCount());
+
+			// ---------------------------------------------
+			final AIOSegmentedBufferEntry empty = new AIOSegmentedBufferEntry(16);
+
+			final AIOWritableActEntry output = empty.toOutput(0);
+			assertEquals(0, output.count());
+
+			request = createRequest(output);
+
+			while(!request.future().isDone())sessionActor().handleSessionReady(true);
+
+			if (this.helper.cause != null) {
+				fail(this.helper.cause);
+			}
+			assertEquals(2, this.helper.accomplishedCount);
+
+			assertEquals(0, request.completedCount());
+			assertEquals(0, empty.readableBytes());
+
+			assertNull(sessionActor().currentRequest());
+
+			// ---------------------------------------------
+		} catch (Exception ex) {
+			fail(ex);
+		}
+	}
+
+	private final void mockWrite(final byte[] bytes) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+		final WritableByteChannel channel = this.pipe.sink();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
 	private final void mockWrite(final int count) throws IOException {
 		final ByteBuffer buffer = ByteBuffer.allocate(count > 16 ? count : 16);
 		for (int i = 0; i < count; ++i) {
@@ -38,6 +38,7 @@ import com.chinmobi.aio.act.AIOActEntry;
 import com.chinmobi.aio.act.AIOInputActResult;
 import com.chinmobi.aio.act.AIOInputActor;
 import com.chinmobi.aio.act.AIOInputLegacy;
+import com.chinmobi.aio.act.AIOInputLegacyView;
 import com.chinmobi.aio.act.AIOWritableActEntry;
 import com.chinmobi.aio.impl.act.BaseActRequest;
 import com.chinmobi.aio.impl.act.BaseActor;
@@ -289,6 +290,63 @@ public final class InputLegacyTestAction extends AbstractActTestAction<AIOInputA
 		}
 	}
 
+	public final void testViewAndSkipLegacy() {
+		try {
+			final BufferLegacy legacy1 = new BufferLegacy();
+			legacy1.set(1, 5);
+			legacy1.byteBuffer().put(1, (byte)'\n').put(2, (byte)'c').put(3, (byte)'d')
+				.put(4, (byte)'\r').put(5, (byte)'\n');
+
+			final BufferLegacy legacy2 = new BufferLegacy();
+			legacy2.set(0, 3);
+			legacy2.byteBuffer().put(0, (byte)'a').put(1, (byte)'b').put(2, (byte)'\r');
+
+			assertEquals(0, inputActor().viewLegacy(this.session.id()).length());
+
+			inputActor().pushLegacy(this.session.id(), legacy1, true);
+			inputActor().pushLegacy(this.session.id(), legacy2, true);
+
+			final byte[] delimiter = new byte[] { '\r', '\n' };
+
+			AIOInputLegacyView view = inputActor().viewLegacy(this.session.id());
+
+			assertEquals(2, view.byteBuffers().length);
+			assertEquals(8, view.length());
+			assertEquals((byte)'a', view.get(0));
+			assertEquals((byte)'\n', view.get(3));
+			assertEquals(4, view.indexOf((byte)'c', 0));
+			assertEquals(-1, view.indexOf((byte)'x', 0));
+			assertEquals(2, view.indexOf(delimiter, 0));
+			assertEquals(6, view.indexOf(delimiter, 3));
+
+			assertEquals(4, view.skip(4));
+			assertEquals(4, view.length());
+			assertEquals((byte)'c', view.get(0));
+			assertEquals(2, view.indexOf(delimiter, 0));
+
+			// The view does not consume the legacies.
+			assertEquals(1, inputActor().topIndexOfLegacy(this.session.id()));
+			assertEquals(0, legacy2.byteBuffer().position());
+
+			assertEquals(4, inputActor().skipLegacy(this.session.id(), 4));
+
+			assertTrue(legacy2.isReleased());
+			assertFalse(legacy1.isReleased());
+			assertEquals(0, inputActor().topIndexOfLegacy(this.session.id()));
+
+			view = inputActor().viewLegacy(this.session.id());
+			assertEquals(4, view.length());
+			assertEquals((byte)'c', view.get(0));
+
+			assertEquals(4, inputActor().skipLegacy(this.session.id(), 10));
+			assertTrue(legacy1.isReleased());
+			assertEquals(-1, inputActor().topIndexOfLegacy(this.session.id()));
+
+		} catch (Exception ex) {
+			fail(ex);
+		}
+	}
+
 	public final void testLegacyRelease() {
 		try {
 			final BufferLegacy legacy1 = new BufferLegacy();
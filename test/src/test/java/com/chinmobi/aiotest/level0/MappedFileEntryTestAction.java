@@ -0,0 +1,149 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.entry.AIOMappedFileCache;
+import com.chinmobi.aio.act.entry.AIOMappedFileEntry;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class MappedFileEntryTestAction extends BaseTestAction {
+
+	private File file;
+
+
+	public MappedFileEntryTestAction() {
+		super();
+	}
+
+
+	@Override
+	protected final void setUp(final String methodName) throws Exception {
+		this.file = File.createTempFile("aiotest", ".mapped");
+
+		final byte[] bytes = new byte[3000];
+		for (int i = 0; i < bytes.length; ++i) {
+			bytes[i] = (byte)i;
+		}
+
+		final FileOutputStream out = new FileOutputStream(this.file);
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+	}
+
+	@Override
+	protected final void tearDown() throws Exception {
+		this.file.delete();
+	}
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testWindows() throws IOException {
+		final AIOMappedFileCache cache = new AIOMappedFileCache(1024, 2);
+
+		final AIOMappedFileEntry entry = new AIOMappedFileEntry(cache, this.file);
+
+		int total = 0;
+		while (entry.hasRemaining()) {
+			final AIOReadableActEntry input = entry.toInput();
+			final ByteBuffer buffer = input.byteBuffer();
+
+			assertEquals((byte)total, buffer.get(buffer.position()));
+
+			final int count = buffer.remaining();
+			buffer.position(buffer.limit());
+			input.completed(0, count);
+
+			total += count;
+		}
+		entry.release();
+
+		assertEquals(3000, total);
+		assertEquals(3, cache.misses());
+		assertEquals(1, cache.evictions());
+		assertEquals(2, cache.size());
+
+		final AIOMappedFileEntry range = new AIOMappedFileEntry(cache, this.file, 2100, 2200);
+		final ByteBuffer buffer = range.toInput().byteBuffer();
+		assertEquals(100, buffer.remaining());
+		assertEquals((byte)2100, buffer.get(buffer.position()));
+		range.release();
+
+		assertEquals(1, cache.hits());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	public final void testOutstandingViews() throws IOException {
+		final AIOMappedFileCache cache = new AIOMappedFileCache(1024, 2);
+
+		final AIOMappedFileCache.Mapping mapping = cache.acquire(this.file, 0, 3000);
+		final ByteBuffer view = mapping.buffer();
+		mapping.release();
+
+		cache.clear();
+		assertEquals(0, cache.size());
+
+		// Not unmapped while the view is out.
+		assertEquals((byte)100, view.get(100));
+
+		try {
+			mapping.buffer();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ignore) {
+		}
+
+		final AIOMappedFileCache.Mapping other = cache.acquire(this.file, 1024, 3000);
+		assertTrue(other != mapping);
+
+		final ByteBuffer otherView = other.buffer();
+		assertEquals((byte)1024, otherView.get(0));
+		other.release(otherView);
+
+		cache.clear();
+
+		try {
+			other.release();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ignore) {
+		}
+	}
+
+}
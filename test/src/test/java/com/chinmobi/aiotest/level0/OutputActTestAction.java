@@ -28,19 +28,33 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.TimeUnit;
 
 import com.chinmobi.aio.act.AIOActEntry;
 import com.chinmobi.aio.act.AIOOutputActResult;
 import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.entry.AIOBufferEntryBase;
+import com.chinmobi.aio.act.entry.AIOMultipartEntry;
+import com.chinmobi.aio.act.entry.AIOSegmentedBufferEntry;
 import com.chinmobi.aio.impl.act.BaseActRequest;
 import com.chinmobi.aio.impl.act.BaseActor;
 import com.chinmobi.aio.impl.act.OutputActRequest;
+import com.chinmobi.aio.impl.channels.ChannelsFactory;
+import com.chinmobi.aio.impl.nio.CorkableChannel;
+import com.chinmobi.aio.impl.nio.HandshakeHandler;
 import com.chinmobi.aio.impl.nio.Session;
+import com.chinmobi.aio.impl.nio.TransportChannel;
 
 /**
  * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
@@ -54,10 +68,17 @@ public final class OutputActTestAction extends BaseActTestAction<AIOOutputActRes
 		private final FileInputStream inputStream;
 		private final FileChannel fileChannel;
 
+		private final boolean openEnded;
+
 
 		public FileActEntry(final String fileName) throws IOException {
+			this(fileName, false);
+		}
+
+		public FileActEntry(final String fileName, final boolean openEnded) throws IOException {
 			this.inputStream = new FileInputStream(fileName);
 			this.fileChannel = this.inputStream.getChannel();
+			this.openEnded = openEnded;
 		}
 
 
@@ -81,6 +102,9 @@ public final class OutputActTestAction extends BaseActTestAction<AIOOutputActRes
 		}
 
 		public final long count() {
+			if (this.openEnded) {
+				return -1;
+			}
 			try {
 				return this.fileChannel.size() - this.fileChannel.position();
 			} catch (IOException ex) {
@@ -107,6 +131,116 @@ public final class OutputActTestAction extends BaseActTestAction<AIOOutputActRes
 	}
 
 
+	private static final class CorkedTransportChannel implements TransportChannel, CorkableChannel {
+
+		private final TransportChannel transportChannel;
+
+		private final Helper<AIOOutputActResult> helper;
+
+		private boolean corked;
+		private int corkedCount;
+
+		private boolean toFailUncork;
+		private int accomplishedCountOnUncork;
+
+
+		CorkedTransportChannel(final SelectableChannel channel, final Helper<AIOOutputActResult> helper) {
+			this.transportChannel = ChannelsFactory.createTransportChannel(channel);
+			this.helper = helper;
+			this.accomplishedCountOnUncork = -1;
+		}
+
+
+		public final int open() throws IOException {
+			return this.transportChannel.open();
+		}
+
+		public final void close() {
+			this.transportChannel.close();
+		}
+
+		public final boolean isSupportedInput() {
+			return false;
+		}
+
+		public final boolean isSupportedOutput() {
+			return this.transportChannel.isSupportedOutput();
+		}
+
+		public final boolean shutdownInput() {
+			return this.transportChannel.shutdownInput();
+		}
+
+		public final boolean shutdownOutput() {
+			return this.transportChannel.shutdownOutput();
+		}
+
+		public final HandshakeHandler getHandshakeHandler() {
+			return null;
+		}
+
+		public final SelectableChannel selectableChannel() {
+			return this.transportChannel.selectableChannel();
+		}
+
+		public final ReadableByteChannel readableChannel() {
+			return null;
+		}
+
+		public final ScatteringByteChannel scatteringChannel() {
+			return null;
+		}
+
+		public final WritableByteChannel writableChannel() {
+			return this;
+		}
+
+		public final GatheringByteChannel gatheringChannel() {
+			return null;
+		}
+
+		public final DatagramChannel datagramChannel() {
+			return null;
+		}
+
+		public final SocketAddress remoteSocketAddress() {
+			return null;
+		}
+
+		public final SocketAddress localSocketAddress() {
+			return null;
+		}
+
+		public final boolean isOpen() {
+			return this.transportChannel.selectableChannel().isOpen();
+		}
+
+		public final int write(final ByteBuffer src) throws IOException {
+			if (!this.corked) {
+				return this.transportChannel.writableChannel().write(src);
+			}
+			// Reported as written, held back until uncorked.
+			final int count = src.remaining();
+			src.position(src.limit());
+			this.corkedCount += count;
+			return count;
+		}
+
+		public final void cork() {
+			this.corked = true;
+		}
+
+		public final void uncork() throws IOException {
+			this.corked = false;
+			this.accomplishedCountOnUncork = this.helper.accomplishedCount;
+			if (this.toFailUncork) {
+				throw new IOException("uncork");
+			}
+		}
+
+	}
+
+
 	public OutputActTestAction() {
 		super();
 	}
@@ -130,6 +264,14 @@ public final class OutputActTestAction extends BaseActTestAction<AIOOutputActRes
 		return request;
 	}
 
+	@Override
+	protected final AIOActEntry toRetainedEntry(final AIOBufferEntryBase entry) {
+		final AIOActEntry input = entry.toRetainedInput();
+		// Left for createRequest to put the byte to write.
+		input.byteBuffer().clear();
+		return input;
+	}
+
 	@Override
 	protected final BaseActor<AIOOutputActResult> sessionActor() {
 		return this.session.outputActor();
@@ -188,6 +330,72 @@ public final class OutputActTestAction extends BaseActTestAction<AIOOutputActRes
 		}
 	}
 
+	public final void testCorkedSessionReady() {
+		final Pipe pipe;
+		try {
+			pipe = Pipe.open();
+		} catch (IOException ex) {
+			fail(ex);
+			return;
+		}
+		Session session = null;
+		try {
+			final CorkedTransportChannel transportChannel = new CorkedTransportChannel(pipe.sink(), this.helper);
+			session = sessionCreator().createSession(transportChannel, SelectionKey.OP_WRITE, this);
+
+			BufferActEntry entry = new BufferActEntry();
+			entry.byteBuffer().put((byte)0x00);
+			entry.byteBuffer().flip();
+
+			session.outputActor().addRequest(session.id(), entry, this.helper, 1000, TimeUnit.MILLISECONDS, null);
+
+			session.outputActor().handleSessionReady(true);
+
+			assertEquals(1, transportChannel.corkedCount);
+			assertEquals(0, transportChannel.accomplishedCountOnUncork);
+			assertEquals(1, this.helper.accomplishedCount);
+			assertEquals(0, this.helper.failedCount);
+
+			// ---------------------------------------------
+
+			transportChannel.toFailUncork = true;
+
+			entry = new BufferActEntry();
+			entry.byteBuffer().put((byte)0x00);
+			entry.byteBuffer().flip();
+
+			session.outputActor().addRequest(session.id(), entry, this.helper, 1000, TimeUnit.MILLISECONDS, null);
+
+			session.outputActor().handleSessionReady(true);
+
+			assertEquals(2, transportChannel.corkedCount);
+			assertEquals(1, this.helper.accomplishedCount);
+			assertEquals(1, this.helper.failedCount);
+			assertEquals("uncork", this.helper.cause.getMessage());
+			assertTrue(session.isOutputShutdown());
+
+			assertNull(session.outputActor().currentRequest());
+
+			// ---------------------------------------------
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			if (session != null) {
+				session.close();
+				session.getEventHandler().close();
+			}
+			try {
+				pipe.sink().close();
+			} catch (IOException ignore) {
+			}
+			try {
+				pipe.source().close();
+			} catch (IOException ignore) {
+			}
+		}
+	}
+
 	public final void testSessionReadyFile0() {
 		FileActEntry entry = null;
 		try {
@@ -290,6 +498,168 @@ public final class OutputActTestAction extends BaseActTestAction<AIOOutputActRes
 		}
 	}
 
+	public final void testSessionReadyMultipart() {
+		FileActEntry file = null;
+		try {
+			final String fileName = "../tmp/outacttest1.txt";
+			ensureFileExist(fileName, 10);
+
+			file = new FileActEntry(fileName);
+
+			final AIOMultipartEntry multipart = new AIOMultipartEntry();
+			multipart.add(ByteBuffer.wrap(new byte[] { 0x01, 0x02, 0x03, 0x04 }));
+			multipart.add(file);
+			multipart.add(ByteBuffer.wrap(new byte[] { 0x0D, 0x0A }));
+
+			final AIOReadableActEntry entry = multipart.toInput();
+			assertEquals(16, entry.count());
+
+			BaseActRequest<AIOOutputActResult> request = createRequest(entry);
+
+			assertTrue(sessionActor().contains(request));
+
+			assertEquals(0, this.helper.accomplishedCount);
+
+			// ---------------------------------------------
+
+			sessionActor().handleSessionReady(true);
+
+			assertFalse(sessionActor().contains(request));
+
+			assertEquals(1, this.helper.accomplishedCount);
+
+			assertEquals(16, request.completedCount());
+			assertEquals(10, file.position());
+			assertEquals(0, file.count());
+
+			assertNull(sessionActor().currentRequest());
+
+			// ---------------------------------------------
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			if (file != null) {
+				file.close();
+			}
+		}
+	}
+
+	public final void testSessionReadyMultipartOpenEnded() {
+		FileActEntry file = null;
+		try {
+			final String fileName = "../tmp/outacttest2.txt";
+			ensureFileExist(fileName, 10);
+
+			file = new FileActEntry(fileName, true);
+			file.fileChannel().position(3);
+
+			final AIOMultipartEntry multipart = new AIOMultipartEntry();
+			multipart.add(ByteBuffer.wrap(new byte[] { 0x01, 0x02, 0x03, 0x04 }));
+			multipart.add(file);
+			multipart.add(ByteBuffer.wrap(new byte[] { 0x0D, 0x0A }));
+
+			final AIOReadableActEntry entry = multipart.toInput();
+			assertEquals(13, entry.count());
+
+			BaseActRequest<AIOOutputActResult> request = createRequest(entry);
+
+			assertTrue(sessionActor().contains(request));
+			assertEquals(13, request.entry().count());
+
+			// ---------------------------------------------
+
+			sessionActor().handleSessionReady(true);
+
+			assertFalse(sessionActor().contains(request));
+
+			assertEquals(1, this.helper.accomplishedCount);
+
+			assertEquals(13, request.completedCount());
+			assertEquals(10, file.position());
+
+			final ByteBuffer dst = ByteBuffer.allocate(13);
+			final ReadableByteChannel channel = this.pipe.source();
+			while (dst.hasRemaining()) {
+				channel.read(dst);
+			}
+			assertEquals(0x04, dst.get(3));
+			assertEquals(0x00, dst.get(4));
+			assertEquals(0x00, dst.get(10));
+			assertEquals(0x0D, dst.get(11));
+			assertEquals(0x0A, dst.get(12));
+
+			assertNull(sessionActor().currentRequest());
+
+			// ---------------------------------------------
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			if (file != null) {
+				file.close();
+			}
+		}
+	}
+
+	public final void testSessionReadySegmented() {
+		try {
+			final AIOSegmentedBufferEntry entry = new AIOSegmentedBufferEntry(16);
+
+			final ByteBuffer src = ByteBuffer.allocate(40);
+			for (int i = 0; i < 40; ++i) {
+				src.put((byte)i);
+			}
+			src.flip();
+			entry.put(src);
+
+			BaseActRequest<AIOOutputActResult> request = createRequest(entry.toInput());
+
+			assertTrue(sessionActor().contains(request));
+			assertEquals(40, request.entry().count());
+
+			// ---------------------------------------------
+
+			sessionActor().handleSessionReady(true);
+
+			assertFalse(sessionActor().contains(request));
+
+			assertEquals(1, this.helper.accomplishedCount);
+
+			assertEquals(40, request.completedCount());
+			assertEquals(0, entry.readableBytes());
+
+			final ByteBuffer dst = ByteBuffer.allocate(40);
+			final ReadableByteChannel channel = this.pipe.source();
+			while (dst.hasRemaining()) {
+				channel.read(dst);
+			}
+			for (int i = 0; i < 40; ++i) {
+				assertEquals(i, dst.get(i));
+			}
+
+			// ---------------------------------------------
+			final AIOSegmentedBufferEntry empty = new AIOSegmentedBufferEntry(16);
+
+			request = createRequest(empty.toInput());
+			assertEquals(0, request.entry().count());
+
+			sessionActor().handleSessionReady(true);
+
+			assertFalse(sessionActor().contains(request));
+
+			assertEquals(2, this.helper.accomplishedCount);
+			assertEquals(0, request.completedCount());
+
+			assertNull(sessionActor().currentRequest());
+
+			// ---------------------------------------------
+
+		} catch (Exception ex) {
+			fail(ex);
+		}
+	}
+
 	private static final void ensureFileExist(final String fileName, final int bytes)
 			throws IOException {
 		final File file = new File(fileName);
@@ -0,0 +1,247 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.chinmobi.aio.AIOFuture;
+import com.chinmobi.aio.AIOReactor;
+import com.chinmobi.aio.AIOSession;
+import com.chinmobi.aio.act.AIOInputActResult;
+import com.chinmobi.aio.act.AIOInputActStrategy;
+import com.chinmobi.aio.act.AIOInputLegacy;
+import com.chinmobi.aio.act.AIOOutputActResult;
+import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOWritableActEntry;
+import com.chinmobi.aio.codec.AIOPipeline;
+import com.chinmobi.aio.codec.AIOPipelineContext;
+import com.chinmobi.aio.codec.AIOPipelineStageAdapter;
+import com.chinmobi.aio.service.AIOService;
+import com.chinmobi.aio.service.AIOServiceCallback;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class PipelineTestAction extends BaseTestAction {
+
+	private StubService service;
+	private AIOPipeline pipeline;
+	private List<String> events;
+
+
+	public PipelineTestAction() {
+		super();
+	}
+
+
+	@Override
+	protected final void setUp(final String methodName) throws Exception {
+		this.service = new StubService();
+		this.pipeline = new AIOPipeline(this.service, 0, TimeUnit.MILLISECONDS);
+		this.events = new ArrayList<String>();
+	}
+
+	@Override
+	protected final void tearDown() throws Exception {
+		this.pipeline = null;
+		this.service = null;
+	}
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testInboundByReference() {
+		final Entry entry = new Entry(ByteBuffer.wrap("ab".getBytes()));
+
+		this.pipeline.addLast(new AIOPipelineStageAdapter() {
+			@Override
+			public void inbound(final AIOPipelineContext context, final Object message) throws Exception {
+				final AIOPipeline.Input input = (AIOPipeline.Input)message;
+				events.add("decode:" + input.completedCount());
+				context.fireInbound(input.entry().byteBuffer());
+			}
+		});
+		this.pipeline.addLast(new AIOPipelineStageAdapter() {
+			@Override
+			public void inbound(final AIOPipelineContext context, final Object message) throws Exception {
+				assertTrue(message == entry.buffer);
+				events.add("handle");
+			}
+		});
+
+		this.pipeline.aioReadAccomplished(this.service, entry, 0, 2, false);
+
+		assertEquals(2, this.events.size());
+		assertEquals("decode:2", this.events.get(0));
+		assertEquals("handle", this.events.get(1));
+	}
+
+	public final void testDefer() {
+		this.pipeline.addLast(new AIOPipelineStageAdapter() {
+			@Override
+			public void inbound(final AIOPipelineContext context, final Object message) throws Exception {
+				context.defer(new Runnable() {
+					public void run() {
+						events.add("deferred");
+					}
+				});
+				context.fireInbound(message);
+			}
+		});
+		this.pipeline.addLast(new AIOPipelineStageAdapter() {
+			@Override
+			public void inbound(final AIOPipelineContext context, final Object message) throws Exception {
+				events.add("handle");
+			}
+		});
+
+		this.pipeline.fireInbound("msg");
+
+		assertEquals(2, this.events.size());
+		assertEquals("handle", this.events.get(0));
+		assertEquals("deferred", this.events.get(1));
+	}
+
+	public final void testOutbound() {
+		this.pipeline.addLast(new AIOPipelineStageAdapter() {
+			@Override
+			public void outbound(final AIOPipelineContext context, final Object message) throws Exception {
+				context.fireOutbound(new Entry(ByteBuffer.wrap(((String)message).getBytes())));
+			}
+		});
+
+		this.pipeline.write("xyz");
+
+		assertEquals(1, this.service.written.size());
+		assertEquals(3, this.service.written.get(0).byteBuffer().remaining());
+	}
+
+	public final void testException() {
+		this.pipeline.addLast(new AIOPipelineStageAdapter() {
+			@Override
+			public void inbound(final AIOPipelineContext context, final Object message) throws Exception {
+				throw new IllegalStateException("bad");
+			}
+		});
+
+		this.pipeline.fireInbound("msg");
+
+		assertTrue(this.service.closed);
+	}
+
+
+	private static final class Entry implements AIOReadableActEntry, AIOWritableActEntry {
+
+		final ByteBuffer buffer;
+
+
+		Entry(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+
+		public final ByteBuffer byteBuffer() {
+			return this.buffer;
+		}
+
+		public final FileChannel fileChannel() {
+			return null;
+		}
+
+		public final long position() {
+			return this.buffer.position();
+		}
+
+		public final long count() {
+			return this.buffer.remaining();
+		}
+
+		public final void completed(final long position, final long count) {
+		}
+
+	}
+
+	private static final class StubService implements AIOService {
+
+		final List<AIOReadableActEntry> written = new ArrayList<AIOReadableActEntry>();
+		boolean closed;
+
+
+		public final boolean isOpen() {
+			return !this.closed;
+		}
+
+		public final void close() {
+			this.closed = true;
+		}
+
+		public final AIOSession session() {
+			return null;
+		}
+
+		public final void setSessionTimeout(final long timeout, final TimeUnit unit) {
+		}
+
+		public final AIOServiceCallback getServiceCallback() {
+			return null;
+		}
+
+		public final AIOFuture<AIOInputActResult> read(final AIOWritableActEntry target,
+				final ReadCallback callback, final AIOInputActStrategy strategy, final long timeout, final TimeUnit unit) {
+			return null;
+		}
+
+		public final int pushInputLegacy(final AIOInputLegacy legacy, final boolean endOfInput) {
+			return -1;
+		}
+
+		public final int topIndexOfInputLegacy() {
+			return -1;
+		}
+
+		public final AIOInputLegacy popInputLegacy() {
+			return null;
+		}
+
+		public final AIOFuture<AIOOutputActResult> write(final AIOReadableActEntry source,
+				final WriteCallback callback, final long timeout, final TimeUnit unit) {
+			this.written.add(source);
+			return null;
+		}
+
+		public final AIOReactor reactor() {
+			return null;
+		}
+
+	}
+
+}
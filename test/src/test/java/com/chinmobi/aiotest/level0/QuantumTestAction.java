@@ -0,0 +1,294 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.io.IOException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.TimeUnit;
+
+import com.chinmobi.aio.AIOClosedSessionException;
+import com.chinmobi.aio.AIONotActiveException;
+import com.chinmobi.aio.AIOServiceHandler;
+import com.chinmobi.aio.AIOSession;
+import com.chinmobi.aio.act.AIOOutputActResult;
+import com.chinmobi.aio.impl.act.OutputActRequest;
+import com.chinmobi.aio.impl.nio.Demultiplexer;
+import com.chinmobi.aio.impl.nio.EventHandler;
+import com.chinmobi.aio.impl.nio.Session;
+import com.chinmobi.aio.impl.nio.SessionContext;
+import com.chinmobi.aio.impl.util.TimerEntry;
+import com.chinmobi.aio.impl.util.TimerEntrySet;
+import com.chinmobi.app.action.ActionContext;
+import com.chinmobi.logging.LogManager;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class QuantumTestAction extends BaseTestAction
+	implements TimerEntrySet.Observer, Demultiplexer.ActiveChecker, AIOServiceHandler.Factory {
+
+	private static final String TEST_SELECTOR = "test.selector";
+
+
+	private static final class ServiceHandler implements AIOServiceHandler {
+
+		public final void handleAIOSessionOpened(final AIOSession session) throws AIOClosedSessionException {
+		}
+
+		public final boolean handleAIOSessionInputReady(final AIOSession session)
+				throws IOException, AIOClosedSessionException {
+			return false;
+		}
+
+		public final boolean handleAIOSessionOutputReady(final AIOSession session)
+				throws IOException, AIOClosedSessionException {
+			return false;
+		}
+
+		public final void handleAIOSessionTimeout(final AIOSession session) throws AIOClosedSessionException {
+		}
+
+		public final void handleAIOSessionClosed(final AIOSession session, final Throwable cause) {
+		}
+
+	}
+
+
+	private TimerEntrySet timerEntries;
+	private Demultiplexer demultiplexer;
+	private SessionContext sessionContext;
+
+	private Pipe pipe0;
+	private Pipe pipe1;
+
+
+	public QuantumTestAction() {
+		super();
+		this.sessionContext = null;
+	}
+
+
+	@Override
+	public final void init(final ActionContext context) {
+		super.init(context);
+
+		getSelector();
+	}
+
+	@Override
+	public final void destroy() {
+		final Selector selector = (Selector)context().removeAttribute(TEST_SELECTOR);
+		if (selector != null) {
+			try {
+				selector.close();
+			} catch (IOException ignore) {
+			}
+		}
+
+		super.destroy();
+	}
+
+	private final Selector getSelector() {
+		Selector selector = (Selector)context.getAttribute(TEST_SELECTOR);
+		if (selector == null || !selector.isOpen()) {
+
+			try {
+				selector = Selector.open();
+			} catch (IOException ex) {
+				throw new RuntimeException(ex);
+			}
+
+			context.setAttribute(TEST_SELECTOR, selector);
+		}
+		return selector;
+	}
+
+	@Override
+	protected final void setUp(final String methodName) throws Exception {
+		if (this.sessionContext == null) {
+			final Selector selector = getSelector();
+
+			this.timerEntries = new TimerEntrySet(this);
+			this.demultiplexer = new Demultiplexer(selector, this.timerEntries, this, true, false);
+
+			this.sessionContext = new SessionContext(LogManager.getLogger("chinmobi.aio"),
+					this.demultiplexer);
+		}
+
+		this.pipe0 = Pipe.open();
+		this.pipe1 = Pipe.open();
+	}
+
+	@Override
+	protected final void tearDown() throws Exception {
+		this.sessionContext.setIOQuantum(-1, -1);
+
+		closePipe(this.pipe0);
+		closePipe(this.pipe1);
+
+		this.demultiplexer.clear();
+		this.timerEntries.clear();
+	}
+
+	private static final void closePipe(final Pipe pipe) {
+		try {
+			pipe.sink().close();
+		} catch (IOException ignore) {
+		}
+
+		try {
+			pipe.source().close();
+		} catch (IOException ignore) {
+		}
+	}
+
+
+	public final void notifyTimerEntryAdded(final TimerEntrySet entrySet, final TimerEntry timerEntry) {
+		this.demultiplexer.wakeup();
+	}
+
+	public final void notifyTimerEntryRuntimeException(final TimerEntry timerEntry, final RuntimeException ex) {
+	}
+
+	public final void assertActive() throws AIONotActiveException {
+	}
+
+	public final AIOServiceHandler createAIOServiceHandler(final AIOSession session) {
+		return new ServiceHandler();
+	}
+
+
+	private final OutputActRequest addRequest(final Session session,
+			final AbstractActTestAction.Helper<AIOOutputActResult> helper) throws Exception {
+		final AbstractActTestAction.BufferActEntry entry = new AbstractActTestAction.BufferActEntry(1);
+		entry.byteBuffer().put((byte)0x00);
+		entry.byteBuffer().flip();
+
+		return session.outputActor().addRequest(session.id(), entry, helper,
+				1000, TimeUnit.MILLISECONDS, null);
+	}
+
+	private final void selectBoth(final EventHandler handler0, final EventHandler handler1)
+			throws IOException {
+		while (!this.demultiplexer.containsInSelectedHandlers(handler0) ||
+				!this.demultiplexer.containsInSelectedHandlers(handler1)) {
+			this.demultiplexer.select();
+		}
+	}
+
+	private final void runSession1(final EventHandler handler1,
+			final AbstractActTestAction.Helper<AIOOutputActResult> helper1) {
+		assertEquals(1, handler1.runSelected());
+
+		assertEquals(1, helper1.accomplishedCount);
+		assertFalse(this.demultiplexer.containsInSelectedHandlers(handler1));
+	}
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testYieldOneTransferActs() {
+		try {
+			// Two transfers per readiness event, every request is done with one transfer.
+			this.sessionContext.setIOQuantum(-1, 2);
+
+			final Session session0 = this.sessionContext.sessionCreator().createSession(
+					this.pipe0.sink(), SelectionKey.OP_WRITE, this);
+			final Session session1 = this.sessionContext.sessionCreator().createSession(
+					this.pipe1.sink(), SelectionKey.OP_WRITE, this);
+
+			final AbstractActTestAction.Helper<AIOOutputActResult> helper0 =
+				new AbstractActTestAction.Helper<AIOOutputActResult>();
+			final AbstractActTestAction.Helper<AIOOutputActResult> helper1 =
+				new AbstractActTestAction.Helper<AIOOutputActResult>();
+
+			addRequest(session0, helper0);
+			addRequest(session0, helper0);
+			final OutputActRequest request = addRequest(session0, helper0);
+
+			addRequest(session1, helper1);
+
+			final EventHandler handler0 = session0.getEventHandler();
+			final EventHandler handler1 = session1.getEventHandler();
+
+			selectBoth(handler0, handler1);
+
+			// The order of the selected handlers is up to the demultiplexer.
+			EventHandler selected = this.demultiplexer.pollSelectedHandler();
+			if (selected == handler1) {
+				runSession1(handler1, helper1);
+				selected = this.demultiplexer.pollSelectedHandler();
+			}
+			assertTrue(selected == handler0);
+
+			// ---------------------------------------------
+			assertEquals(1, handler0.runSelected());
+
+			assertEquals(2, helper0.accomplishedCount);
+			assertTrue(session0.isYielded());
+			assertTrue(session0.outputActor().contains(request));
+
+			// Re-activated behind the other selected session, if any.
+			assertTrue(this.demultiplexer.containsInSelectedHandlers(handler0));
+			if (helper1.accomplishedCount == 0) {
+				assertTrue(this.demultiplexer.pollSelectedHandler() == handler1);
+				runSession1(handler1, helper1);
+			}
+			assertFalse(session1.isYielded());
+
+			// ---------------------------------------------
+			assertTrue(this.demultiplexer.pollSelectedHandler() == handler0);
+
+			assertEquals(1, handler0.runSelected());
+
+			// The quantum is reset for the next readiness event.
+			assertEquals(3, helper0.accomplishedCount);
+			assertFalse(session0.isYielded());
+			assertFalse(session0.outputActor().contains(request));
+			assertNull(session0.outputActor().currentRequest());
+
+			assertFalse(this.demultiplexer.containsInSelectedHandlers(handler0));
+
+			// ---------------------------------------------
+			// One of the two transfers is left for this event.
+			assertFalse(session0.consumeQuantum(1));
+			assertTrue(session0.isYielded());
+
+			assertEquals(0, helper0.failedCount);
+			assertEquals(0, helper1.failedCount);
+
+			session0.close();
+			session1.close();
+		} catch (Exception ex) {
+			fail(ex);
+		}
+	}
+
+}
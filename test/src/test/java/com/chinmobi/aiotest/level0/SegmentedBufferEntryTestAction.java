@@ -0,0 +1,130 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import java.nio.ByteBuffer;
+
+import com.chinmobi.aio.act.AIOReadableActEntry;
+import com.chinmobi.aio.act.AIOSegmentedActEntry;
+import com.chinmobi.aio.act.AIOWritableActEntry;
+import com.chinmobi.aio.act.entry.AIOSegmentedBufferEntry;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class SegmentedBufferEntryTestAction extends BaseTestAction {
+
+	public SegmentedBufferEntryTestAction() {
+		super();
+	}
+
+
+	private static final ByteBuffer sequence(final int length) {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		for (int i = 0; i < length; ++i) {
+			buffer.put((byte)i);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testPutAndSkip() {
+		final AIOSegmentedBufferEntry entry = new AIOSegmentedBufferEntry(16);
+
+		entry.put(sequence(40));
+		assertEquals(40, entry.readableBytes());
+		assertEquals(3, entry.segmentCount());
+		assertEquals(8, entry.writableBytes());
+
+		assertEquals(20, entry.skip(20));
+		assertEquals(20, entry.readableBytes());
+		assertEquals(2, entry.segmentCount());
+
+		final ByteBuffer[] slices = entry.slice(0, 20);
+		assertEquals(2, slices.length);
+		assertEquals(12, slices[0].remaining());
+		assertEquals(20, slices[0].get(0));
+		assertEquals(8, slices[1].remaining());
+		assertEquals(32, slices[1].get(0));
+
+		assertEquals(20, entry.skip(100));
+		assertEquals(0, entry.readableBytes());
+		assertEquals(1, entry.segmentCount());
+		assertEquals(16, entry.writableBytes());
+	}
+
+	public final void testAppend() {
+		final AIOSegmentedBufferEntry entry = new AIOSegmentedBufferEntry(16);
+
+		final ByteBuffer buffer = sequence(100);
+		entry.put(sequence(4));
+		entry.append(buffer);
+
+		assertEquals(104, entry.readableBytes());
+		assertEquals(2, entry.segmentCount());
+		assertEquals(0, entry.writableBytes());
+
+		final ByteBuffer[] slices = entry.slice(4, 100);
+		assertEquals(1, slices.length);
+		assertEquals(0, slices[0].get(0));
+		assertEquals(99, slices[0].get(99));
+	}
+
+	public final void testActEntries() {
+		final AIOSegmentedBufferEntry entry = new AIOSegmentedBufferEntry(16);
+
+		final AIOWritableActEntry output = entry.toOutput(40);
+		assertTrue(output instanceof AIOSegmentedActEntry);
+		assertNull(output.byteBuffer());
+		assertEquals(40, output.count());
+
+		final AIOSegmentedActEntry segmented = (AIOSegmentedActEntry)output;
+		final ByteBuffer[] buffers = segmented.byteBuffers();
+
+		final ByteBuffer src = sequence(30);
+		for (int i = segmented.segmentOffset(); src.hasRemaining(); ++i) {
+			final int limit = src.limit();
+			src.limit(src.position() + Math.min(src.remaining(), buffers[i].remaining()));
+			buffers[i].put(src);
+			src.limit(limit);
+		}
+		output.completed(0, 30);
+		assertEquals(30, entry.readableBytes());
+
+		final AIOReadableActEntry input = entry.toInput();
+		assertEquals(30, input.count());
+
+		input.completed(0, 25);
+		assertEquals(5, entry.readableBytes());
+		assertEquals(25, entry.slice(0, 5)[0].get(0));
+	}
+
+}
@@ -0,0 +1,95 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Zhaoping Yu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.chinmobi.aiotest.level0;
+
+import com.chinmobi.aio.act.AIOTransferPredictor;
+import com.chinmobi.testapp.BaseTestAction;
+
+/**
+ * @author <a href="mailto:yuzhaoping1970@gmail.com">Zhaoping Yu</a>
+ *
+ */
+public final class TransferPredictorTestAction extends BaseTestAction {
+
+	public TransferPredictorTestAction() {
+		super();
+	}
+
+
+	/*
+	 * Test methods
+	 */
+
+	public final void testGrow() {
+		final AIOTransferPredictor predictor = new AIOTransferPredictor();
+
+		assertEquals(AIOTransferPredictor.DEFAULT_INITIAL, predictor.nextLength());
+
+		predictor.record(1024);
+		assertEquals(16384, predictor.nextLength());
+
+		predictor.record(16384);
+		assertEquals(AIOTransferPredictor.DEFAULT_MAXIMUM, predictor.nextLength());
+
+		predictor.record(65536);
+		assertEquals(AIOTransferPredictor.DEFAULT_MAXIMUM, predictor.nextLength());
+	}
+
+	public final void testShrink() {
+		final AIOTransferPredictor predictor = new AIOTransferPredictor();
+
+		predictor.record(10);
+		assertEquals(1024, predictor.nextLength());
+
+		predictor.record(10);
+		assertEquals(512, predictor.nextLength());
+
+		for (int i = 0; i < 100; ++i) {
+			predictor.record(1);
+		}
+		assertEquals(AIOTransferPredictor.DEFAULT_MINIMUM, predictor.nextLength());
+
+		predictor.reset();
+		assertEquals(AIOTransferPredictor.DEFAULT_INITIAL, predictor.nextLength());
+	}
+
+	public final void testBounds() {
+		final AIOTransferPredictor predictor = new AIOTransferPredictor(256, 256, 4096);
+
+		assertEquals(256, predictor.nextLength());
+
+		for (int i = 0; i < 10; ++i) {
+			predictor.record(predictor.nextLength());
+		}
+		assertEquals(4096, predictor.nextLength());
+
+		try {
+			new AIOTransferPredictor(0, 1024, 4096);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException ignore) {
+		}
+	}
+
+}
@@ -24,6 +24,11 @@
  */
 package com.chinmobi.aiotest.level1;
 
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -31,6 +36,11 @@ import com.chinmobi.aio.AIOAcceptor;
 import com.chinmobi.aio.AIOFuture;
 import com.chinmobi.aio.AIOInetEndpoint;
 import com.chinmobi.aio.AIOSession;
+import com.chinmobi.aio.act.AIODatagramOutputQueue;
+import com.chinmobi.aio.act.entry.AIODatagramBatchEntry;
+import com.chinmobi.aio.act.AIOInputActResult;
+import com.chinmobi.aio.codec.AIODatagramPeer;
+import com.chinmobi.aio.codec.AIODatagramPeers;
 import com.chinmobi.aio.scheme.AIODatagramScheme;
 
 /**
@@ -168,6 +178,265 @@ public final class DatagramTransportTestAction extends TransportTestsBase {
 		}
 	}
 
+	public final void testPeerSessions() {
+		DatagramSocket client0 = null;
+		DatagramSocket client1 = null;
+		try {
+			setUpReactor(2, true, false);
+
+			final AIODatagramPeer.HandlerFactory echoFactory = new AIODatagramPeer.HandlerFactory() {
+				public final AIODatagramPeer.Handler createPeerHandler(final AIODatagramPeer peer) {
+					return new AIODatagramPeer.Handler() {
+						public final void peerOpened(final AIODatagramPeer peer) {
+						}
+
+						public final void datagramReceived(final AIODatagramPeer peer, final ByteBuffer datagram) {
+							try {
+								peer.send(datagram);
+							} catch (IOException ex) {
+								peer.close();
+							}
+						}
+
+						public final void peerTimeout(final AIODatagramPeer peer) {
+						}
+
+						public final void peerClosed(final AIODatagramPeer peer) {
+						}
+					};
+				}
+			};
+
+			final AIODatagramPeers peers = new AIODatagramPeers(this.reactor, echoFactory,
+					1024, 10, TimeUnit.SECONDS);
+
+			final AIOAcceptor acceptor = this.reactor.getAcceptor(new AIODatagramScheme(), new AIOInetEndpoint(8181));
+			assertNotNull(acceptor);
+
+			acceptor.setObserver(this.acceptorObserver);
+			acceptor.start(peers);
+
+			this.acceptorObserver.waitForAccepting();
+			if (this.acceptorObserver.cause != null) {
+				fail(this.acceptorObserver.cause);
+			}
+
+			client0 = new DatagramSocket();
+			client1 = new DatagramSocket();
+			client0.setSoTimeout(5000);
+			client1.setSoTimeout(5000);
+
+			final InetSocketAddress server = new InetSocketAddress("localhost", 8181);
+
+			for (int i = 0; i < 3; ++i) {
+				final byte[] ping0 = ("peer0-" + i).getBytes();
+				final byte[] ping1 = ("peer1-" + i).getBytes();
+
+				client0.send(new DatagramPacket(ping0, ping0.length, server));
+				client1.send(new DatagramPacket(ping1, ping1.length, server));
+
+				final DatagramPacket pong = new DatagramPacket(new byte[64], 64);
+
+				client0.receive(pong);
+				assertEquals("peer0-" + i, new String(pong.getData(), 0, pong.getLength()));
+
+				client1.receive(pong);
+				assertEquals("peer1-" + i, new String(pong.getData(), 0, pong.getLength()));
+			}
+
+			assertEquals(2, peers.peerCount());
+
+			acceptor.close();
+
+			this.acceptorObserver.waitForStopped();
+
+			assertEquals(0, peers.peerCount());
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			if (client0 != null) {
+				client0.close();
+			}
+			if (client1 != null) {
+				client1.close();
+			}
+			tearDownReactor();
+		}
+	}
+
+	public final void testPeerBacklog() {
+		DatagramSocket client = null;
+		final int[] received = new int[2];
+		try {
+			setUpReactor(2, true, false);
+
+			final AIODatagramPeer.HandlerFactory blockingFactory = new AIODatagramPeer.HandlerFactory() {
+				public final AIODatagramPeer.Handler createPeerHandler(final AIODatagramPeer peer) {
+					return new AIODatagramPeer.Handler() {
+						public final void peerOpened(final AIODatagramPeer peer) {
+						}
+
+						public final void datagramReceived(final AIODatagramPeer peer, final ByteBuffer datagram) {
+							synchronized (received) {
+								++received[0];
+								received.notifyAll();
+								// Holds the first datagram until the others are sent.
+								while (received[1] == 0) {
+									try {
+										received.wait();
+									} catch (InterruptedException ex) {
+										return;
+									}
+								}
+							}
+						}
+
+						public final void peerTimeout(final AIODatagramPeer peer) {
+						}
+
+						public final void peerClosed(final AIODatagramPeer peer) {
+						}
+					};
+				}
+			};
+
+			final AIODatagramPeers peers = new AIODatagramPeers(this.reactor, blockingFactory,
+					1024, 10, TimeUnit.SECONDS, 4);
+
+			final AIOAcceptor acceptor = this.reactor.getAcceptor(new AIODatagramScheme(), new AIOInetEndpoint(8181));
+			assertNotNull(acceptor);
+
+			acceptor.setObserver(this.acceptorObserver);
+			acceptor.start(peers);
+
+			this.acceptorObserver.waitForAccepting();
+			if (this.acceptorObserver.cause != null) {
+				fail(this.acceptorObserver.cause);
+			}
+
+			client = new DatagramSocket();
+
+			final InetSocketAddress server = new InetSocketAddress("localhost", 8181);
+
+			final byte[] ping = "ping".getBytes();
+
+			client.send(new DatagramPacket(ping, ping.length, server));
+			synchronized (received) {
+				while (received[0] == 0) {
+					received.wait();
+				}
+			}
+
+			for (int i = 0; i < 20; ++i) {
+				client.send(new DatagramPacket(ping, ping.length, server));
+			}
+			Thread.sleep(200);
+
+			synchronized (received) {
+				received[1] = 1;
+				received.notifyAll();
+			}
+
+			final long deadline = System.currentTimeMillis() + 5000;
+			synchronized (received) {
+				while (received[0] + peers.getDroppedCount() < 21 && System.currentTimeMillis() < deadline) {
+					received.wait(50);
+				}
+			}
+
+			synchronized (received) {
+				assertEquals(21, received[0] + peers.getDroppedCount());
+				// The held datagram and at most the backlog are handled.
+				assertTrue(received[0] <= 1 + 4);
+			}
+
+			acceptor.close();
+
+			this.acceptorObserver.waitForStopped();
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			synchronized (received) {
+				received[1] = 1;
+				received.notifyAll();
+			}
+			if (client != null) {
+				client.close();
+			}
+			tearDownReactor();
+		}
+	}
+
+	public final void testDatagramQueue() {
+		DatagramSocket receiver = null;
+		try {
+			setUpReactor(2, true, false);
+
+			final AIOAcceptor acceptor = startAccept();
+
+			final AIOSession serverSession = this.serverHandler.session;
+			assertNotNull(serverSession);
+
+			receiver = new DatagramSocket(0);
+			receiver.setSoTimeout(5000);
+			final InetSocketAddress destination = new InetSocketAddress("localhost", receiver.getLocalPort());
+
+			final AIODatagramOutputQueue queue = serverSession.outputActor().datagramQueue(serverSession.id(), 16);
+			assertNotNull(queue);
+			assertTrue(queue == serverSession.outputActor().datagramQueue(serverSession.id(), 0));
+			assertEquals(16, queue.capacity());
+
+			final int[] flushed = new int[2];
+			queue.setObserver(new AIODatagramOutputQueue.Observer() {
+				public final void datagramsFlushed(final AIODatagramOutputQueue queue,
+						final int sent, final int dropped, final int failed, final Throwable cause) {
+					synchronized (flushed) {
+						flushed[0] += sent;
+						flushed[1] += dropped + failed;
+						flushed.notifyAll();
+					}
+				}
+			});
+
+			for (int i = 0; i < 10; ++i) {
+				assertTrue(queue.enqueue(ByteBuffer.wrap(("datagram-" + i).getBytes()), destination));
+			}
+
+			synchronized (flushed) {
+				while (flushed[0] + flushed[1] < 10) {
+					flushed.wait();
+				}
+			}
+			assertEquals(10, flushed[0]);
+			assertEquals(10, queue.getSentCount());
+			assertEquals(0, queue.size());
+
+			final DatagramPacket packet = new DatagramPacket(new byte[64], 64);
+			for (int i = 0; i < 10; ++i) {
+				receiver.receive(packet);
+				assertEquals("datagram-" + i, new String(packet.getData(), 0, packet.getLength()));
+			}
+
+			acceptor.close();
+
+			endAccept();
+
+			assertTrue(queue.isClosed());
+			assertFalse(queue.enqueue(ByteBuffer.allocate(1), destination));
+			assertEquals(1, queue.getDroppedCount());
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			if (receiver != null) {
+				receiver.close();
+			}
+			tearDownReactor();
+		}
+	}
+
 	public final void testAccept2() {
 		try {
 			setUpReactor(2, true, false);
@@ -270,6 +539,103 @@ public final class DatagramTransportTestAction extends TransportTestsBase {
 		}
 	}
 
+	public final void testConnectedRead() {
+		try {
+			setUpReactor(2, true, false);
+
+			final AIOAcceptor acceptor = startAccept();
+			final AIOSession session = startConnect();
+
+			// Connected, the acts read and write the channel directly.
+			assertNotNull(session.readableChannel());
+			assertNotNull(session.scatteringChannel());
+			assertNotNull(session.writableChannel());
+			assertNotNull(session.gatheringChannel());
+
+			// Sent from the server endpoint the client is connected to.
+			final byte[] first = "first".getBytes();
+			final byte[] second = "second-datagram".getBytes();
+
+			final AIOFuture<AIOInputActResult> future = session.inputActor().read(session.id(),
+					new ActEntry(1024).toOutput(1024), null, 5000, TimeUnit.MILLISECONDS, null, null);
+
+			final InetSocketAddress client = new InetSocketAddress("localhost",
+					((InetSocketAddress)session.getLocalSocketAddress()).getPort());
+
+			final AIOSession serverSession = this.serverHandler.session;
+			serverSession.datagramChannel().send(ByteBuffer.wrap(first), client);
+			serverSession.datagramChannel().send(ByteBuffer.wrap(second), client);
+
+			final AIOInputActResult result = future.get();
+			// One datagram per act without a strategy.
+			assertEquals(first.length, result.completedCount());
+			future.release();
+
+			session.close();
+			endConnect();
+
+			acceptor.close();
+			endAccept();
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			tearDownReactor();
+		}
+	}
+
+	public final void testConnectedBatchRead() {
+		try {
+			setUpReactor(2, true, false);
+
+			final AIOAcceptor acceptor = startAccept();
+			final AIOSession session = startConnect();
+
+			final InetSocketAddress client = new InetSocketAddress("localhost",
+					((InetSocketAddress)session.getLocalSocketAddress()).getPort());
+			final AIOSession serverSession = this.serverHandler.session;
+
+			final AIODatagramBatchEntry entry = new AIODatagramBatchEntry(1, 64);
+
+			AIOFuture<AIOInputActResult> future = session.inputActor().read(session.id(),
+					entry, null, 5000, TimeUnit.MILLISECONDS, null, null);
+			serverSession.datagramChannel().send(ByteBuffer.wrap("first".getBytes()), client);
+
+			AIOInputActResult result = future.get();
+			assertEquals(5, result.completedCount());
+			future.release();
+
+			// The ring is full, and still kept after the release.
+			assertEquals(1, entry.size());
+			assertTrue(entry.nextSlot() == null);
+
+			// Read into again, the ring is recycled instead of completing with nothing.
+			future = session.inputActor().read(session.id(),
+					entry, null, 5000, TimeUnit.MILLISECONDS, null, null);
+			serverSession.datagramChannel().send(ByteBuffer.wrap("second".getBytes()), client);
+
+			result = future.get();
+			assertEquals(6, result.completedCount());
+			assertEquals(1, entry.size());
+			final ByteBuffer datagram = entry.datagram(0);
+			final byte[] bytes = new byte[datagram.remaining()];
+			datagram.get(bytes);
+			assertEquals("second", new String(bytes));
+			future.release();
+
+			session.close();
+			endConnect();
+
+			acceptor.close();
+			endAccept();
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			tearDownReactor();
+		}
+	}
+
 	public final void testXInputOutputAct() {
 		try {
 			setUpReactor(3, true, false);
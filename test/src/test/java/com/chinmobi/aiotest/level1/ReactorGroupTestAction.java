@@ -24,9 +24,26 @@
  */
 package com.chinmobi.aiotest.level1;
 
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.chinmobi.aio.AIOAcceptor;
+import com.chinmobi.aio.AIOClosedSessionException;
 import com.chinmobi.aio.AIOConfiguration;
+import com.chinmobi.aio.AIOInetEndpoint;
 import com.chinmobi.aio.AIOReactor;
+import com.chinmobi.aio.AIOServiceHandler;
+import com.chinmobi.aio.AIOSession;
 import com.chinmobi.aio.impl.nio.ReactorGroup;
+import com.chinmobi.aio.scheme.AIOSocketScheme;
 import com.chinmobi.testapp.BaseTestAction;
 
 /**
@@ -129,6 +146,157 @@ public final class ReactorGroupTestAction extends BaseTestAction {
 	}
 
 
+	private static final class AcceptorObserver implements AIOAcceptor.Observer {
+
+		private int startedCount;
+		private int acceptingCount;
+		private int stoppedCount;
+
+		volatile Throwable cause;
+
+
+		public final synchronized void onAIOAcceptorStarted(final AIOAcceptor acceptor) {
+			++this.startedCount;
+		}
+
+		public final synchronized void onAIOAcceptorAccepting(final AIOAcceptor acceptor) {
+			++this.acceptingCount;
+			notifyAll();
+		}
+
+		public final synchronized void onAIOAcceptorStopped(final AIOAcceptor acceptor,
+				final Object msgObj, final Throwable cause) {
+			if (cause != null) {
+				this.cause = cause;
+			}
+			++this.stoppedCount;
+			notifyAll();
+		}
+
+		final synchronized boolean waitForAccepting(final long timeout) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + timeout;
+			while (this.acceptingCount + this.stoppedCount == 0) {
+				final long waitTime = deadline - System.currentTimeMillis();
+				if (waitTime <= 0) {
+					return false;
+				}
+				wait(waitTime);
+			}
+			return true;
+		}
+
+		final synchronized boolean waitForStopped(final long timeout) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + timeout;
+			while (this.stoppedCount == 0) {
+				final long waitTime = deadline - System.currentTimeMillis();
+				if (waitTime <= 0) {
+					return false;
+				}
+				wait(waitTime);
+			}
+			return true;
+		}
+
+	}
+
+
+	private static final class ShardRecorder implements AIOServiceHandler.Factory, AIOServiceHandler {
+
+		private final Map<AIOSession, String> acceptReactors;
+		private final Set<String> reactors;
+
+		private final ByteBuffer buffer;
+
+		private volatile String acceptReactor;
+
+		private int inputCount;
+
+		volatile String failure;
+
+
+		ShardRecorder() {
+			this.acceptReactors = new HashMap<AIOSession, String>();
+			this.reactors = new HashSet<String>();
+			this.buffer = ByteBuffer.allocate(16);
+		}
+
+
+		// The threads of a reactor are named after its pool: aio_TP_<pool>[<index>]
+		private static final String currentReactor() {
+			final String name = Thread.currentThread().getName();
+			final int index = name.lastIndexOf('[');
+			return (index > 0) ? name.substring(0, index) : name;
+		}
+
+		final void accepting() {
+			this.acceptReactor = currentReactor();
+		}
+
+		final synchronized boolean waitForInput(final int count, final long timeout) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + timeout;
+			while (this.inputCount < count) {
+				final long waitTime = deadline - System.currentTimeMillis();
+				if (waitTime <= 0) {
+					return false;
+				}
+				wait(waitTime);
+			}
+			return true;
+		}
+
+		final synchronized int reactorCount() {
+			return this.reactors.size();
+		}
+
+		public final AIOServiceHandler createAIOServiceHandler(final AIOSession session) {
+			return this;
+		}
+
+		public final synchronized void handleAIOSessionOpened(final AIOSession session)
+				throws AIOClosedSessionException {
+			this.acceptReactors.put(session, this.acceptReactor);
+		}
+
+		public final boolean handleAIOSessionInputReady(final AIOSession session)
+				throws IOException, AIOClosedSessionException {
+			// Selected and handled by the reactor the session is registered on.
+			final String reactor = currentReactor();
+
+			synchronized (this) {
+				this.buffer.clear();
+				if (session.readableChannel().read(this.buffer) < 0) {
+					session.close();
+					return true;
+				}
+
+				final String acceptReactor = this.acceptReactors.get(session);
+				if (!reactor.equals(acceptReactor)) {
+					this.failure = "Accepted on " + acceptReactor + " but handled on " + reactor;
+				}
+
+				this.reactors.add(reactor);
+				++this.inputCount;
+				notifyAll();
+			}
+			return true;
+		}
+
+		public final boolean handleAIOSessionOutputReady(final AIOSession session)
+				throws IOException, AIOClosedSessionException {
+			return false;
+		}
+
+		public final void handleAIOSessionTimeout(final AIOSession session) throws AIOClosedSessionException {
+			session.close();
+		}
+
+		public final synchronized void handleAIOSessionClosed(final AIOSession session, final Throwable cause) {
+			this.acceptReactors.remove(session);
+		}
+
+	}
+
+
 	private ReactorGroup reactor;
 
 	private final Helper helper;
@@ -348,4 +516,97 @@ public final class ReactorGroupTestAction extends BaseTestAction {
 		}
 	}
 
+	public final void testShardedAcceptor() {
+		final Socket[] sockets = new Socket[9];
+		try {
+			this.reactor.start();
+
+			this.helper.waitForStarted();
+
+			final ShardRecorder recorder = new ShardRecorder();
+
+			final AIOSocketScheme scheme = new AIOSocketScheme() {
+				@Override
+				public final boolean isShardedAcceptor() {
+					return true;
+				}
+
+				@Override
+				public final int getAcceptBatchSize() {
+					// Called on the reactor accepting the connection.
+					recorder.accepting();
+					return 1;
+				}
+			};
+
+			final AIOAcceptor acceptor = this.reactor.getAcceptor(scheme, new AIOInetEndpoint(8080));
+			assertNotNull(acceptor);
+
+			final AcceptorObserver observer = new AcceptorObserver();
+			acceptor.setObserver(observer);
+			acceptor.start(recorder);
+
+			// One notification for all the listeners.
+			assertTrue(observer.waitForAccepting(5000));
+			if (observer.cause instanceof SocketException && !isReusePortSupported()) {
+				this.out().println("SO_REUSEPORT is not supported, skipped.");
+				acceptor.close();
+				return;
+			} else if (observer.cause != null) {
+				fail(observer.cause);
+			}
+
+			assertEquals(1, observer.startedCount);
+			assertEquals(1, observer.acceptingCount);
+			assertTrue(acceptor.isActive());
+
+			// Each session stays on the reactor whose listener accepted it.
+			for (int i = 0; i < sockets.length; ++i) {
+				sockets[i] = new Socket("localhost", 8080);
+				sockets[i].getOutputStream().write(i);
+				assertTrue(recorder.waitForInput(i + 1, 5000));
+			}
+			if (recorder.failure != null) {
+				fail(recorder.failure);
+			}
+			assertTrue(recorder.reactorCount() >= 1);
+
+			acceptor.close();
+
+			assertTrue(observer.waitForStopped(5000));
+			if (observer.cause != null) {
+				fail(observer.cause);
+			}
+
+			assertEquals(1, observer.stoppedCount);
+			assertFalse(acceptor.isActive());
+
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			for (int i = 0; i < sockets.length; ++i) {
+				if (sockets[i] != null) {
+					try {
+						sockets[i].close();
+					} catch (IOException ignore) {
+					}
+				}
+			}
+		}
+	}
+
+	private static final boolean isReusePortSupported() throws IOException {
+		final ServerSocketChannel channel = ServerSocketChannel.open();
+		try {
+			for (SocketOption<?> option : channel.supportedOptions()) {
+				if ("SO_REUSEPORT".equals(option.name())) {
+					return true;
+				}
+			}
+			return false;
+		} finally {
+			channel.close();
+		}
+	}
+
 }
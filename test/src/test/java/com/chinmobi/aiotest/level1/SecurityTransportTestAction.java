@@ -26,8 +26,12 @@ package com.chinmobi.aiotest.level1;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -40,8 +44,12 @@ import javax.net.ssl.TrustManagerFactory;
 
 import com.chinmobi.aio.AIOAcceptor;
 import com.chinmobi.aio.AIOFuture;
+import com.chinmobi.aio.AIOFutureCallback;
 import com.chinmobi.aio.AIOInetEndpoint;
 import com.chinmobi.aio.AIOSession;
+import com.chinmobi.aio.act.AIOOutputActResult;
+import com.chinmobi.aio.impl.channels.ssl.SSLChannelsFactory;
+import com.chinmobi.aio.scheme.AIOHandshakeExecutor;
 import com.chinmobi.aio.scheme.AIOSecurityScheme;
 import com.chinmobi.aio.scheme.AIOSocketScheme;
 import com.chinmobi.logging.Logger;
@@ -59,6 +67,9 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 		protected final boolean isNeedClientAuth;
 
 		private int handshakStatus;
+		private int handshakedCount;
+
+		AIOHandshakeExecutor handshakeExecutor;
 
 
 		protected SecurityScheme(final Logger logger, final boolean isNeedClientAuth) {
@@ -72,6 +83,7 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 		final void init() {
 			synchronized (this) {
 				this.handshakStatus = 0;
+				this.handshakedCount = 0;
 			}
 		}
 
@@ -80,6 +92,11 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 			return this;
 		}
 
+		@Override
+		public final AIOHandshakeExecutor getHandshakeExecutor() {
+			return this.handshakeExecutor;
+		}
+
 		public final SSLContext getSSLContext() throws IOException, GeneralSecurityException {
 			// Create/initialize the SSLContext with key material
 
@@ -116,7 +133,8 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 		public final void verifySSLSessionHandshaked(final SSLSession sslSession) throws SSLException {
 			synchronized (this) {
 				this.handshakStatus = 1;
-				notify();
+				++this.handshakedCount;
+				notifyAll();
 			}
 
 			if (this.logger != null && this.logger.isDebugEnabled()) {
@@ -196,6 +214,20 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 			}
 		}
 
+		final boolean waitForHandshaked(final int count, final long timeout) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + timeout;
+			synchronized (this) {
+				while (this.handshakedCount < count && this.handshakStatus >= 0) {
+					final long waitTime = deadline - System.currentTimeMillis();
+					if (waitTime <= 0) {
+						break;
+					}
+					wait(waitTime);
+				}
+				return (this.handshakedCount >= count);
+			}
+		}
+
 		private static final String currentThreadId() {
 			final StringBuilder builder = new StringBuilder();
 
@@ -269,6 +301,67 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 	}
 
 
+	private static final class WritesCallback implements AIOFutureCallback<AIOOutputActResult> {
+
+		private int remaining;
+
+		volatile Throwable cause;
+
+
+		WritesCallback(final int count) {
+			this.remaining = count;
+		}
+
+
+		final void waitForDone() throws InterruptedException {
+			synchronized (this) {
+				while (this.remaining > 0 && this.cause == null) {
+					wait();
+				}
+			}
+		}
+
+		private final void done(final AIOFuture<AIOOutputActResult> future, final Throwable cause) {
+			synchronized (this) {
+				--this.remaining;
+				if (cause != null) {
+					this.cause = cause;
+				}
+				notify();
+			}
+			future.release();
+		}
+
+		public final void initiate(final AIOFuture<AIOOutputActResult> future,
+				final Object attachment, final AIOOutputActResult result) {
+		}
+
+		public final void accomplished(final AIOFuture<AIOOutputActResult> future,
+				final Object attachment, final AIOOutputActResult result) {
+			done(future, null);
+		}
+
+		public final void timeout(final AIOFuture<AIOOutputActResult> future,
+				final Object attachment, final AIOOutputActResult result) {
+			done(future, new IOException("Timeout"));
+		}
+
+		public final void failed(final AIOFuture<AIOOutputActResult> future,
+				final Object attachment, final AIOOutputActResult result, final Throwable cause) {
+			done(future, cause);
+		}
+
+		public final void cancelled(final AIOFuture<AIOOutputActResult> future,
+				final Object attachment, final AIOOutputActResult result) {
+			done(future, new IOException("Cancelled"));
+		}
+
+	}
+
+
+	private AIOHandshakeExecutor handshakeExecutor;
+
+
 	public SecurityTransportTestAction() {
 		super();
 	}
@@ -290,6 +383,7 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 	private final AIOAcceptor startAcceptor(final boolean isNeedClientAuth)
 			throws InterruptedException {
 		final ServerSecurityScheme scheme = new ServerSecurityScheme(this.reactor.logger(), isNeedClientAuth);
+		scheme.handshakeExecutor = this.handshakeExecutor;
 		final AIOInetEndpoint endpoint = new AIOInetEndpoint(8282);
 
 		final AIOAcceptor acceptor = this.reactor.getAcceptor(scheme, endpoint);
@@ -321,6 +415,7 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 
 		final ClientSecurityScheme clientScheme = new ClientSecurityScheme(this.reactor.logger(),
 				isNeedClientAuth, isClientTrustEverything);
+		clientScheme.handshakeExecutor = this.handshakeExecutor;
 
 		serverScheme.init();
 		clientScheme.init();
@@ -485,6 +580,106 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 		}
 	}
 
+	public final void test4Connect() {
+		final AIOHandshakeExecutor executor = new AIOHandshakeExecutor(2, 16);
+		this.handshakeExecutor = executor;
+		try {
+			setUpReactor(3, true, false);
+			for (int i = 0; i < 5; ++i) {
+				this.serverHandler.reset();
+				this.clientHandler.reset();
+
+				this.acceptorObserver.reset();
+
+				doTestConnect(true, true, false);
+			}
+
+			assertTrue(executor.getExecutedCount() > 0);
+			assertEquals(0, executor.getQueueDepth());
+			assertEquals(0, executor.getRejectedCount());
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			tearDownReactor();
+
+			this.handshakeExecutor = null;
+			executor.shutdown();
+		}
+	}
+
+	public final void test5IdleSessionBuffers() {
+		final int sessionCount = 16;
+		try {
+			setUpReactor(3, true, false);
+
+			final long baseBytes = SSLChannelsFactory.getAcquiredBufferBytes();
+
+			final AIOAcceptor acceptor = startAcceptor(false);
+			final ServerSecurityScheme serverScheme = (ServerSecurityScheme)acceptor.getTransportScheme();
+
+			final ClientSecurityScheme clientScheme = new ClientSecurityScheme(this.reactor.logger(),
+					false, false);
+
+			serverScheme.init();
+			clientScheme.init();
+
+			final AIOInetEndpoint remote = new AIOInetEndpoint("localhost", 8282);
+
+			final List<AIOFuture<AIOSession>> futures = new ArrayList<AIOFuture<AIOSession>>(sessionCount);
+			for (int i = 0; i < sessionCount; ++i) {
+				futures.add(this.reactor.getConnector().connect(
+						clientScheme, remote, null,
+						this.clientHandler,
+						null, 1000, TimeUnit.MILLISECONDS, null));
+			}
+
+			final List<AIOSession> sessions = new ArrayList<AIOSession>(sessionCount);
+			for (final AIOFuture<AIOSession> future : futures) {
+				sessions.add(future.get(5000, TimeUnit.MILLISECONDS));
+				future.release();
+			}
+
+			assertTrue(clientScheme.waitForHandshaked(sessionCount, 5000));
+			assertTrue(serverScheme.waitForHandshaked(sessionCount, 5000));
+
+			final SSLSession sslSession = clientScheme.getSSLContext().createSSLEngine().getSession();
+			final long eagerBytes = 2L * sessionCount *
+				2 * (sslSession.getPacketBufferSize() + sslSession.getApplicationBufferSize());
+
+			// The last handshake flights are drained after the handshakes are notified.
+			final long idleBytes = waitForAcquiredBufferBytes(baseBytes + eagerBytes / 4 - 1, 5000) - baseBytes;
+
+			this.out().println("TLS buffers per idle session: " + (idleBytes / (2 * sessionCount)) +
+					" bytes, " + (eagerBytes / (2 * sessionCount)) + " bytes if held eagerly");
+
+			assertTrue(idleBytes < eagerBytes / 4);
+
+			for (final AIOSession session : sessions) {
+				session.close();
+			}
+
+			assertTrue(this.clientHandler.waitForClosed(sessionCount, 5000));
+			assertTrue(this.serverHandler.waitForClosed(sessionCount, 5000));
+
+			assertEquals(baseBytes, waitForAcquiredBufferBytes(baseBytes, 5000));
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			tearDownReactor();
+		}
+	}
+
+	private static final long waitForAcquiredBufferBytes(final long bytes, final long timeout)
+			throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + timeout;
+		long acquiredBytes;
+		while ((acquiredBytes = SSLChannelsFactory.getAcquiredBufferBytes()) > bytes &&
+				System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		return acquiredBytes;
+	}
+
 	public final void testX0InputOutputAct() {
 		try {
 			setUpReactor(3, true, false);
@@ -531,7 +726,127 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 		}
 	}
 
+	public final void testX2BulkTransfer() {
+		final long transferCount = 8L * 1024 * 1024;
+		try {
+			setUpReactor(3, true, false);
+
+			for (int i = 0; i < 3; ++i) {
+				this.serverHandler.reset();
+				this.clientHandler.reset();
+
+				this.acceptorObserver.reset();
+
+				final long startTime = System.nanoTime();
+
+				doTestAct(true, transferCount, 64 * 1024);
+
+				final long elapsedTime = System.nanoTime() - startTime;
+
+				this.out().println("TLS bulk transfer: " + (transferCount * 2) + " bytes in " +
+						TimeUnit.NANOSECONDS.toMillis(elapsedTime) + " ms, " +
+						((transferCount * 2 * 1000000000L / 1048576L) / Math.max(elapsedTime, 1)) + " MB/s");
+			}
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			tearDownReactor();
+		}
+	}
+
+	public final void testX3CoalescedWrites() {
+		final int messageCount = 1000;
+		final int messageSize = 64;
+		final long transferCount = (long)messageCount * messageSize;
+		try {
+			setUpReactor(3, true, false);
+
+			startConnect(true, true, false);
+
+			final AIOSession serverSession = this.serverHandler.session;
+			final AIOSession clientSession = this.clientHandler.session;
+
+			final ServerInputHelper serverHelper = new ServerInputHelper(serverSession, 64 * 1024);
+			serverHelper.setSpecificCount(transferCount);
+			serverHelper.receive();
+
+			final ClientInputHelper clientHelper = new ClientInputHelper(clientSession, 64 * 1024);
+			clientHelper.setSpecificCount(transferCount);
+			clientHelper.receive();
+
+			final long records = wrappedRecordCount(clientSession, serverSession);
+			final long cpuTime = processCpuTime();
+
+			final WritesCallback callback = new WritesCallback(messageCount);
+			for (int i = 0; i < messageCount; ++i) {
+				final ActEntry entry = new ActEntry(messageSize);
+				entry.toOutput(messageSize).byteBuffer().position(messageSize);
+
+				clientSession.outputActor().write(clientSession.id(),
+						entry.toInput(), callback, 10000, TimeUnit.MILLISECONDS, null);
+			}
+
+			callback.waitForDone();
+			if (callback.cause != null) {
+				fail(callback.cause);
+			}
+
+			serverHelper.waitForDone(transferCount);
+			if (serverHelper.cause != null) {
+				fail(serverHelper.cause);
+			}
+			assertEquals(transferCount, serverHelper.receivedCount);
+
+			clientHelper.waitForDone(transferCount);
+			if (clientHelper.cause != null) {
+				fail(clientHelper.cause);
+			}
+			assertEquals(transferCount, clientHelper.receivedCount);
+
+			// Both the messages and their echoes.
+			final long wrappedRecords = wrappedRecordCount(clientSession, serverSession) - records;
+			final long cpuNanos = (cpuTime >= 0) ? processCpuTime() - cpuTime : -1;
+
+			this.out().println("TLS small writes: " + ((double)wrappedRecords / (2 * messageCount)) +
+					" records per message (1 if not coalesced)" + ((cpuNanos >= 0) ?
+					", " + (cpuNanos * 1048576L / (2 * transferCount) / 1000000L) + " ms process CPU per MB" : ""));
+
+			assertTrue(wrappedRecords < messageCount / 4);
+
+			serverSession.shutdownOutput(false);
+
+			endConnect();
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			tearDownReactor();
+		}
+	}
+
+	private static final long wrappedRecordCount(final AIOSession clientSession, final AIOSession serverSession) {
+		return SSLChannelsFactory.getWrappedRecordCount(clientSession.writableChannel()) +
+			SSLChannelsFactory.getWrappedRecordCount(serverSession.writableChannel());
+	}
+
+	/**
+	 * The CPU time of the whole process, which does not drop when the threads exit.
+	 *
+	 * @return -1 if not supported.
+	 */
+	private static final long processCpuTime() {
+		final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+		if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean)osBean).getProcessCpuTime();
+		}
+		return -1;
+	}
+
 	private final void doTestAct(final boolean waitForHandshaked, final long transferCount) {
+		doTestAct(waitForHandshaked, transferCount, MAX_TRANSFER_SIZE);
+	}
+
+	private final void doTestAct(final boolean waitForHandshaked, final long transferCount,
+			final int transferSize) {
 		AIOSession serverSession = null;
 		AIOSession clientSession = null;
 		try {
@@ -541,15 +856,15 @@ public final class SecurityTransportTestAction extends TransportTestsBase {
 			/*final AIOSession */clientSession = this.clientHandler.session;
 
 
-			final ServerInputHelper serverHelper = new ServerInputHelper(serverSession);
+			final ServerInputHelper serverHelper = new ServerInputHelper(serverSession, transferSize);
 			serverHelper.setSpecificCount(transferCount);
 			serverHelper.receive();
 
-			final ClientInputHelper clientHelper = new ClientInputHelper(clientSession);
+			final ClientInputHelper clientHelper = new ClientInputHelper(clientSession, transferSize);
 			clientHelper.setSpecificCount(transferCount);
 			clientHelper.receive();
 
-			final OutputHelper outputHelper = new OutputHelper(clientSession);
+			final OutputHelper outputHelper = new OutputHelper(clientSession, transferSize);
 			outputHelper.send(transferCount);
 
 
@@ -24,8 +24,12 @@
  */
 package com.chinmobi.aiotest.level1;
 
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.chinmobi.aio.AIOAcceptor;
 import com.chinmobi.aio.AIOFuture;
@@ -39,6 +43,8 @@ import com.chinmobi.aio.scheme.AIOSocketScheme;
  */
 public final class SocketTransportTestAction extends TransportTestsBase {
 
+	private AIOSocketScheme acceptScheme;
+
 
 	public SocketTransportTestAction() {
 		super();
@@ -115,7 +121,7 @@ public final class SocketTransportTestAction extends TransportTestsBase {
 	}
 
 	private final AIOAcceptor startAcceptor() throws InterruptedException {
-		final AIOSocketScheme scheme = new AIOSocketScheme();
+		final AIOSocketScheme scheme = (this.acceptScheme != null) ? this.acceptScheme : new AIOSocketScheme();
 		final AIOInetEndpoint endpoint = new AIOInetEndpoint(8080);
 
 		final AIOAcceptor acceptor = this.reactor.getAcceptor(scheme, endpoint);
@@ -251,6 +257,73 @@ public final class SocketTransportTestAction extends TransportTestsBase {
 		}
 	}
 
+	public final void testConnectBatched() {
+		final AtomicInteger acceptEvents = new AtomicInteger();
+		final CountDownLatch connected = new CountDownLatch(1);
+
+		this.acceptScheme = new AIOSocketScheme() {
+			@Override
+			public int getAcceptBatchSize() {
+				// Called once per accept event, the first one waits for all the connections.
+				if (acceptEvents.incrementAndGet() == 1) {
+					try {
+						connected.await(5000, TimeUnit.MILLISECONDS);
+					} catch (InterruptedException ignore) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return 16;
+			}
+		};
+
+		final Socket[] sockets = new Socket[8];
+		try {
+			setUpReactor(2, true, false);
+
+			startAcceptor();
+
+			for (int i = 0; i < sockets.length; ++i) {
+				sockets[i] = new Socket("localhost", 8080);
+			}
+			connected.countDown();
+
+			assertTrue(this.serverHandler.waitForOpened(sockets.length, 5000));
+			assertEquals(sockets.length, this.serverHandler.openedCount);
+
+			// All the pending connections were drained by the first event.
+			assertEquals(1, acceptEvents.get());
+
+			for (int i = 0; i < sockets.length; ++i) {
+				sockets[i].close();
+				sockets[i] = null;
+			}
+			assertTrue(this.serverHandler.waitForClosed(sockets.length, 5000));
+
+			for (int i = 0; i < 5; ++i) {
+				this.serverHandler.reset();
+				this.clientHandler.reset();
+
+				this.acceptorObserver.reset();
+
+				doTestConnect();
+			}
+		} catch (Exception ex) {
+			fail(ex);
+		} finally {
+			connected.countDown();
+			for (int i = 0; i < sockets.length; ++i) {
+				if (sockets[i] != null) {
+					try {
+						sockets[i].close();
+					} catch (IOException ignore) {
+					}
+				}
+			}
+			tearDownReactor();
+			this.acceptScheme = null;
+		}
+	}
+
 	private final void doTestConnect() {
 		AIOSession serverSession = null;
 		AIOSession clientSession = null;
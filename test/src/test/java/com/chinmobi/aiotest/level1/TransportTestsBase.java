@@ -55,7 +55,7 @@ import com.chinmobi.testapp.BaseTestAction;
  */
 public class TransportTestsBase extends BaseTestAction {
 
-	private static final int MAX_TRANSFER_SIZE = 32;
+	protected static final int MAX_TRANSFER_SIZE = 32;
 
 
 	protected static final class ActEntry extends AIOBufferEntryBase {
@@ -71,6 +71,7 @@ public class TransportTestsBase extends BaseTestAction {
 		private final AIOSession session;
 
 		private final ActEntry actEntry;
+		private final int transferSize;
 
 		volatile long remainingCount;
 		private int doneStatus;
@@ -81,9 +82,14 @@ public class TransportTestsBase extends BaseTestAction {
 
 
 		OutputHelper(final AIOSession session) {
+			this(session, MAX_TRANSFER_SIZE);
+		}
+
+		OutputHelper(final AIOSession session, final int transferSize) {
 			this.session = session;
 
-			this.actEntry = new ActEntry(MAX_TRANSFER_SIZE);
+			this.transferSize = transferSize;
+			this.actEntry = new ActEntry(transferSize);
 
 			this.doneStatus = 0;
 			this.remainingCount = 0;
@@ -97,8 +103,8 @@ public class TransportTestsBase extends BaseTestAction {
 				if (this.doneStatus == 0 && this.remainingCount <= 0) {
 					this.remainingCount = remaining;
 
-					if (remaining > MAX_TRANSFER_SIZE) {
-						remaining = MAX_TRANSFER_SIZE;
+					if (remaining > this.transferSize) {
+						remaining = this.transferSize;
 					}
 				} else {
 					return false;
@@ -168,8 +174,8 @@ public class TransportTestsBase extends BaseTestAction {
 				return;
 			}
 
-			if (remaining > MAX_TRANSFER_SIZE) {
-				remaining = MAX_TRANSFER_SIZE;
+			if (remaining > this.transferSize) {
+				remaining = this.transferSize;
 			}
 
 			this.actEntry.clear();
@@ -232,6 +238,7 @@ public class TransportTestsBase extends BaseTestAction {
 		implements AIOFutureCallback<AIOInputActResult>, AIOInputActStrategy {
 
 		protected final AIOSession session;
+		private final int transferSize;
 
 		protected volatile long specificCount;
 
@@ -244,7 +251,12 @@ public class TransportTestsBase extends BaseTestAction {
 
 
 		protected InputHelperBase(final AIOSession session) {
+			this(session, MAX_TRANSFER_SIZE);
+		}
+
+		protected InputHelperBase(final AIOSession session, final int transferSize) {
 			this.session = session;
+			this.transferSize = transferSize;
 
 			this.specificCount = Long.MAX_VALUE;
 			this.receivedCount = 0;
@@ -261,12 +273,12 @@ public class TransportTestsBase extends BaseTestAction {
 
 		public final void receive() throws AIOClosedSessionException {
 			if (this.currentActEntry == null) {
-				this.currentActEntry = new ActEntry(MAX_TRANSFER_SIZE);
+				this.currentActEntry = new ActEntry(this.transferSize);
 			}
 
 			this.currentActEntry.clear();
 
-			final AIOWritableActEntry ouputEntry = this.currentActEntry.toOutput(MAX_TRANSFER_SIZE);
+			final AIOWritableActEntry ouputEntry = this.currentActEntry.toOutput(this.transferSize);
 
 			this.session.inputActor().read(this.session.id(),
 					ouputEntry, this, 10000, TimeUnit.MILLISECONDS,
@@ -349,7 +361,11 @@ public class TransportTestsBase extends BaseTestAction {
 
 
 		ServerInputHelper(final AIOSession session) {
-			super(session);
+			this(session, MAX_TRANSFER_SIZE);
+		}
+
+		ServerInputHelper(final AIOSession session, final int transferSize) {
+			super(session, transferSize);
 			this.outputHelper = new ServerOutputHelper(this);
 			this.sentCount = 0;
 		}
@@ -496,6 +512,10 @@ public class TransportTestsBase extends BaseTestAction {
 			super(session);
 		}
 
+		ClientInputHelper(final AIOSession session, final int transferSize) {
+			super(session, transferSize);
+		}
+
 		@Override
 		public final void accomplished(final AIOFuture<AIOInputActResult> future,
 				final Object attachment, final AIOInputActResult result) {
@@ -605,6 +625,34 @@ public class TransportTestsBase extends BaseTestAction {
 			}
 		}
 
+		final boolean waitForOpened(final int count, final long timeout) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + timeout;
+			synchronized (this) {
+				while (this.openedCount < count) {
+					final long waitTime = deadline - System.currentTimeMillis();
+					if (waitTime <= 0) {
+						return false;
+					}
+					wait(waitTime);
+				}
+			}
+			return true;
+		}
+
+		final boolean waitForClosed(final int count, final long timeout) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + timeout;
+			synchronized (this) {
+				while (this.closedCount < count) {
+					final long waitTime = deadline - System.currentTimeMillis();
+					if (waitTime <= 0) {
+						return false;
+					}
+					wait(waitTime);
+				}
+			}
+			return true;
+		}
+
 		public final AIOServiceHandler createAIOServiceHandler(final AIOSession session) {
 			return this;
 		}